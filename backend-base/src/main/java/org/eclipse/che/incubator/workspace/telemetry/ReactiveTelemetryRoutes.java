@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.eclipse.che.incubator.workspace.telemetry.base.AbstractAnalyticsManager;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventDispatcher;
+import org.eclipse.che.incubator.workspace.telemetry.io.BinaryEventCodec;
+import org.eclipse.che.incubator.workspace.telemetry.io.BinaryEventReader;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecord;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecordReader;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking variant of the <code>/event</code> and <code>/activity</code>
+ * endpoints of {@link TelemetryResource}, under
+ * <code>/telemetry/reactive</code>, served by Vert.x routes instead of
+ * JAX-RS.
+ *
+ * The request body is parsed on the Vert.x event loop. The event is then
+ * submitted on the event loop too, unless the analytics manager is
+ * {@link AbstractAnalyticsManager#isBlocking() blocking} or the event
+ * dispatcher {@link EventDispatcher#isBlocking() can block} (it waits for room
+ * with the <code>BLOCK</code> overflow policy, or appends to the event log),
+ * in which case it is submitted on the Vert.x worker pool. So a non-blocking
+ * analytics manager serves any number of concurrent requests from the event
+ * loop threads.
+ */
+@ApplicationScoped
+public class ReactiveTelemetryRoutes {
+
+  static final String PATH = "/telemetry/reactive";
+
+  private static final long MAX_BODY_BYTES = 1024 * 1024;
+  private static final String TEXT_PLAIN = MediaType.TEXT_PLAIN + ";charset=UTF-8";
+
+  @Inject
+  TelemetryResource telemetryResource;
+
+  @Inject
+  AbstractAnalyticsManager analyticsManager;
+
+  @Inject
+  Vertx vertx;
+
+  void init(@Observes Router router) {
+    router.post(PATH + "/event").handler(BodyHandler.create().setBodyLimit(MAX_BODY_BYTES))
+        .handler(this::handleEvent);
+    router.post(PATH + "/activity").handler(this::handleActivity);
+  }
+
+  /**
+   * Submits an event, as <code>POST /telemetry/event</code>.
+   */
+  public CompletionStage<Response> event(EventRecord event) {
+    return call(telemetryResource.isEventBlocking(), () -> telemetryResource.event(event));
+  }
+
+  /**
+   * Records an activity, as <code>POST /telemetry/activity</code>.
+   */
+  public CompletionStage<String> activity() {
+    return call(analyticsManager.isBlocking(), telemetryResource::activity);
+  }
+
+  /**
+   * Runs a call to the analytics manager, on the calling thread if it is
+   * non-blocking, or on the worker pool. The returned stage is completed on the
+   * calling Vert.x context.
+   */
+  private <T> CompletionStage<T> call(boolean blocking, Supplier<T> call) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    if (!blocking) {
+      try {
+        result.complete(call.get());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    }
+    vertx.<T>executeBlocking(promise -> promise.complete(call.get()), false, done -> {
+      if (done.succeeded()) {
+        result.complete(done.result());
+      } else {
+        result.completeExceptionally(done.cause());
+      }
+    });
+    return result;
+  }
+
+  private void handleEvent(RoutingContext context) {
+    EventRecord event;
+    try {
+      event = readEvent(context.request().getHeader(HttpHeaders.CONTENT_TYPE), context.getBody());
+    } catch (WebApplicationException e) {
+      end(context, e.getResponse().getStatus(), String.valueOf(e.getResponse().getEntity()));
+      return;
+    } catch (IOException | IllegalArgumentException e) {
+      end(context, 400, String.valueOf(e.getMessage()));
+      return;
+    }
+    event(event).whenComplete((response, failure) -> {
+      if (failure != null) {
+        context.fail(failure);
+      } else {
+        Object entity = response.getEntity();
+        end(context, response.getStatus(), entity == null ? "" : entity.toString());
+      }
+    });
+  }
+
+  private void handleActivity(RoutingContext context) {
+    activity().whenComplete((response, failure) -> {
+      if (failure != null) {
+        context.fail(failure);
+      } else {
+        end(context, 200, response);
+      }
+    });
+  }
+
+  private static EventRecord readEvent(String contentType, Buffer body) throws IOException {
+    InputStream input = new ByteArrayInputStream(body == null ? new byte[0] : body.getBytes());
+    if (contentType != null && contentType.startsWith(BinaryEventCodec.MEDIA_TYPE)) {
+      return new BinaryEventReader().readFrom(EventRecord.class, EventRecord.class, null,
+          MediaType.valueOf(BinaryEventCodec.MEDIA_TYPE), null, input);
+    }
+    MediaType mediaType = contentType == null ? MediaType.APPLICATION_JSON_TYPE : MediaType.valueOf(contentType);
+    return new EventRecordReader().readFrom(EventRecord.class, EventRecord.class, null, mediaType, null, input);
+  }
+
+  private static void end(RoutingContext context, int status, String body) {
+    context.response().setStatusCode(status).putHeader(HttpHeaders.CONTENT_TYPE, TEXT_PLAIN).end(body);
+  }
+}
@@ -14,52 +14,172 @@ package org.eclipse.che.incubator.workspace.telemetry;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 import org.eclipse.che.incubator.workspace.telemetry.base.AbstractAnalyticsManager;
-import org.eclipse.che.incubator.workspace.telemetry.base.AnalyticsEvent;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventDispatcher;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventType;
+import org.eclipse.che.incubator.workspace.telemetry.base.RingBufferEventDispatcher;
+import org.eclipse.che.incubator.workspace.telemetry.base.RingBufferEventDispatcher.OverflowPolicy;
+import org.eclipse.che.incubator.workspace.telemetry.base.SynchronousEventDispatcher;
+import org.eclipse.che.incubator.workspace.telemetry.base.TelemetryMetrics;
+import org.eclipse.che.incubator.workspace.telemetry.io.BinaryEventCodec;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecord;
+import org.eclipse.che.incubator.workspace.telemetry.io.NdjsonEventReader;
 import org.eclipse.che.incubator.workspace.telemetry.model.Event;
+import org.eclipse.che.incubator.workspace.telemetry.model.EventResult;
+import org.eclipse.che.incubator.workspace.telemetry.model.EventStreamResult;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
-import java.util.Map;
-import java.util.stream.Collectors;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 @Path("/")
 @ApplicationScoped
 public class TelemetryResource {
 
+  private static final int MAX_REPORTED_STREAM_ERRORS = 100;
+
   @Inject
   AbstractAnalyticsManager analyticsManager;
 
+  @ConfigProperty(name = "che.telemetry.async.enabled", defaultValue = "false")
+  boolean asyncEnabled;
+
+  @ConfigProperty(name = "che.telemetry.async.capacity", defaultValue = "1024")
+  int asyncCapacity;
+
+  @ConfigProperty(name = "che.telemetry.async.overflow-policy", defaultValue = "DROP_NEWEST")
+  String asyncOverflowPolicy;
+
+  EventDispatcher eventDispatcher;
+
+  @PostConstruct
+  void init() {
+    if (asyncEnabled) {
+      eventDispatcher = new RingBufferEventDispatcher(analyticsManager, asyncCapacity,
+        OverflowPolicy.valueOf(asyncOverflowPolicy));
+    } else {
+      eventDispatcher = new SynchronousEventDispatcher(analyticsManager);
+    }
+    analyticsManager.start();
+  }
+
   @POST
   @Path("/event")
-  @Consumes(MediaType.APPLICATION_JSON)
+  @Consumes({ MediaType.APPLICATION_JSON, BinaryEventCodec.MEDIA_TYPE })
   @Produces(MediaType.TEXT_PLAIN)
   @Operation(summary = "Posts a telemetry event",
     description = "Submit telemetry events to the workspace telemetry manager.\nThe event Id should be the Id of a built-in event or of an alread-registered custom event",
     operationId = "event")
-  @APIResponse(responseCode = "200", description = "Event was successfully submitted")
+  @APIResponse(responseCode = "200", description = "Event was successfully submitted",
+    content = @Content(mediaType = MediaType.TEXT_PLAIN, schema = @Schema(implementation = String.class)))
   @APIResponse(responseCode = "400", description = "Error during event submission")
-  public String event(
+  @APIResponse(responseCode = "503", description = "Event buffer is full, the event was dropped")
+  public Response event(
     @RequestBody(
       description = "Event to send",
-      required = true)
-      Event event) {
-    Map<String, Object> params =
-      event.getProperties().stream()
-        .collect(Collectors.toMap(e -> e.getId(), e -> e.getValue()));
-
-    AnalyticsEvent analyticsEvent = analyticsManager.transformEvent(AnalyticsEvent.valueOf(event.getId()), analyticsManager.getUserId());
-    analyticsManager.onActivity();
-    analyticsManager.doSendEvent(analyticsEvent, event.getOwnerId(), event.getIp(), event.getAgent(), event.getResolution(), params);
-    return "";
+      required = true,
+      content = {
+        @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = Event.class)),
+        @Content(mediaType = BinaryEventCodec.MEDIA_TYPE, schema = @Schema(type = SchemaType.STRING, format = "binary"))
+      })
+      EventRecord event) {
+    EventType type = analyticsManager.getEventTypeRegistry().resolve(event.getId());
+    if (type == null) {
+      return Response.status(Status.BAD_REQUEST).entity("Unknown event id: " + event.getId()).build();
+    }
+    if (!sendEvent(type, event)) {
+      return Response.status(Status.SERVICE_UNAVAILABLE).entity("Event buffer is full").build();
+    }
+    return Response.ok("").build();
+  }
+
+  @POST
+  @Path("/events")
+  @Consumes({ MediaType.APPLICATION_JSON, BinaryEventCodec.MEDIA_TYPE })
+  @Produces(MediaType.APPLICATION_JSON)
+  @Operation(summary = "Posts a batch of telemetry events",
+    description = "Submit several telemetry events at once to the workspace telemetry manager.\nEvents are processed in order, and one result is returned for each submitted event, so that an invalid event doesn't reject the whole batch",
+    operationId = "events")
+  @APIResponse(responseCode = "200", description = "Batch was processed. The status of each event is given by the corresponding result")
+  public List<EventResult> events(
+    @RequestBody(
+      description = "Events to send",
+      required = true,
+      content = {
+        @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(type = SchemaType.ARRAY, implementation = Event.class)),
+        @Content(mediaType = BinaryEventCodec.MEDIA_TYPE, schema = @Schema(type = SchemaType.STRING, format = "binary"))
+      })
+      List<EventRecord> events) {
+    if (events == null) {
+      return new ArrayList<>();
+    }
+    List<EventResult> results = new ArrayList<>(events.size());
+    for (EventRecord event : events) {
+      results.add(submitEvent(event));
+    }
+    return results;
+  }
+
+  @POST
+  @Path("/events/stream")
+  @Consumes(NdjsonEventReader.MEDIA_TYPE)
+  @Produces(MediaType.APPLICATION_JSON)
+  @Operation(summary = "Posts a stream of telemetry events",
+    description = "Submit newline-delimited JSON events to the workspace telemetry manager, in a single, possibly long-lived, request.\nEach event is submitted as soon as its line is received. Lines that could not be submitted are reported when the stream ends, without aborting it",
+    operationId = "eventsStream")
+  @APIResponse(responseCode = "200", description = "Stream was processed. The lines that could not be submitted are given in the errors")
+  public EventStreamResult eventsStream(
+    @RequestBody(
+      description = "Newline-delimited events to send, each line having the format of an Event",
+      required = true,
+      content = @Content(mediaType = NdjsonEventReader.MEDIA_TYPE, schema = @Schema(type = SchemaType.STRING)))
+      InputStream body) throws IOException {
+    EventStreamResult result = new EventStreamResult();
+    new NdjsonEventReader(body).readAll(new NdjsonEventReader.Handler() {
+      @Override
+      public void onEvent(int line, EventRecord event) {
+        result.received++;
+        EventResult eventResult = submitEvent(event);
+        if (eventResult.getStatus() == 200) {
+          result.accepted++;
+        } else {
+          report(eventResult, line);
+        }
+      }
+
+      @Override
+      public void onError(int line, String message) {
+        result.received++;
+        report(new EventResult(null, 400, message), line);
+      }
+
+      private void report(EventResult eventResult, int line) {
+        if (result.errors.size() < MAX_REPORTED_STREAM_ERRORS) {
+          eventResult.setLine(line);
+          result.errors.add(eventResult);
+        }
+      }
+    });
+    return result;
   }
 
   @POST
@@ -71,10 +191,50 @@ public class TelemetryResource {
     operationId = "activity")
   @APIResponse(responseCode = "200", description = "Notification was successfully submitted")
   public String activity() {
-    analyticsManager.onActivity();
+    analyticsManager.recordActivity();
     return "";
   }
 
+  @GET
+  @Path("/metrics")
+  @Produces(TelemetryMetrics.CONTENT_TYPE)
+  @Operation(summary = "Gets the metrics of the telemetry pipeline",
+    description = "Returns the metrics of the telemetry pipeline (received, suppressed and sent events, delivery latency, queue depths) in the Prometheus text format.",
+    operationId = "metrics")
+  @APIResponse(responseCode = "200", description = "Metrics in the Prometheus text format")
+  public String metrics() {
+    return TelemetryMetrics.scrape(analyticsManager, eventDispatcher);
+  }
+
+  /**
+   * @return whether submitting an event can block the calling thread: in the
+   *         event dispatcher, or when recording the activity
+   */
+  boolean isEventBlocking() {
+    return analyticsManager.isBlocking() || eventDispatcher.isBlocking();
+  }
+
+  private EventResult submitEvent(EventRecord event) {
+    if (event == null) {
+      return new EventResult(null, 400, "Missing event");
+    }
+    EventType type = analyticsManager.getEventTypeRegistry().resolve(event.getId());
+    if (type == null) {
+      return new EventResult(event.getId(), 400, "Unknown event id");
+    }
+    if (!sendEvent(type, event)) {
+      return new EventResult(event.getId(), 503, "Event buffer is full");
+    }
+    return new EventResult(event.getId(), 200, null);
+  }
+
+  private boolean sendEvent(EventType type, EventRecord event) {
+    analyticsManager.getMetrics().eventReceived(type);
+    type = analyticsManager.transformEvent(type, analyticsManager.getUserId());
+    analyticsManager.recordActivity();
+    return eventDispatcher.dispatch(type, event.getOwnerId(), event.getIp(), event.getAgent(), event.getResolution(), event.getProperties());
+  }
+
   void onStart(@Observes StartupEvent ev) {
     // Just to trigger the injection of the
     // analytics manager at start, so that initialization
@@ -82,6 +242,7 @@ public class TelemetryResource {
   }
 
   void onStop(@Observes ShutdownEvent ev) {
-    analyticsManager.destroy();
+    eventDispatcher.shutdown();
+    analyticsManager.shutdown();
   }
 }
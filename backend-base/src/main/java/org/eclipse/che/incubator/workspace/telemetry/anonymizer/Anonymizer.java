@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.anonymizer;
+
+/**
+ * Turns identifying values, such as user names, owner ids or IP addresses,
+ * into stable anonymous identifiers. Implementations are thread-safe.
+ *
+ * @see Anonymizers
+ */
+public interface Anonymizer {
+
+  /**
+   * @return the anonymous identifier of the input, or <code>null</code> if the
+   *         input is <code>null</code>
+   */
+  String anonymize(String input);
+}
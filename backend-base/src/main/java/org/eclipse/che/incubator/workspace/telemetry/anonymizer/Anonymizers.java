@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.anonymizer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Factory of the built-in {@link Anonymizer} implementations.
+ */
+public final class Anonymizers {
+  public static final String SHA_1 = "sha1";
+  public static final String SHA_256 = "sha256";
+  public static final String HMAC_SHA_256 = "hmac-sha256";
+
+  private Anonymizers() {
+  }
+
+  /**
+   * @return an anonymizer producing the hexadecimal SHA-1 of the input, as
+   *         {@link SHA1HashGenerator} always did
+   */
+  public static Anonymizer sha1() {
+    return new DigestAnonymizer("SHA-1");
+  }
+
+  /**
+   * @return an anonymizer producing the hexadecimal SHA-256 of the input
+   */
+  public static Anonymizer sha256() {
+    return new DigestAnonymizer("SHA-256");
+  }
+
+  /**
+   * @return an anonymizer producing the hexadecimal HMAC-SHA256 of the input,
+   *         keyed with the UTF-8 bytes of the given salt
+   */
+  public static Anonymizer hmacSha256(String salt) {
+    return new HmacAnonymizer("HmacSHA256", salt == null ? null : salt.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return an anonymizer remembering the identifiers of the
+   *         <code>maxSize</code> most recently anonymized values, or the
+   *         given anonymizer if <code>maxSize</code> is not positive
+   */
+  public static Anonymizer memoizing(Anonymizer anonymizer, int maxSize) {
+    return maxSize > 0 ? new MemoizingAnonymizer(anonymizer, maxSize) : anonymizer;
+  }
+
+  /**
+   * @param name one of {@link #SHA_1}, {@link #SHA_256} or
+   *             {@link #HMAC_SHA_256}
+   * @param salt the key of the HMAC variants
+   * @throws IllegalArgumentException if the name is unknown, or the salt is
+   *                                  missing for an HMAC variant
+   */
+  public static Anonymizer create(String name, String salt) {
+    switch (name.toLowerCase(Locale.ROOT)) {
+    case SHA_1:
+      return sha1();
+    case SHA_256:
+      return sha256();
+    case HMAC_SHA_256:
+      return hmacSha256(salt);
+    default:
+      throw new IllegalArgumentException("Unknown anonymizer: " + name);
+    }
+  }
+}
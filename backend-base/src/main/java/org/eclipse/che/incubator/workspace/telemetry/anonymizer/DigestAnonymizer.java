@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.anonymizer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hashes the UTF-8 bytes of the input with a message digest, reused by each
+ * thread.
+ */
+final class DigestAnonymizer implements Anonymizer {
+  private final String algorithm;
+  private final ThreadLocal<MessageDigest> digest;
+
+  DigestAnonymizer(String algorithm) {
+    this.algorithm = algorithm;
+    MessageDigest prototype = newDigest(algorithm);
+    this.digest = ThreadLocal.withInitial(() -> newDigest(algorithm));
+    this.digest.set(prototype);
+  }
+
+  @Override
+  public String anonymize(String input) {
+    if (input == null) {
+      return null;
+    }
+    MessageDigest md = digest.get();
+    md.reset();
+    return Hex.encode(md.digest(input.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Override
+  public String toString() {
+    return algorithm;
+  }
+
+  private static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm, e);
+    }
+  }
+}
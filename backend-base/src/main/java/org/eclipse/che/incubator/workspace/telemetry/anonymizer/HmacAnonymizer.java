@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.anonymizer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Hashes the UTF-8 bytes of the input with a keyed MAC, reused by each thread.
+ * Unlike a plain digest, the identifiers can't be recomputed from a list of
+ * candidate values without the key.
+ */
+final class HmacAnonymizer implements Anonymizer {
+  private final String algorithm;
+  private final ThreadLocal<Mac> mac;
+
+  HmacAnonymizer(String algorithm, byte[] key) {
+    if (key == null || key.length == 0) {
+      throw new IllegalArgumentException("A key is required by " + algorithm);
+    }
+    SecretKeySpec secretKey = new SecretKeySpec(key, algorithm);
+    this.algorithm = algorithm;
+    Mac prototype = newMac(secretKey);
+    this.mac = ThreadLocal.withInitial(() -> newMac(secretKey));
+    this.mac.set(prototype);
+  }
+
+  @Override
+  public String anonymize(String input) {
+    if (input == null) {
+      return null;
+    }
+    Mac m = mac.get();
+    m.reset();
+    return Hex.encode(m.doFinal(input.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Override
+  public String toString() {
+    return algorithm;
+  }
+
+  private static Mac newMac(SecretKeySpec key) {
+    try {
+      Mac mac = Mac.getInstance(key.getAlgorithm());
+      mac.init(key);
+      return mac;
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IllegalArgumentException("Unsupported MAC algorithm: " + key.getAlgorithm(), e);
+    }
+  }
+}
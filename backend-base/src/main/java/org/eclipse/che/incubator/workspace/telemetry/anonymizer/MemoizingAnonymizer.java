@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.anonymizer;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers the identifiers of the most recently anonymized values, so that
+ * values seen with every event, such as owner ids or IP addresses, are only
+ * hashed once.
+ *
+ * Cache hits take no lock: they only mark their entry as used. When the cache
+ * is full, a batch of entries is evicted with an approximate LRU policy, the
+ * second chance algorithm: entries that weren't used since the previous
+ * eviction go first, and the others lose their mark.
+ */
+final class MemoizingAnonymizer implements Anonymizer {
+  /** The cache is brought back to 7/8 of its size when it is full. */
+  private static final int EVICTION_BATCH_DIVISOR = 8;
+
+  private static final class Entry {
+    final String anonymized;
+    volatile boolean used;
+
+    Entry(String anonymized) {
+      this.anonymized = anonymized;
+    }
+  }
+
+  private final Anonymizer delegate;
+  private final int maxSize;
+  private final ConcurrentHashMap<String, Entry> cache;
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  MemoizingAnonymizer(Anonymizer delegate, int maxSize) {
+    this.delegate = delegate;
+    this.maxSize = maxSize;
+    this.cache = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public String anonymize(String input) {
+    if (input == null) {
+      return null;
+    }
+    Entry entry = cache.get(input);
+    if (entry != null) {
+      if (!entry.used) {
+        entry.used = true;
+      }
+      return entry.anonymized;
+    }
+    String anonymized = delegate.anonymize(input);
+    cache.put(input, new Entry(anonymized));
+    if (cache.size() > maxSize) {
+      evict();
+    }
+    return anonymized;
+  }
+
+  /**
+   * Removes a batch of entries, unless another thread is already evicting.
+   */
+  private void evict() {
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      int targetSize = maxSize - Math.max(1, maxSize / EVICTION_BATCH_DIVISOR);
+      // The first pass spares the used entries, and the second one removes them if needed.
+      for (int pass = 0; pass < 2 && cache.size() > targetSize; pass++) {
+        for (Iterator<Entry> it = cache.values().iterator(); it.hasNext() && cache.size() > targetSize;) {
+          Entry entry = it.next();
+          if (entry.used) {
+            entry.used = false;
+          } else {
+            it.remove();
+          }
+        }
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return delegate + " (memoized)";
+  }
+}
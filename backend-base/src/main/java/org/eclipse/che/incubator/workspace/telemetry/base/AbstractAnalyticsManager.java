@@ -11,44 +11,49 @@
  */
 package org.eclipse.che.incubator.workspace.telemetry.base;
 
-import static java.lang.Long.parseLong;
 import static org.eclipse.che.incubator.workspace.telemetry.base.AnalyticsEvent.WORKSPACE_OPENED;
 import static org.eclipse.che.incubator.workspace.telemetry.base.AnalyticsEvent.WORKSPACE_STARTED;
 import static org.eclipse.che.multiuser.machine.authentication.shared.Constants.USER_NAME_CLAIM;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
-import java.util.AbstractMap.SimpleImmutableEntry;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableMap;
-
-import org.eclipse.che.api.core.BadRequestException;
-import org.eclipse.che.api.core.ConflictException;
-import org.eclipse.che.api.core.ForbiddenException;
-import org.eclipse.che.api.core.NotFoundException;
-import org.eclipse.che.api.core.ServerException;
-import org.eclipse.che.api.core.UnauthorizedException;
-import org.eclipse.che.api.core.model.workspace.Workspace;
-import org.eclipse.che.api.core.model.workspace.WorkspaceConfig;
-import org.eclipse.che.api.core.model.workspace.devfile.Component;
-import org.eclipse.che.api.core.model.workspace.devfile.Devfile;
+
+import org.eclipse.che.api.core.ApiException;
 import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
-import org.eclipse.che.api.factory.shared.dto.FactoryDto;
-import org.eclipse.che.api.workspace.shared.Constants;
-import org.eclipse.che.api.workspace.shared.dto.WorkspaceDto;
-import org.eclipse.che.incubator.workspace.telemetry.anonymizer.SHA1HashGenerator;
+import org.eclipse.che.incubator.workspace.telemetry.anonymizer.Anonymizer;
+import org.eclipse.che.incubator.workspace.telemetry.anonymizer.Anonymizers;
 import org.slf4j.Logger;
 
-import io.jsonwebtoken.JwtParser;
-import io.jsonwebtoken.Jwts;
-
 public abstract class AbstractAnalyticsManager {
   private static final Logger LOG = getLogger(AbstractAnalyticsManager.class);
 
+  private static final AtomicReferenceFieldUpdater<AbstractAnalyticsManager, String> WORKSPACE_STARTING_USER_ID =
+      AtomicReferenceFieldUpdater.newUpdater(AbstractAnalyticsManager.class, String.class, "workspaceStartingUserId");
+
+  private static final AtomicLongFieldUpdater<AbstractAnalyticsManager> NEXT_ACTIVITY_CALLBACK_TIME =
+      AtomicLongFieldUpdater.newUpdater(AbstractAnalyticsManager.class, "nextActivityCallbackTime");
+  private static final AtomicLongFieldUpdater<AbstractAnalyticsManager> ACTIVITY_COUNT_AT_LAST_CALLBACK =
+      AtomicLongFieldUpdater.newUpdater(AbstractAnalyticsManager.class, "activityCountAtLastCallback");
+
   protected final String workspaceId;
   protected String userId = "";
 
@@ -56,46 +61,56 @@ public abstract class AbstractAnalyticsManager {
   protected long noActivityTimeout = 60000 * 3;
 
   @VisibleForTesting
-  final protected String workspaceName;
+  protected volatile String workspaceName;
   @VisibleForTesting
-  final protected String factoryId;
+  protected volatile String factoryId;
   @VisibleForTesting
-  final protected String stackId;
+  protected volatile String stackId;
   @VisibleForTesting
-  protected String factoryName;
+  protected volatile String factoryName;
   @VisibleForTesting
-  protected String factoryOwner;
+  protected volatile String factoryOwner;
   @VisibleForTesting
-  protected String factoryUrl;
+  protected volatile String factoryUrl;
   @VisibleForTesting
-  final protected String createdOn;
+  protected volatile String createdOn;
   @VisibleForTesting
-  final protected String updatedOn;
+  protected volatile String updatedOn;
   @VisibleForTesting
-  final protected String stoppedOn;
+  protected volatile String stoppedOn;
   @VisibleForTesting
-  final protected String stoppedAbnormally;
+  protected volatile String stoppedAbnormally;
   @VisibleForTesting
-  final protected String lastErrorMessage;
+  protected volatile String lastErrorMessage;
   @VisibleForTesting
-  final protected String sourceTypes;
+  protected volatile String sourceTypes;
   @VisibleForTesting
-  final protected String startNumber;
+  protected volatile String startNumber;
   @VisibleForTesting
-  final protected List<String> pluginNames;
+  protected volatile List<String> pluginNames;
 
   @VisibleForTesting
-  final protected Long age;
+  protected volatile Long age;
   @VisibleForTesting
-  final protected Long returnDelay;
+  protected volatile Long returnDelay;
   @VisibleForTesting
-  final protected Boolean firstStart;
+  protected volatile Boolean firstStart;
 
   @VisibleForTesting
-  protected String workspaceStartingUserId = null;
+  protected volatile String workspaceStartingUserId = null;
 
   @VisibleForTesting
-  protected Map<String, Object> commonProperties;
+  protected volatile Map<String, Object> commonProperties;
+
+  private volatile WorkspaceMetadata workspaceMetadata = WorkspaceMetadata.EMPTY;
+
+  private static final int EVENT_LOG_MAX_ATTEMPTS = 10;
+  private static final long EVENT_LOG_IDLE_WAIT_MILLIS = 100;
+
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+  private static final long METADATA_RETRY_DELAY_MILLIS = 500;
+  private static final long METADATA_MAX_RETRY_DELAY_MILLIS = 30000;
 
   @VisibleForTesting
   protected static long pingTimeoutSeconds = 30;
@@ -103,106 +118,734 @@ public abstract class AbstractAnalyticsManager {
   @VisibleForTesting
   protected static long pingTimeout = pingTimeoutSeconds * 1000;
 
-  protected AnalyticsEvent lastEvent = null;
+  /**
+   * Immutable snapshot of the last sent event. It is swapped atomically, so that
+   * it is always consistent even when events are sent concurrently.
+   */
+  protected static final class LastEventState {
+    static final LastEventState NONE = new LastEventState(null, 0, null, null, null, null);
+
+    public final EventType type;
+    public final long time;
+    public final String ip;
+    public final String userAgent;
+    public final String resolution;
+    public final Map<String, Object> properties;
+
+    LastEventState(EventType type, long time, String ip, String userAgent, String resolution,
+        Map<String, Object> properties) {
+      this.type = type;
+      this.time = time;
+      this.ip = ip;
+      this.userAgent = userAgent;
+      this.resolution = resolution;
+      this.properties = properties;
+    }
+  }
 
-  @VisibleForTesting
-  Map<String, Object> lastEventProperties = null;
+  private final AtomicReference<LastEventState> lastEventState = new AtomicReference<>(LastEventState.NONE);
+
+  /*
+   * The following fields mirror the last event snapshot for existing
+   * subclasses. They are only written by the base class, after the snapshot
+   * was swapped: use getLastEventState() to read them consistently.
+   */
 
-  protected long lastActivityTime;
+  protected volatile AnalyticsEvent lastEvent = null;
 
-  protected long lastEventTime;
+  protected volatile long lastActivityTime;
 
-  protected String lastIp = null;
+  protected volatile long lastEventTime;
 
-  protected String lastUserAgent = null;
+  protected volatile String lastIp = null;
 
-  protected String lastResolution = null;
+  protected volatile String lastUserAgent = null;
+
+  protected volatile String lastResolution = null;
 
   protected long debounceTimeMillis = 1500;
 
+  /**
+   * Minimum time between two calls of <code>onActivity</code>: the activities
+   * recorded in the meantime are only counted. Read from the
+   * <code>che.telemetry.activity.coalesce-interval</code> setting. With 0,
+   * <code>onActivity</code> is called for every activity.
+   */
+  protected long activityCoalesceMillis;
+
+  private volatile long nextActivityCallbackTime;
+
+  private final LongAdder activityCount = new LongAdder();
+
+  /**
+   * Value of {@link #activityCount} at the last call of <code>onActivity</code>.
+   */
+  private volatile long activityCountAtLastCallback;
+
+  /**
+   * Maximum number of distinct recently sent events remembered to debounce the
+   * following ones.
+   */
+  protected int debounceTableSize = 1024;
+
+  private final DebounceTable debounceTable = new DebounceTable();
+
+  private final EventTypeRegistry eventTypeRegistry = new EventTypeRegistry();
+
+  private final EventSampler sampler;
+
+  private final Anonymizer anonymizer;
+
   private HttpJsonRequestFactory requestFactory;
 
+  /**
+   * Events sent while the workspace metadata is loaded in the background.
+   * Guarded by itself.
+   */
+  private final Queue<PendingEvent> pendingEvents = new ArrayDeque<>();
+
+  private volatile boolean metadataPending;
+
+  private WorkspaceMetadataSnapshot metadataSnapshot;
+
+  private ScheduledExecutorService metadataExecutor;
+
+  private final WorkspaceMetadataLoader metadataLoader;
+
+  private final int metadataRetries;
+
+  /**
+   * Whether {@link #start()} loads the workspace metadata in the background,
+   * because it is deferred or was read from a snapshot.
+   */
+  private boolean metadataLoadedOnStart;
+
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  private long metadataRefreshInterval;
+
+  private long metadataRefreshJitter;
+
+  /**
+   * Optional write-ahead log of the events between their debouncing and their
+   * delivery, opened by {@link #start()}.
+   */
+  private volatile EventLog eventLog;
+
+  /**
+   * Directory of the event log, or <code>null</code> when it is disabled.
+   */
+  private final Path eventLogDirectory;
+
+  private final int eventLogSegmentSize;
+
+  private final long eventLogMaxSize;
+
+  private final AtomicBoolean eventLogReplayStarted = new AtomicBoolean();
+
+  private volatile Thread eventLogConsumer;
+
+  private final AtomicBoolean stopped = new AtomicBoolean();
+
+  private final DeliveryPolicy deliveryPolicy;
+
+  private final TelemetryMetrics metrics = new TelemetryMetrics();
+
+  /**
+   * Whether the base class tracks the activity of the user, to send a
+   * <code>WORKSPACE_INACTIVE</code> event after <code>noActivityTimeout</code>
+   * without activity, and a <code>WORKSPACE_USED</code> event every
+   * <code>pingTimeout</code> while the user is active. It is read from the
+   * <code>che.telemetry.activity-tracking.enabled</code> setting, and can be
+   * enabled by the constructor of a subclass.
+   */
+  protected boolean activityTracking;
+
+  private static final int TIMER_WHEEL_SIZE = 512;
+
+  private final Object activityLock = new Object();
+
+  /**
+   * Runs the activity timeouts, created on the first activity.
+   */
+  private volatile TimerWheel timerWheel;
+
+  private final TimerWheel.Timeout inactivityTimeout = new TimerWheel.Timeout(this::checkInactivity);
+
+  private final TimerWheel.Timeout heartbeatTimeout = new TimerWheel.Timeout(this::sendHeartbeat);
+
+  /**
+   * Whether <code>WORKSPACE_INACTIVE</code> was sent since the last activity.
+   */
+  private volatile boolean inactive;
+
+  /**
+   * Runs the retries of the failed deliveries, created when the first one
+   * fails.
+   */
+  private ScheduledExecutorService retryExecutor;
+
+  private int pendingEventsCapacity;
+
+  private long droppedPendingEvents;
+
   public abstract boolean isEnabled();
 
+  /**
+   * Whether the callbacks of this analytics manager (<code>onEvent</code>,
+   * <code>onActivity</code>, <code>deliver</code>...) can block the calling
+   * thread, for instance on network I/O. The reactive endpoints call blocking
+   * analytics managers on a worker thread, and the others directly on the
+   * Vert.x event loop.
+   *
+   * Analytics managers are blocking by default: override it to return
+   * <code>false</code> only if these callbacks never wait.
+   */
+  public boolean isBlocking() {
+    return true;
+  }
+
   public abstract void onActivity();
 
+  /**
+   * Called instead of <code>onActivity</code> for an activity that follows
+   * coalesced ones: activities are reported at most once per
+   * <code>activityCoalesceMillis</code>. Override it to report the number of
+   * activities.
+   *
+   * @param coalescedCount number of activities recorded since the last call,
+   *                       without calling <code>onActivity</code>
+   */
+  public void onActivity(long coalescedCount) {
+    onActivity();
+  }
+
   public abstract void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
       Map<String, Object> properties);
 
   public abstract void increaseDuration(AnalyticsEvent event, Map<String, Object> properties);
 
+  /**
+   * Called for events of a custom type registered in the
+   * {@link #getEventTypeRegistry() event type registry}. Custom events are
+   * ignored by default.
+   */
+  public void onCustomEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+  }
+
+  /**
+   * Called instead of <code>onEvent</code> when an event is suppressed because
+   * an identical event (same type, owner and values of the properties to check)
+   * was sent less than <code>debounceTimeMillis</code> ago. Override it to
+   * report aggregated activity.
+   *
+   * @param suppressedCount      number of identical events suppressed since the
+   *                             last sent one, including this one
+   * @param suppressedSpanMillis time elapsed between the last sent identical
+   *                             event and this one
+   */
+  public void increaseDuration(AnalyticsEvent event, Map<String, Object> properties, int suppressedCount,
+      long suppressedSpanMillis) {
+    increaseDuration(event, properties);
+  }
+
+  /**
+   * Releases the resources of the subclass. It is called by
+   * {@link #shutdown()}, after the threads of the base class were stopped.
+   */
   public abstract void destroy();
 
   public AbstractAnalyticsManager(String apiEndpoint, String workspaceId, String machineToken,
       HttpJsonRequestFactory requestFactory) {
+    this(apiEndpoint, workspaceId, machineToken, requestFactory,
+        TelemetryConfig.getBoolean("che.telemetry.metadata.deferred", false));
+  }
+
+  /**
+   * When a snapshot of the workspace metadata was saved by a previous run, it
+   * is used right away and revalidated in the background once the analytics
+   * manager is {@link #start() started}.
+   *
+   * @param deferredMetadata whether the workspace metadata should be loaded in
+   *                         the background, from {@link #start()}, instead
+   *                         of in this constructor. Events sent before it is
+   *                         loaded are queued, and sent with the common
+   *                         properties once it is.
+   */
+  public AbstractAnalyticsManager(String apiEndpoint, String workspaceId, String machineToken,
+      HttpJsonRequestFactory requestFactory, boolean deferredMetadata) {
+    long start = System.nanoTime();
     this.workspaceId = workspaceId;
     this.requestFactory = requestFactory;
 
-    String endpoint = apiEndpoint + "/workspace/" + workspaceId;
-
-    Workspace workspace = getWorkspace(endpoint);
+    metadataLoader = new WorkspaceMetadataLoader(requestFactory, apiEndpoint, workspaceId,
+        TelemetryConfig.getInt("che.telemetry.metadata.timeout", 10000), metrics);
+    anonymizer = Anonymizers.memoizing(
+        Anonymizers.create(TelemetryConfig.getString("che.telemetry.anonymizer", Anonymizers.SHA_1),
+            TelemetryConfig.getString("che.telemetry.anonymizer.salt", null)),
+        TelemetryConfig.getInt("che.telemetry.anonymizer.cache-size", 1024));
+    userId = generateUserId(machineToken);
+    sampler = EventSampler.fromConfig(userId, workspaceId);
+    deliveryPolicy = DeliveryPolicy.fromConfig();
+    activityTracking = TelemetryConfig.getBoolean("che.telemetry.activity-tracking.enabled", false);
+    activityCoalesceMillis = TelemetryConfig.getLong("che.telemetry.activity.coalesce-interval", 1000);
+    metadataRetries = TelemetryConfig.getInt("che.telemetry.metadata.retries", 5);
+    String snapshotFile = TelemetryConfig.getString("che.telemetry.metadata.snapshot-file", "");
+    metadataSnapshot = snapshotFile.isEmpty() ? null : new WorkspaceMetadataSnapshot(Paths.get(snapshotFile));
+
+    metadataRefreshInterval = TelemetryConfig.getLong("che.telemetry.metadata.refresh-interval", 0);
+    metadataRefreshJitter = TelemetryConfig.getLong("che.telemetry.metadata.refresh-jitter", 0);
+
+    WorkspaceMetadata snapshot = readMetadataSnapshot();
+    if (snapshot != null || deferredMetadata || metadataRefreshInterval > 0) {
+      metadataExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "telemetry-metadata-loader");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    if (snapshot != null) {
+      applyWorkspaceMetadata(snapshot);
+      metadataLoadedOnStart = true;
+    } else if (deferredMetadata) {
+      pendingEventsCapacity = TelemetryConfig.getInt("che.telemetry.metadata.pending-capacity", 1024);
+      metadataPending = true;
+      applyWorkspaceMetadata(WorkspaceMetadata.EMPTY);
+      metadataLoadedOnStart = true;
+    } else {
+      try {
+        applyWorkspaceMetadata(metadataLoader.load());
+      } catch (IOException | ApiException e) {
+        throw new RuntimeException("Can't get workspace information for Che analytics", e);
+      }
+      writeMetadataSnapshot();
+    }
+    eventLogDirectory = TelemetryConfig.getBoolean("che.telemetry.wal.enabled", false)
+        ? Paths.get(TelemetryConfig.getString("che.telemetry.wal.dir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "che-telemetry-wal").toString()))
+        : null;
+    eventLogSegmentSize = TelemetryConfig.getInt("che.telemetry.wal.segment-size", 4 * 1024 * 1024);
+    eventLogMaxSize = TelemetryConfig.getLong("che.telemetry.wal.max-size", 64 * 1024 * 1024);
+    metrics.managerStarted(System.nanoTime() - start);
+    LOG.info("Analytics manager created in {} ms", WorkspaceMetadataLoader.elapsedMillis(start));
+  }
 
-    createdOn = workspace.getAttributes().get(Constants.CREATED_ATTRIBUTE_NAME);
-    updatedOn = workspace.getAttributes().get(Constants.UPDATED_ATTRIBUTE_NAME);
-    stoppedOn = workspace.getAttributes().get(Constants.STOPPED_ATTRIBUTE_NAME);
-    stoppedAbnormally = workspace.getAttributes().get(Constants.STOPPED_ABNORMALLY_ATTRIBUTE_NAME);
-    lastErrorMessage = workspace.getAttributes().get(Constants.ERROR_MESSAGE_ATTRIBUTE_NAME);
-    sourceTypes = workspace.getAttributes().get("sourceTypes");
-    startNumber = workspace.getAttributes().get("startNumber");
+  public void doSendEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    doSendEvent(EventType.of(event), ownerId, ip, userAgent, resolution, properties);
+  }
 
-    pluginNames = getPluginNamesFromWorkspace(workspace);
+  /**
+   * Samples and debounces an event of any type, and {@link #deliver delivers}
+   * it: to <code>onEvent</code> for built-in events, or to
+   * <code>onCustomEvent</code> for custom events. Built-in events of a sampled
+   * type carry their sample weight in their properties.
+   */
+  public void doSendEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    AnalyticsEvent event = type.getAnalyticsEvent();
+    if (event != null && sampler.isSampledOut(event)) {
+      metrics.eventSampledOut(type);
+      return;
+    }
+    if (metadataPending && deferEvent(type, ownerId, ip, userAgent, resolution, properties)) {
+      return;
+    }
+    long typeDebounceTime = type.getDebounceTimeMillis();
+    DebounceTable.Entry suppressed = debounceTable.debounce(type, ownerId, properties,
+        typeDebounceTime == EventType.DEFAULT_DEBOUNCE_TIME ? debounceTimeMillis : typeDebounceTime,
+        debounceTableSize);
+    if (suppressed != null) {
+      metrics.eventSuppressed(type);
+      if (event != null) {
+        increaseDuration(event, properties, suppressed.suppressedCount, suppressed.suppressedSpan());
+      }
+      return;
+    }
+    LastEventState sent = new LastEventState(type, System.currentTimeMillis(), ip, userAgent, resolution,
+        properties);
+    lastEventState.set(sent);
 
-    Long createDate = null;
-    Long updateDate = null;
-    Long stopDate = null;
+    if (event != null) {
+      lastEvent = event;
+    }
+    lastEventTime = sent.time;
+    lastIp = ip;
+    lastUserAgent = userAgent;
+    lastResolution = resolution;
+    if (event != null) {
+      properties = sampler.withSampleWeight(event, properties);
+    }
+    EventLog log = eventLog;
+    if (log == null || !logEvent(log, type, ownerId, ip, userAgent, resolution, properties)) {
+      deliverEvent(type, ownerId, ip, userAgent, resolution, properties);
+    }
+  }
 
-    if (createdOn != null) {
-        createDate = getDateFromString("created date", createdOn);
+  /**
+   * Delivers an event to the analytics backend. An exception thrown here fails
+   * the delivery attempt: the base class retries it with an exponential
+   * backoff, and stops calling this method while the backend keeps failing,
+   * according to the {@link #getDeliveryPolicy() delivery policy}. So
+   * implementations shouldn't retry by themselves.
+   *
+   * By default, calls <code>onEvent</code> for built-in events, and
+   * <code>onCustomEvent</code> for custom events.
+   *
+   * @param properties the event properties, merged with the common properties
+   */
+  protected void deliver(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) throws Exception {
+    AnalyticsEvent event = type.getAnalyticsEvent();
+    if (event != null) {
+      onEvent(event, ownerId, ip, userAgent, resolution, properties);
+    } else {
+      onCustomEvent(type, ownerId, ip, userAgent, resolution, properties);
     }
+  }
 
-    if (updatedOn != null) {
-        updateDate = getDateFromString("updated date", updatedOn);
+  private void deliverEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    deliverEvent(type, ownerId, ip, userAgent, resolution, getCurrentEventProperties(properties), 1);
+  }
+
+  /**
+   * Attempts to deliver an event, and schedules its next attempt on the retry
+   * thread if it fails, so that the calling thread never waits for a backoff.
+   */
+  private void deliverEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> currentProperties, int attempt) {
+    if (!deliveryPolicy.allowAttempt()) {
+      LOG.debug("Analytics backend circuit breaker is open, dropping the {} event", type);
+      return;
+    }
+    Exception failure = attemptDelivery(type, ownerId, ip, userAgent, resolution, currentProperties);
+    if (failure == null) {
+      return;
+    }
+    if (!deliveryPolicy.allowRetry(attempt)) {
+      LOG.warn("Failed to deliver the " + type + " event after " + attempt + " attempt(s), dropping it", failure);
+      return;
     }
+    long delay = deliveryPolicy.getRetryDelayMillis(attempt);
+    LOG.debug("Failed to deliver the {} event ({}), retrying in {} ms", type, failure, delay);
+    try {
+      getRetryExecutor().schedule(
+          () -> deliverEvent(type, ownerId, ip, userAgent, resolution, currentProperties, attempt + 1), delay,
+          TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      LOG.warn("Can't retry the delivery of the {} event, dropping it", type);
+    }
+  }
 
-    if (stoppedOn != null) {
-        stopDate = getDateFromString("stop date", stoppedOn);
+  /**
+   * @return the failure of the attempt, or <code>null</code> if the event was
+   *         delivered
+   */
+  private Exception attemptDelivery(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> currentProperties) {
+    boolean delivered = false;
+    long start = System.nanoTime();
+    try {
+      deliver(type, ownerId, ip, userAgent, resolution, currentProperties);
+      delivered = true;
+      metrics.eventSent(type, System.nanoTime() - start);
+      return null;
+    } catch (Exception e) {
+      return e;
+    } finally {
+      if (delivered) {
+        deliveryPolicy.onSuccess();
+      } else {
+        deliveryPolicy.onFailure();
+      }
     }
+  }
 
-    age = getSecondsBetween(updateDate, createDate);
-    returnDelay = getSecondsBetween(updateDate, stopDate);
+  private synchronized ScheduledExecutorService getRetryExecutor() {
+    if (stopped.get()) {
+      throw new RejectedExecutionException("The analytics manager is shut down");
+    }
+    if (retryExecutor == null) {
+      retryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "telemetry-delivery-retry");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return retryExecutor;
+  }
 
-    if (updateDate != null) {
-      firstStart = stopDate == null;
+  /**
+   * Records an activity of the user, in <code>lastActivityTime</code>, and
+   * calls <code>onActivity</code> if it wasn't called in the last
+   * <code>activityCoalesceMillis</code>. Activities recorded in between are
+   * only counted, and reported to the next call. When
+   * {@link #activityTracking} is enabled, it also pushes the inactivity
+   * timeout back, which doesn't take more than recording the time, unless the
+   * user was inactive.
+   */
+  public final void recordActivity() {
+    long now = System.currentTimeMillis();
+    lastActivityTime = now;
+    activityCount.increment();
+    if (activityTracking && (inactive || timerWheel == null)) {
+      resumeActivityTracking();
+    }
+    if (activityCoalesceMillis <= 0) {
+      long start = System.nanoTime();
+      onActivity();
+      metrics.activityReported(System.nanoTime() - start);
+      return;
+    }
+    long next = nextActivityCallbackTime;
+    if (now < next || !NEXT_ACTIVITY_CALLBACK_TIME.compareAndSet(this, next, now + activityCoalesceMillis)) {
+      return;
+    }
+    long count = activityCount.sum();
+    long previous = ACTIVITY_COUNT_AT_LAST_CALLBACK.getAndAccumulate(this, count, Math::max);
+    long coalesced = Math.max(0, count - 1 - previous);
+    long start = System.nanoTime();
+    if (coalesced == 0) {
+      onActivity();
     } else {
-      firstStart = null;
+      onActivity(coalesced);
     }
+    metrics.activityReported(System.nanoTime() - start);
+  }
 
-    WorkspaceConfig workspaceConfig = workspace.getConfig();
-    Devfile devfile = workspace.getDevfile();
+  /**
+   * @return the number of activities recorded, including the coalesced ones
+   */
+  public final long getActivityCount() {
+    return activityCount.sum();
+  }
 
-    stackId = workspace.getAttributes().get("stackName");
-    factoryId = workspace.getAttributes().get("factoryId");
-    setFactoryVariables(endpoint, workspaceConfig);
+  private void resumeActivityTracking() {
+    synchronized (activityLock) {
+      if (stopped.get()) {
+        return;
+      }
+      long heartbeatDelay = 0;
+      if (timerWheel == null) {
+        long tick = Math.max(10, Math.min(1000, Math.min(pingTimeout, noActivityTimeout) / 8));
+        timerWheel = new TimerWheel("telemetry-activity-timer", tick, TIMER_WHEEL_SIZE);
+        heartbeatDelay = pingTimeout;
+      } else if (!inactive) {
+        return;
+      }
+      inactive = false;
+      timerWheel.schedule(inactivityTimeout, noActivityTimeout);
+      timerWheel.schedule(heartbeatTimeout, heartbeatDelay);
+    }
+  }
 
-    workspaceName = getWorkspaceName(workspaceConfig, devfile);
-    userId = generateUserId(machineToken);
-    commonProperties = makeCommonProperties();
+  /**
+   * Runs on the timer wheel when the inactivity timeout expires. As activities
+   * don't reschedule it, it is rescheduled here if there was an activity in the
+   * meantime.
+   */
+  private void checkInactivity() {
+    synchronized (activityLock) {
+      // set before reading the last activity time, so that a concurrent
+      // activity either is seen here or sees the inactivity and resumes
+      inactive = true;
+      long idle = System.currentTimeMillis() - lastActivityTime;
+      if (idle < noActivityTimeout) {
+        inactive = false;
+        timerWheel.schedule(inactivityTimeout, noActivityTimeout - idle);
+        return;
+      }
+      timerWheel.cancel(heartbeatTimeout);
+    }
+    sendActivityEvent(AnalyticsEvent.WORKSPACE_INACTIVE);
   }
 
-  public void doSendEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
-      Map<String, Object> properties) {
-    if (shouldSendEvent(event, properties)) {
-      onEvent(event, ownerId, ip, userAgent, resolution, getCurrentEventProperties(properties));
-      lastEvent = event;
-      lastEventTime = System.currentTimeMillis();
-      lastIp = ip;
-      lastUserAgent = userAgent;
-      lastResolution = resolution;
-      lastEventProperties = properties;
-    } else {
-      increaseDuration(event, properties);
+  private void sendHeartbeat() {
+    synchronized (activityLock) {
+      if (inactive) {
+        return;
+      }
+      timerWheel.schedule(heartbeatTimeout, pingTimeout);
+    }
+    sendActivityEvent(AnalyticsEvent.WORKSPACE_USED);
+  }
+
+  private void sendActivityEvent(AnalyticsEvent event) {
+    LastEventState last = lastEventState.get();
+    try {
+      doSendEvent(transformEvent(EventType.of(event), userId), userId, last.ip, last.userAgent, last.resolution,
+          Collections.emptyMap());
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to send the " + event + " event", e);
+    }
+  }
+
+  /**
+   * Starts the background work of the analytics manager, once it is fully
+   * constructed: loading the workspace metadata when it is deferred or was
+   * read from a snapshot, refreshing it periodically, and opening and
+   * {@link #startEventLogReplay() replaying the event log}. These run
+   * <code>onWorkspaceMetadata</code> and deliver events on other threads, so it
+   * mustn't be called from a constructor. Until it is called, the events sent
+   * while the metadata is deferred stay queued, and the events aren't logged.
+   * Does nothing if the analytics manager was already started or stopped.
+   */
+  public final void start() {
+    start(true);
+  }
+
+  /**
+   * @param withEventLog whether to open the event log, when it is enabled. The
+   *                     sinks of a {@link CompositeAnalyticsManager} are
+   *                     started without it: the composite logs the events
+   *                     before handing them to its sinks.
+   */
+  final void start(boolean withEventLog) {
+    if (stopped.get() || !started.compareAndSet(false, true)) {
+      return;
+    }
+    if (withEventLog && eventLogDirectory != null) {
+      eventLog = openEventLog(eventLogDirectory, eventLogSegmentSize, eventLogMaxSize);
+    }
+    if (metadataLoadedOnStart) {
+      loadWorkspaceMetadataInBackground(metadataLoader, metadataRetries);
+    }
+    if (metadataRefreshInterval > 0) {
+      scheduleWorkspaceMetadataRefresh(metadataLoader);
+    }
+    startEventLogReplay();
+  }
+
+  /**
+   * Starts delivering the events of the event log, beginning with the events
+   * logged before a restart. It is called by {@link #start()} and when the
+   * first event is sent. Does nothing when the event log is disabled or not
+   * opened yet, or if it was already started.
+   */
+  public final void startEventLogReplay() {
+    if (eventLog != null && !stopped.get() && eventLogReplayStarted.compareAndSet(false, true)) {
+      Thread thread = new Thread(this::consumeEventLog, "telemetry-event-log");
+      thread.setDaemon(true);
+      eventLogConsumer = thread;
+      thread.start();
+    }
+  }
+
+  /**
+   * Stops the analytics manager: stops the activity timer, the metadata loader,
+   * the delivery retries and the event log consumer, calls {@link #destroy()},
+   * and flushes the event log to disk. The retries that were pending are
+   * dropped, but the logged events that weren't delivered yet are replayed at
+   * the next start. Does nothing if it was already called.
+   */
+  public final void shutdown() {
+    if (!stopped.compareAndSet(false, true)) {
       return;
     }
+    TimerWheel wheel;
+    synchronized (activityLock) {
+      wheel = timerWheel;
+    }
+    if (wheel != null) {
+      wheel.stop();
+    }
+    if (metadataExecutor != null) {
+      metadataExecutor.shutdownNow();
+    }
+    ScheduledExecutorService retries;
+    synchronized (this) {
+      retries = retryExecutor;
+    }
+    if (retries != null) {
+      int dropped = retries.shutdownNow().size();
+      if (dropped > 0) {
+        LOG.warn("Analytics manager stopped with {} delivery retry(ies) pending", dropped);
+      }
+    }
+    Thread consumer = eventLogConsumer;
+    if (consumer != null) {
+      consumer.interrupt();
+      try {
+        consumer.join(SHUTDOWN_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    try {
+      destroy();
+    } finally {
+      EventLog log = eventLog;
+      if (log != null) {
+        log.close();
+      }
+    }
+  }
+
+  /**
+   * @return whether the events are appended to the write-ahead event log
+   *         before being delivered, which is only the case once the analytics
+   *         manager is {@link #start() started}
+   */
+  public final boolean isEventLogEnabled() {
+    return eventLog != null;
+  }
+
+  /**
+   * @return the registry used to resolve event type identifiers, in which
+   *         custom event types can be registered
+   */
+  public final EventTypeRegistry getEventTypeRegistry() {
+    return eventTypeRegistry;
+  }
+
+  /**
+   * @return the anonymizer of the user id, to be used as well for the
+   *         identifying values sent with the events
+   */
+  public final Anonymizer getAnonymizer() {
+    return anonymizer;
+  }
+
+  /**
+   * @return the metrics of the telemetry pipeline
+   */
+  public final TelemetryMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return the number of events queued until the workspace metadata is loaded
+   */
+  final int getPendingEventCount() {
+    synchronized (pendingEvents) {
+      return pendingEvents.size();
+    }
+  }
+
+  /**
+   * @return the size of the logged events that weren't delivered yet, or -1
+   *         if the event log is disabled
+   */
+  final long getEventLogBacklog() {
+    EventLog log = eventLog;
+    return log == null ? -1 : log.getEndPosition() - log.getCommittedPosition();
+  }
+
+  /**
+   * @return the policy retrying the failed deliveries, with its circuit breaker
+   *         state and delivery counters
+   */
+  public final DeliveryPolicy getDeliveryPolicy() {
+    return deliveryPolicy;
+  }
+
+  /**
+   * @return a consistent snapshot of the last sent event
+   */
+  protected final LastEventState getLastEventState() {
+    return lastEventState.get();
   }
 
   public final String getWorkspaceId() {
@@ -217,6 +860,45 @@ public abstract class AbstractAnalyticsManager {
     return pluginNames;
   }
 
+  /**
+   * @return the workspace metadata, which is {@link WorkspaceMetadata#EMPTY}
+   *         until it is loaded
+   */
+  public final WorkspaceMetadata getWorkspaceMetadata() {
+    return workspaceMetadata;
+  }
+
+  /**
+   * @return whether the workspace metadata is still being loaded in the
+   *         background
+   */
+  public final boolean isWorkspaceMetadataPending() {
+    return metadataPending;
+  }
+
+  /**
+   * Called when the workspace metadata was loaded in the background, differs
+   * from the snapshot it was first read from, or changed since it was last
+   * refreshed, after the common properties were replaced. Override it to
+   * update values derived from the metadata. It is called from the loading
+   * thread, after {@link #start()}.
+   */
+  protected void onWorkspaceMetadata(WorkspaceMetadata metadata) {
+  }
+
+  /**
+   * Same as {@link #transformEvent(AnalyticsEvent, String)} for an event type.
+   * Custom event types are never transformed.
+   */
+  public EventType transformEvent(EventType type, String userId) {
+    AnalyticsEvent event = type.getAnalyticsEvent();
+    if (event == null) {
+      return type;
+    }
+    AnalyticsEvent transformed = transformEvent(event, userId);
+    return transformed == event ? type : EventType.of(transformed);
+  }
+
   /**
    * transformEvent performs preliminary modification to the event passed to
    * onEvent. If the event is an instance of WORKSPACED_OPEN, and the starting
@@ -229,112 +911,305 @@ public abstract class AbstractAnalyticsManager {
    *         met, the same event otherwise.
    */
   public AnalyticsEvent transformEvent(AnalyticsEvent event, String userId) {
-    if (event == WORKSPACE_OPENED && workspaceStartingUserId == null) {
-      event = AnalyticsEvent.WORKSPACE_STARTED;
+    if (event == WORKSPACE_OPENED && WORKSPACE_STARTING_USER_ID.compareAndSet(this, null, userId)) {
+      return AnalyticsEvent.WORKSPACE_STARTED;
     }
     if (event == WORKSPACE_STARTED) {
       workspaceStartingUserId = userId;
-
     }
     return event;
   }
 
+  /**
+   * Replaces the common properties. They are replaced again when the workspace
+   * metadata is refreshed and changed.
+   */
   public void setCommonProperties(Map<String, Object> commonProperties) {
-    this.commonProperties = commonProperties;
+    this.commonProperties = CommonProperties.copyOf(commonProperties);
   }
 
   public Map<String, Object> getCommonProperties() {
     return commonProperties;
   }
 
-  private Workspace getWorkspace(String endpoint) {
-    try {
-      return this.requestFactory.fromUrl(endpoint).request().asDto(WorkspaceDto.class);
-    } catch (IOException | ServerException | UnauthorizedException | ForbiddenException | NotFoundException
-        | ConflictException | BadRequestException e) {
-      throw new RuntimeException("Can't get workspace information for Che analytics", e);
+  private void applyWorkspaceMetadata(WorkspaceMetadata metadata) {
+    workspaceName = metadata.getWorkspaceName();
+    factoryId = metadata.getFactoryId();
+    stackId = metadata.getStackId();
+    factoryName = metadata.getFactoryName();
+    factoryOwner = metadata.getFactoryOwner();
+    factoryUrl = metadata.getFactoryUrl();
+    createdOn = metadata.getCreatedOn();
+    updatedOn = metadata.getUpdatedOn();
+    stoppedOn = metadata.getStoppedOn();
+    stoppedAbnormally = metadata.getStoppedAbnormally();
+    lastErrorMessage = metadata.getLastErrorMessage();
+    sourceTypes = metadata.getSourceTypes();
+    startNumber = metadata.getStartNumber();
+    pluginNames = metadata.getPluginNames();
+    age = metadata.getAge();
+    returnDelay = metadata.getReturnDelay();
+    firstStart = metadata.getFirstStart();
+    commonProperties = metadata.toCommonProperties(workspaceId);
+    workspaceMetadata = metadata;
+  }
+
+  private WorkspaceMetadata readMetadataSnapshot() {
+    if (metadataSnapshot == null) {
+      return null;
+    }
+    long start = System.nanoTime();
+    WorkspaceMetadata snapshot = metadataSnapshot.read(workspaceId);
+    if (snapshot != null) {
+      LOG.info("Workspace metadata read from {} in {} us", metadataSnapshot.getFile(),
+          TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
     }
+    return snapshot;
+  }
 
+  private void writeMetadataSnapshot() {
+    if (metadataSnapshot != null) {
+      metadataSnapshot.write(workspaceId, workspaceMetadata);
+    }
   }
 
-  private Long getDateFromString(String fieldName, String date) {
-    Long parsedDate = null;
-    try {
-      parsedDate = parseLong(date);
-    } catch (NumberFormatException nfe) {
-      LOG.warn("the timestamp for " + fieldName + " is null or invalid: [" + date + "]");
+  /**
+   * Loads the workspace metadata on a dedicated thread, retrying with an
+   * exponential backoff. When every attempt failed, the queued events are sent
+   * without the workspace properties, or with those of the snapshot.
+   */
+  private void loadWorkspaceMetadataInBackground(WorkspaceMetadataLoader loader, int retries) {
+    long start = System.nanoTime();
+    ScheduledExecutorService executor = metadataExecutor;
+    executor.execute(new Runnable() {
+      private int attempts;
+
+      @Override
+      public void run() {
+        attempts++;
+        try {
+          WorkspaceMetadata metadata = loader.load();
+          LOG.info("Workspace metadata available {} ms after startup ({} attempt(s))",
+              WorkspaceMetadataLoader.elapsedMillis(start), attempts);
+          workspaceMetadataLoaded(metadata);
+          shutdownIdleMetadataExecutor();
+        } catch (Exception e) {
+          if (attempts > retries) {
+            LOG.error("Can't get workspace information for Che analytics after " + attempts + " attempt(s), "
+                + (metadataPending ? "events are sent without workspace properties" : "keeping the snapshot"), e);
+            workspaceMetadataLoaded(null);
+            shutdownIdleMetadataExecutor();
+          } else {
+            long delay = Math.min(METADATA_RETRY_DELAY_MILLIS << (attempts - 1), METADATA_MAX_RETRY_DELAY_MILLIS);
+            LOG.warn("Can't get workspace information for Che analytics ({}), retrying in {} ms", e.toString(),
+                delay);
+            executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+          }
+        }
+      }
+    });
+  }
+
+  private void shutdownIdleMetadataExecutor() {
+    if (metadataRefreshInterval <= 0) {
+      metadataExecutor.shutdown();
     }
-    return parsedDate;
   }
 
-  private Long getSecondsBetween(Long end, Long start) {
-    Long timeBetween = null;
-    if (end != null && start != null) {
-      timeBetween = (end - start) / 1000;
+  /**
+   * Reloads the workspace metadata periodically, with conditional requests, and
+   * swaps the common properties when the metadata changed.
+   */
+  private void scheduleWorkspaceMetadataRefresh(WorkspaceMetadataLoader loader) {
+    long jitter = metadataRefreshJitter > 0 ? ThreadLocalRandom.current().nextLong(metadataRefreshJitter + 1) : 0;
+    metadataExecutor.schedule(() -> {
+      if (!metadataPending) {
+        try {
+          WorkspaceMetadata metadata = loader.loadIfModified();
+          if (metadata != null && !metadata.equals(workspaceMetadata)) {
+            LOG.info("Workspace metadata changed (updated: {}), refreshing the common properties",
+                metadata.getUpdatedOn());
+            updateWorkspaceMetadata(metadata);
+          }
+        } catch (Exception e) {
+          LOG.warn("Can't refresh workspace information for Che analytics: {}", e.toString());
+        }
+      }
+      scheduleWorkspaceMetadataRefresh(loader);
+    }, metadataRefreshInterval + jitter, TimeUnit.MILLISECONDS);
+  }
+
+  private void updateWorkspaceMetadata(WorkspaceMetadata metadata) {
+    applyWorkspaceMetadata(metadata);
+    try {
+      onWorkspaceMetadata(metadata);
+    } catch (RuntimeException e) {
+      LOG.error("Failed to update the analytics manager with the workspace metadata", e);
     }
-    return timeBetween;
+    writeMetadataSnapshot();
   }
 
-  private String getWorkspaceName(WorkspaceConfig config, Devfile devfile) {
-    String workspaceName;
-    if (config != null) {
-      workspaceName = config.getName();
-    } else if (devfile != null) {
-      workspaceName = devfile.getMetadata().getName();
-    } else {
-      workspaceName = null;
+  private void workspaceMetadataLoaded(WorkspaceMetadata metadata) {
+    if (metadata != null && !metadata.equals(workspaceMetadata)) {
+      if (!metadataPending) {
+        LOG.info("Workspace metadata snapshot is out of date (updated: {}, snapshot: {})", metadata.getUpdatedOn(),
+            workspaceMetadata.getUpdatedOn());
+      }
+      updateWorkspaceMetadata(metadata);
+    }
+    List<PendingEvent> events;
+    long dropped;
+    synchronized (pendingEvents) {
+      events = new ArrayList<>(pendingEvents);
+      pendingEvents.clear();
+      dropped = droppedPendingEvents;
+      metadataPending = false;
+    }
+    for (PendingEvent pending : events) {
+      try {
+        doSendEvent(pending.type, pending.ownerId, pending.ip, pending.userAgent, pending.resolution,
+            pending.properties);
+      } catch (RuntimeException e) {
+        LOG.error("Failed to send the queued event " + pending.type, e);
+      }
+    }
+    if (!events.isEmpty() || dropped > 0) {
+      LOG.info("Sent {} event(s) queued while loading the workspace metadata, {} dropped", events.size(), dropped);
     }
-    return workspaceName;
   }
 
-  private List<String> getPluginNamesFromWorkspace(Workspace ws) {
-    List<? extends Component> components = ws.getDevfile().getComponents();
-    return components.stream().filter((e -> e.getType().equals("chePlugin"))).map((e -> e.getId()))
-        .collect(Collectors.toList());
+  /**
+   * Queues an event until the workspace metadata is loaded.
+   *
+   * @return <code>false</code> if the metadata was loaded in the meantime, and
+   *         the event should be sent right away
+   */
+  private boolean deferEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    synchronized (pendingEvents) {
+      if (!metadataPending) {
+        return false;
+      }
+      if (pendingEvents.size() < pendingEventsCapacity) {
+        pendingEvents.add(new PendingEvent(type, ownerId, ip, userAgent, resolution, properties));
+      } else if (droppedPendingEvents++ == 0) {
+        LOG.warn("More than {} events were sent before the workspace metadata was loaded, dropping the next ones",
+            pendingEventsCapacity);
+      }
+      return true;
+    }
   }
 
-  private void setFactoryVariables(String apiEndpoint, WorkspaceConfig config) {
-    if (factoryId != null && !"undefined".equals(factoryId)) {
-      String endpoint = apiEndpoint + "/factory/" + factoryId;
+  private static final class PendingEvent {
+    final EventType type;
+    final String ownerId;
+    final String ip;
+    final String userAgent;
+    final String resolution;
+    final Map<String, Object> properties;
+
+    PendingEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+        Map<String, Object> properties) {
+      this.type = type;
+      this.ownerId = ownerId;
+      this.ip = ip;
+      this.userAgent = userAgent;
+      this.resolution = resolution;
+      this.properties = properties;
+    }
+  }
 
-      FactoryDto factory = null;
-      try {
-        factory = requestFactory.fromUrl(endpoint).request().asDto(FactoryDto.class);
-      } catch (Exception e) {
-        LOG.warn("Can't get workspace factory ('" + factoryId + "') information for Che analytics", e);
+  private static EventLog openEventLog(Path directory, int segmentSize, long maxSize) {
+    try {
+      EventLog log = new EventLog(directory, segmentSize, maxSize);
+      long pending = log.getEndPosition() - log.getCommittedPosition();
+      if (pending > 0) {
+        LOG.info("Event log {} holds {} bytes of events to replay", directory, pending);
       }
-      if (factory != null) {
-        factoryName = factory.getName();
-        factoryOwner = factory.getCreator().getName();
-      } else {
-        factoryName = null;
-        factoryOwner = null;
+      return log;
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Can't open the event log in " + directory + ", events are delivered directly", e);
+      return null;
+    }
+  }
+
+  /**
+   * @return <code>false</code> if the event couldn't be logged, and should be
+   *         delivered directly
+   */
+  private boolean logEvent(EventLog log, EventType type, String ownerId, String ip, String userAgent,
+      String resolution, Map<String, Object> properties) {
+    startEventLogReplay();
+    try {
+      if (log.append(new LoggedEvent(type.getId(), ownerId, ip, userAgent, resolution, properties).encode())) {
+        return true;
       }
-      factoryUrl = null;
-    } else {
-      String parametersPrefix = "factory.parameter.";
-      if (config != null) {
-        Map<String, String> configAttributes = config.getAttributes();
-        if (configAttributes.containsKey(parametersPrefix + "name")) {
-          factoryName = configAttributes.get(parametersPrefix + "name");
-        } else {
-          factoryName = null;
+      LOG.warn("Event {} is too large for the event log, delivering it directly", type);
+    } catch (IOException e) {
+      LOG.error("Can't write to the event log, delivering the event directly", e);
+    }
+    return false;
+  }
+
+  /**
+   * Delivers the logged events in order, from the checkpointed position. An
+   * event whose delivery fails is retried with the backoff of the delivery
+   * policy, and dropped after {@link #EVENT_LOG_MAX_ATTEMPTS} attempts. As the
+   * events are kept in the log, the consumer waits while the circuit breaker is
+   * open instead of dropping them, and its retries don't use the retry budget.
+   */
+  private void consumeEventLog() {
+    long position = eventLog.getCommittedPosition();
+    int attempts = 0;
+    try {
+      while (!stopped.get()) {
+        long retryAfter = deliveryPolicy.getRetryAfterMillis();
+        if (metadataPending || retryAfter > 0) {
+          Thread.sleep(Math.max(EVENT_LOG_IDLE_WAIT_MILLIS, retryAfter));
+          continue;
         }
-        if (configAttributes.containsKey(parametersPrefix + "user")) {
-          factoryOwner = configAttributes.get(parametersPrefix + "user");
-        } else {
-          factoryOwner = null;
+        EventLog.Entry entry = eventLog.read(position);
+        if (entry == null) {
+          eventLog.await(position, 1000);
+          continue;
         }
-        if (configAttributes.containsKey(parametersPrefix + "url")) {
-          factoryUrl = configAttributes.get(parametersPrefix + "url");
-        } else {
-          factoryUrl = null;
+        EventType type = null;
+        LoggedEvent logged = null;
+        try {
+          logged = LoggedEvent.decode(entry.payload);
+          type = eventTypeRegistry.resolve(logged.typeId);
+          if (type == null) {
+            LOG.warn("Skipping a logged event of unknown type {}", logged.typeId);
+          }
+        } catch (IOException e) {
+          LOG.error("Skipping an unreadable event of the event log", e);
         }
-      } else {
-        factoryName = null;
-        factoryOwner = null;
-        factoryUrl = null;
+        if (type != null) {
+          if (!deliveryPolicy.allowAttempt()) {
+            // another thread is probing the analytics backend
+            Thread.sleep(EVENT_LOG_IDLE_WAIT_MILLIS);
+            continue;
+          }
+          Exception failure = attemptDelivery(type, logged.ownerId, logged.ip, logged.userAgent, logged.resolution,
+              getCurrentEventProperties(logged.properties));
+          if (failure == null) {
+            attempts = 0;
+          } else if (++attempts < EVENT_LOG_MAX_ATTEMPTS) {
+            long delay = deliveryPolicy.getRetryDelayMillis(attempts);
+            LOG.warn("Failed to deliver a logged {} event ({}), retrying in {} ms", type, failure.toString(), delay);
+            Thread.sleep(delay);
+            continue;
+          } else {
+            LOG.error("Failed to deliver a logged " + type + " event after " + attempts + " attempts, dropping it",
+                failure);
+            attempts = 0;
+          }
+        }
+        position = entry.next;
+        eventLog.commit(position);
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
@@ -342,7 +1217,7 @@ public abstract class AbstractAnalyticsManager {
       String generatedUserId = null;
       String username = getUserNameFromMachineToken(machineToken);
       if (username != null && !username.isEmpty()) {
-         generatedUserId = SHA1HashGenerator.generateHash(username);
+         generatedUserId = anonymizer.anonymize(username);
       }
       return generatedUserId;
   }
@@ -351,17 +1226,18 @@ public abstract class AbstractAnalyticsManager {
     String username = null;
     if (machineToken != null && !machineToken.isEmpty()) {
       try {
-        JwtParser jwtParser = Jwts.parser();
-        String[] splitted = machineToken.split("\\.");
-        if (splitted.length != 3) {
+        int headerEnd = machineToken.indexOf('.');
+        int payloadEnd = machineToken.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd < 0 || payloadEnd == machineToken.length() - 1
+            || machineToken.indexOf('.', payloadEnd + 1) >= 0) {
           LOG.warn("Cannot retrieve user name from the machine token: invalid token");
         } else {
-          Object userNameClaim = jwtParser.parseClaimsJwt(splitted[0] + "." + splitted[1] + ".").getBody()
-              .get(USER_NAME_CLAIM);
+          String userNameClaim = JwtClaimReader.readClaim(machineToken.substring(0, headerEnd),
+              machineToken.substring(headerEnd + 1, payloadEnd), USER_NAME_CLAIM);
           if (userNameClaim == null) {
             LOG.warn("Cannot retrieve user Id from the machine token: No '{}' claim", USER_NAME_CLAIM);
           } else {
-            username = userNameClaim.toString();
+            username = userNameClaim;
           }
         }
       } catch (Exception e) {
@@ -372,89 +1248,14 @@ public abstract class AbstractAnalyticsManager {
   }
 
   /**
-   * create a map of the common and current event properties merged together
+   * create a read-only view of the common and current event properties merged
+   * together, without copying them. Event properties take precedence over
+   * common properties.
    *
    * @return a map of the current event and common workspace properties
    */
   public Map<String, Object> getCurrentEventProperties(Map<String, Object> eventProperties) {
-    ImmutableMap.Builder<String, Object> currentEventPropertiesBuilder = ImmutableMap.builder();
-    commonProperties.forEach((k, v) -> {
-      currentEventPropertiesBuilder.put(k, v);
-    });
-    eventProperties.forEach((k, v) -> {
-      currentEventPropertiesBuilder.put(k, v);
-    });
-    return currentEventPropertiesBuilder.build();
-  }
-
-  private Map<String, Object> makeCommonProperties() {
-    ImmutableMap.Builder<String, Object> commonPropertiesBuilder = ImmutableMap.builder();
-
-    Arrays.asList(new SimpleImmutableEntry<>(EventProperties.CREATED, createdOn),
-        new SimpleImmutableEntry<>(EventProperties.WORKSPACE_ID, workspaceId),
-        new SimpleImmutableEntry<>(EventProperties.WORKSPACE_NAME, workspaceName),
-        new SimpleImmutableEntry<>(EventProperties.UPDATED, updatedOn),
-        new SimpleImmutableEntry<>(EventProperties.STOPPED, stoppedOn),
-        new SimpleImmutableEntry<>(EventProperties.AGE, age),
-        new SimpleImmutableEntry<>(EventProperties.RETURN_DELAY, returnDelay),
-        new SimpleImmutableEntry<>(EventProperties.FIRST_START, firstStart),
-        new SimpleImmutableEntry<>(EventProperties.STACK_ID, stackId),
-        new SimpleImmutableEntry<>(EventProperties.FACTORY_ID, factoryId),
-        new SimpleImmutableEntry<>(EventProperties.FACTORY_NAME, factoryName),
-        new SimpleImmutableEntry<>(EventProperties.FACTORY_URL, factoryUrl),
-        new SimpleImmutableEntry<>(EventProperties.FACTORY_OWNER, factoryOwner),
-        new SimpleImmutableEntry<>(EventProperties.LAST_WORKSPACE_FAILED, stoppedAbnormally),
-        new SimpleImmutableEntry<>(EventProperties.LAST_WORKSPACE_FAILURE, lastErrorMessage),
-        new SimpleImmutableEntry<>(EventProperties.SOURCE_TYPES, sourceTypes),
-        new SimpleImmutableEntry<>(EventProperties.START_NUMBER, startNumber),
-        new SimpleImmutableEntry<>(EventProperties.PLUGINS, makePluginString(pluginNames))).forEach((entry) -> {
-          if (entry.getValue() != null) {
-            commonPropertiesBuilder.put(entry.getKey(), entry.getValue());
-          }
-
-        });
-    return commonPropertiesBuilder.build();
-  }
-
-  private String makePluginString(List<String> pluginNames) {
-    return pluginNames.stream().collect(Collectors.joining(", "));
-  }
-
-  private boolean shouldSendEvent(AnalyticsEvent event, Map<String, Object> properties) {
-    long eventTime = System.currentTimeMillis();
-    if (lastEventTime != 0
-        && (sameAsLastEvent(event, properties) && insideDebounceTime(eventTime, lastEventTime, debounceTimeMillis))) {
-      return false;
-    } else {
-      return true;
-    }
-  }
-
-  private boolean sameAsLastEvent(AnalyticsEvent event, Map<String, Object> properties) {
-    if (lastEvent == null || lastEvent != event) {
-      return false;
-    }
-
-    if (lastEventProperties == null) {
-      return false;
-    }
-
-    for (String property: event.getPropertiesToCheck()) {
-      Object lastValue = lastEventProperties.get(property);
-      Object newValue = properties.get(property);
-      if (lastValue != null && newValue != null && lastValue.equals(newValue)) {
-        continue;
-      }
-      if (lastValue == null && newValue == null) {
-        continue;
-      }
-      return false;
-    }
-    return true;
-  }
-
-  private boolean insideDebounceTime(long eventTime, long lastEventTime, long debounceTimeMillis) {
-    return (eventTime - lastEventTime) < debounceTimeMillis;
+    return new MergedProperties(commonProperties, eventProperties);
   }
 
 }
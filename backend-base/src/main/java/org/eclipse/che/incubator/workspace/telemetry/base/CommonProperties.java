@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only map of the workspace properties common to all the events.
+ *
+ * The values of the well-known {@link EventProperties} keys are kept in fixed
+ * slots, so that looking them up doesn't need any hashing. Other keys are kept
+ * in a regular map. <code>null</code> values are not stored.
+ */
+public final class CommonProperties extends AbstractMap<String, Object> {
+
+  private static final String[] KEYS = {
+      EventProperties.CREATED,
+      EventProperties.WORKSPACE_ID,
+      EventProperties.WORKSPACE_NAME,
+      EventProperties.UPDATED,
+      EventProperties.STOPPED,
+      EventProperties.AGE,
+      EventProperties.RETURN_DELAY,
+      EventProperties.FIRST_START,
+      EventProperties.STACK_ID,
+      EventProperties.FACTORY_ID,
+      EventProperties.FACTORY_NAME,
+      EventProperties.FACTORY_URL,
+      EventProperties.FACTORY_OWNER,
+      EventProperties.LAST_WORKSPACE_FAILED,
+      EventProperties.LAST_WORKSPACE_FAILURE,
+      EventProperties.SOURCE_TYPES,
+      EventProperties.START_NUMBER,
+      EventProperties.PLUGINS };
+
+  public static final CommonProperties EMPTY = builder().build();
+
+  private final Object[] values;
+  private final Map<String, Object> extras;
+  private final int size;
+  private Set<Entry<String, Object>> entrySet;
+
+  private CommonProperties(Object[] values, Map<String, Object> extras) {
+    this.values = values;
+    this.extras = extras;
+    int count = extras.size();
+    for (Object value : values) {
+      if (value != null) {
+        count++;
+      }
+    }
+    this.size = count;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static CommonProperties copyOf(Map<String, ?> properties) {
+    if (properties instanceof CommonProperties) {
+      return (CommonProperties) properties;
+    }
+    Builder builder = builder();
+    properties.forEach(builder::put);
+    return builder.build();
+  }
+
+  /**
+   * @return the slot of a well-known property, or -1
+   */
+  static int slotOf(Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    switch ((String) key) {
+    case EventProperties.CREATED:
+      return 0;
+    case EventProperties.WORKSPACE_ID:
+      return 1;
+    case EventProperties.WORKSPACE_NAME:
+      return 2;
+    case EventProperties.UPDATED:
+      return 3;
+    case EventProperties.STOPPED:
+      return 4;
+    case EventProperties.AGE:
+      return 5;
+    case EventProperties.RETURN_DELAY:
+      return 6;
+    case EventProperties.FIRST_START:
+      return 7;
+    case EventProperties.STACK_ID:
+      return 8;
+    case EventProperties.FACTORY_ID:
+      return 9;
+    case EventProperties.FACTORY_NAME:
+      return 10;
+    case EventProperties.FACTORY_URL:
+      return 11;
+    case EventProperties.FACTORY_OWNER:
+      return 12;
+    case EventProperties.LAST_WORKSPACE_FAILED:
+      return 13;
+    case EventProperties.LAST_WORKSPACE_FAILURE:
+      return 14;
+    case EventProperties.SOURCE_TYPES:
+      return 15;
+    case EventProperties.START_NUMBER:
+      return 16;
+    case EventProperties.PLUGINS:
+      return 17;
+    default:
+      return -1;
+    }
+  }
+
+  @Override
+  public Object get(Object key) {
+    int slot = slotOf(key);
+    return slot >= 0 ? values[slot] : extras.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private int slot = nextSlot(0);
+    private Iterator<Entry<String, Object>> extrasIterator;
+
+    private int nextSlot(int from) {
+      while (from < values.length && values[from] == null) {
+        from++;
+      }
+      return from;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (slot < values.length) {
+        return true;
+      }
+      if (extrasIterator == null) {
+        extrasIterator = extras.entrySet().iterator();
+      }
+      return extrasIterator.hasNext();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (slot < values.length) {
+        Entry<String, Object> entry = new SimpleImmutableEntry<>(KEYS[slot], values[slot]);
+        slot = nextSlot(slot + 1);
+        return entry;
+      }
+      return extrasIterator.next();
+    }
+  }
+
+  public static final class Builder {
+    private final Object[] values = new Object[KEYS.length];
+    private Map<String, Object> extras;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets a property. <code>null</code> values are ignored.
+     */
+    public Builder put(String key, Object value) {
+      if (value == null) {
+        return this;
+      }
+      int slot = slotOf(key);
+      if (slot >= 0) {
+        values[slot] = value;
+      } else {
+        if (extras == null) {
+          extras = new LinkedHashMap<>();
+        }
+        extras.put(key, value);
+      }
+      return this;
+    }
+
+    public CommonProperties build() {
+      return new CommonProperties(values.clone(),
+          extras == null ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(extras)));
+    }
+  }
+}
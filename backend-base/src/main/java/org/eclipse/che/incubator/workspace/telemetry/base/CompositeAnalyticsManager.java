@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
+import org.slf4j.Logger;
+
+/**
+ * Analytics manager that fans the events and activities out to several
+ * analytics managers, its sinks, so that they are sent to several analytics
+ * backends at once.
+ *
+ * The composite debounces the events, and each sink delivers them on its own
+ * thread, from its own bounded queue: the request threads only wait for the
+ * events to be queued, and a slow or failing sink doesn't delay the others.
+ * Each sink has its own {@link DeliveryPolicy}, built from the
+ * <code>che.telemetry.delivery.*</code> settings, which retries its failed
+ * deliveries and opens its circuit breaker, and its own delivery timeout,
+ * after which the call is abandoned to a thread of its own (see
+ * {@link Sink}).
+ *
+ * The sinks are called through {@link #deliver}, <code>onActivity</code> and
+ * <code>increaseDuration</code>: their own debounce, delivery policy and
+ * activity tracking are not used. The sinks are started when the composite is
+ * created, without their own event log, and shut down with it.
+ */
+public class CompositeAnalyticsManager extends AbstractAnalyticsManager {
+  private static final Logger LOG = getLogger(CompositeAnalyticsManager.class);
+
+  private static final long WATCHDOG_TICK_MILLIS = 50;
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+  /**
+   * An analytics manager of a composite, with its delivery thread and
+   * accounting.
+   *
+   * The calls to the sink run on a worker thread, one at a time. When a call
+   * exceeds the timeout of the sink, its worker is interrupted and abandoned:
+   * a new worker goes on with the queued calls, so that a backend stuck in
+   * I/O that ignores interrupts doesn't stall the sink. The abandoned worker
+   * exits when its call returns. At most {@link #MAX_ABANDONED_WORKERS}
+   * workers are abandoned at a time: beyond that, the sink waits for its
+   * calls, so set the socket timeouts of the backend clients anyway.
+   */
+  public static final class Sink {
+    static final int MAX_ABANDONED_WORKERS = 4;
+
+    private static final long IDLE_POLL_MILLIS = 1000;
+
+    private final String name;
+    private final AbstractAnalyticsManager manager;
+    private final DeliveryPolicy deliveryPolicy;
+    private final long timeoutMillis;
+    private final ArrayBlockingQueue<Runnable> queue;
+    private final TimerWheel watchdog;
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger abandoned = new AtomicInteger();
+    private final AtomicInteger workerCount = new AtomicInteger();
+    /** Worker running the queued calls, or null once the sink is stopped. */
+    private volatile Worker worker;
+    private volatile boolean running = true;
+
+    Sink(String name, AbstractAnalyticsManager manager, int queueCapacity, long timeoutMillis, TimerWheel watchdog) {
+      if (manager.isEventLogEnabled()) {
+        throw new IllegalArgumentException("The telemetry sink " + name
+            + " was started with its own event log: sinks are delivered the events logged by the composite");
+      }
+      this.name = name;
+      this.manager = manager;
+      this.deliveryPolicy = DeliveryPolicy.fromConfig();
+      this.timeoutMillis = timeoutMillis;
+      this.watchdog = watchdog;
+      this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+      this.worker = new Worker();
+      worker.start();
+      manager.start(false);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public AbstractAnalyticsManager getManager() {
+      return manager;
+    }
+
+    public DeliveryPolicy getDeliveryPolicy() {
+      return deliveryPolicy;
+    }
+
+    /**
+     * @return the number of calls waiting in the queue of the sink
+     */
+    public int getQueueSize() {
+      return queue.size();
+    }
+
+    /**
+     * @return the number of calls to the sink that exceeded its timeout
+     */
+    public long getTimedOutCount() {
+      return timedOut.get();
+    }
+
+    /**
+     * @return the number of calls dropped because the queue of the sink was
+     *         full
+     */
+    public long getDroppedCount() {
+      return dropped.get();
+    }
+
+    /**
+     * @return the number of workers abandoned in a call that timed out, and
+     *         still running it
+     */
+    public int getAbandonedWorkerCount() {
+      return abandoned.get();
+    }
+
+    void submit(Runnable call) {
+      if (!running || !queue.offer(call)) {
+        long count = dropped.incrementAndGet();
+        if (count == 1 || count % 1000 == 0) {
+          LOG.warn("Queue of the telemetry sink {} is full: {} call(s) dropped so far", name, count);
+        }
+      }
+    }
+
+    void deliver(EventType type, String ownerId, String ip, String userAgent, String resolution,
+        Map<String, Object> properties, int attempt) {
+      if (!deliveryPolicy.allowAttempt()) {
+        LOG.debug("Circuit breaker of the telemetry sink {} is open, dropping the {} event", name, type);
+        return;
+      }
+      Exception failure = call(() -> manager.deliver(type, ownerId, ip, userAgent, resolution, properties));
+      if (failure == null) {
+        deliveryPolicy.onSuccess();
+        return;
+      }
+      deliveryPolicy.onFailure();
+      if (!deliveryPolicy.allowRetry(attempt)) {
+        LOG.warn("Telemetry sink " + name + " failed to deliver the " + type + " event after " + attempt
+            + " attempt(s), dropping it", failure);
+        return;
+      }
+      TimerWheel.Timeout retry = new TimerWheel.Timeout(() -> submit(
+          () -> deliver(type, ownerId, ip, userAgent, resolution, properties, attempt + 1)));
+      watchdog.schedule(retry, deliveryPolicy.getRetryDelayMillis(attempt));
+    }
+
+    void handle(String what, Call call) {
+      Exception failure = call(call);
+      if (failure != null) {
+        LOG.warn("Telemetry sink " + name + " failed to handle " + what, failure);
+      }
+    }
+
+    /**
+     * Runs a call to the sink, under its timeout, on the current worker.
+     *
+     * @return the failure of the call, or <code>null</code> if it succeeded
+     */
+    private Exception call(Call call) {
+      return ((Worker) Thread.currentThread()).call(call);
+    }
+
+    /**
+     * Replaces a worker whose call timed out, unless too many workers are
+     * already abandoned or the sink is stopping.
+     */
+    private synchronized void abandon(Worker timedOutWorker) {
+      if (worker != timedOutWorker || !running || abandoned.get() >= MAX_ABANDONED_WORKERS) {
+        LOG.warn("Telemetry sink {} didn't answer in {} ms, interrupting it", name, timeoutMillis);
+        return;
+      }
+      abandoned.incrementAndGet();
+      timedOutWorker.abandoned = true;
+      worker = new Worker();
+      worker.start();
+      LOG.warn("Telemetry sink {} didn't answer in {} ms, interrupting it and going on with a new thread", name,
+          timeoutMillis);
+    }
+
+    void shutdown() {
+      running = false;
+      long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+      try {
+        for (Worker current = worker; current != null; current = worker) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            break;
+          }
+          current.join(remaining);
+          if (current == worker && !current.isAlive()) {
+            break;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      synchronized (this) {
+        Worker current = worker;
+        worker = null;
+        if (current != null && current.isAlive()) {
+          current.interrupt();
+        }
+      }
+      int undelivered = queue.size();
+      queue.clear();
+      if (undelivered > 0) {
+        LOG.warn("Telemetry sink {} stopped with {} undelivered call(s)", name, undelivered);
+      }
+      manager.shutdown();
+    }
+
+    private final class Worker extends Thread {
+      private final TimerWheel.Timeout timeout = new TimerWheel.Timeout(this::checkTimeout);
+      private final Object callLock = new Object();
+      /** Start of the running call, or 0 when there is none. */
+      private volatile long callStart;
+      private volatile boolean callTimedOut;
+      private volatile boolean abandoned;
+
+      Worker() {
+        super("telemetry-sink-" + name + "-" + workerCount.incrementAndGet());
+        setDaemon(true);
+      }
+
+      @Override
+      public void run() {
+        try {
+          while (worker == this && (running || !queue.isEmpty())) {
+            Runnable call = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (call != null) {
+              call.run();
+            }
+          }
+        } catch (InterruptedException e) {
+          // stopped
+        } finally {
+          if (abandoned) {
+            Sink.this.abandoned.decrementAndGet();
+          }
+        }
+      }
+
+      Exception call(Call call) {
+        callTimedOut = false;
+        callStart = System.nanoTime();
+        if (timeoutMillis > 0) {
+          watchdog.schedule(timeout, timeoutMillis);
+        }
+        try {
+          call.run();
+          return callTimedOut ? new InterruptedException("Timed out after " + timeoutMillis + " ms") : null;
+        } catch (Exception e) {
+          return callTimedOut ? new InterruptedException("Timed out after " + timeoutMillis + " ms") : e;
+        } finally {
+          synchronized (callLock) {
+            callStart = 0;
+          }
+          watchdog.cancel(timeout);
+          // Clears the interrupt of a timed out call, which the next call shouldn't see.
+          Thread.interrupted();
+        }
+      }
+
+      /**
+       * Interrupts and abandons the running call if it exceeded the timeout.
+       * The timeout is reused by the successive calls: it is scheduled again
+       * if it expired for a call that started later.
+       */
+      private void checkTimeout() {
+        long start = callStart;
+        if (start == 0) {
+          return;
+        }
+        long remaining = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (remaining > 0) {
+          watchdog.schedule(timeout, remaining);
+          return;
+        }
+        synchronized (callLock) {
+          if (callStart != start) {
+            return;
+          }
+          callTimedOut = true;
+          interrupt();
+        }
+        timedOut.incrementAndGet();
+        abandon(this);
+      }
+    }
+  }
+
+  /**
+   * A call to the analytics manager of a sink.
+   */
+  @FunctionalInterface
+  interface Call {
+    void run() throws Exception;
+  }
+
+  private final List<Sink> sinks;
+  private final TimerWheel watchdog;
+
+  /**
+   * The queue capacity and timeout of each sink are read from the
+   * <code>che.telemetry.sinks.&lt;name&gt;.queue-capacity</code> and
+   * <code>che.telemetry.sinks.&lt;name&gt;.timeout</code> settings, which
+   * default to <code>che.telemetry.sinks.queue-capacity</code> and
+   * <code>che.telemetry.sinks.timeout</code>.
+   *
+   * @param sinks the analytics managers to fan out to, by name
+   */
+  public CompositeAnalyticsManager(String apiEndpoint, String workspaceId, String machineToken,
+      HttpJsonRequestFactory requestFactory, Map<String, ? extends AbstractAnalyticsManager> sinks) {
+    super(apiEndpoint, workspaceId, machineToken, requestFactory);
+    int queueCapacity = TelemetryConfig.getInt("che.telemetry.sinks.queue-capacity", 1024);
+    long timeoutMillis = TelemetryConfig.getLong("che.telemetry.sinks.timeout", 10000);
+    watchdog = new TimerWheel("telemetry-sink-watchdog", WATCHDOG_TICK_MILLIS, 512);
+    List<Sink> list = new ArrayList<>(sinks.size());
+    for (Map.Entry<String, ? extends AbstractAnalyticsManager> sink : sinks.entrySet()) {
+      String name = sink.getKey();
+      list.add(new Sink(name, sink.getValue(),
+          TelemetryConfig.getInt("che.telemetry.sinks." + name + ".queue-capacity", queueCapacity),
+          TelemetryConfig.getLong("che.telemetry.sinks." + name + ".timeout", timeoutMillis), watchdog));
+    }
+    this.sinks = Collections.unmodifiableList(list);
+  }
+
+  public List<Sink> getSinks() {
+    return sinks;
+  }
+
+  /**
+   * @return whether one of the sinks is enabled
+   */
+  @Override
+  public boolean isEnabled() {
+    for (Sink sink : sinks) {
+      if (sink.manager.isEnabled()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The composite only queues the calls to its sinks, which run on their own
+   * threads.
+   */
+  @Override
+  public boolean isBlocking() {
+    return false;
+  }
+
+  /**
+   * Queues the event on each sink. The failures of a sink are retried by the
+   * delivery policy of this sink.
+   */
+  @Override
+  protected void deliver(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    for (Sink sink : sinks) {
+      sink.submit(() -> sink.deliver(type, ownerId, ip, userAgent, resolution, properties, 1));
+    }
+  }
+
+  @Override
+  public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    deliver(EventType.of(event), ownerId, ip, userAgent, resolution, properties);
+  }
+
+  @Override
+  public void onCustomEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    deliver(type, ownerId, ip, userAgent, resolution, properties);
+  }
+
+  @Override
+  public void onActivity() {
+    for (Sink sink : sinks) {
+      sink.submit(() -> sink.handle("an activity", sink.manager::onActivity));
+    }
+  }
+
+  @Override
+  public void onActivity(long coalescedCount) {
+    for (Sink sink : sinks) {
+      sink.submit(() -> sink.handle("an activity", () -> sink.manager.onActivity(coalescedCount)));
+    }
+  }
+
+  @Override
+  public void increaseDuration(AnalyticsEvent event, Map<String, Object> properties) {
+    for (Sink sink : sinks) {
+      sink.submit(() -> sink.handle("a suppressed " + event + " event",
+          () -> sink.manager.increaseDuration(event, properties)));
+    }
+  }
+
+  @Override
+  public void increaseDuration(AnalyticsEvent event, Map<String, Object> properties, int suppressedCount,
+      long suppressedSpanMillis) {
+    for (Sink sink : sinks) {
+      sink.submit(() -> sink.handle("a suppressed " + event + " event",
+          () -> sink.manager.increaseDuration(event, properties, suppressedCount, suppressedSpanMillis)));
+    }
+  }
+
+  /**
+   * Delivers the queued calls, for at most 5 seconds per sink, and shuts the
+   * sinks down.
+   */
+  @Override
+  public void destroy() {
+    for (Sink sink : sinks) {
+      sink.shutdown();
+    }
+    watchdog.stop();
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded table of the recently sent events, keyed by event type, owner and
+ * values of the {@link EventType#getPropertiesToCheck() properties to check}.
+ * An event is suppressed if an identical one was sent less than the debounce
+ * time ago, whatever the events received in between.
+ *
+ * Entries are immutable and replaced atomically, so that concurrent identical
+ * events are debounced consistently, without any global lock.
+ */
+final class DebounceTable {
+  private static final Object[] NO_VALUES = new Object[0];
+
+  /**
+   * Fraction of the table freed when it is full, so that it is only scanned
+   * once every <code>maxSize / EVICTION_BATCH_DIVISOR</code> new entries.
+   */
+  private static final int EVICTION_BATCH_DIVISOR = 8;
+
+  static final class Entry {
+    final long sentTime;
+    /** End of the debounce time of the sent event, which depends on its type. */
+    final long expiryTime;
+    final int suppressedCount;
+    final long lastTime;
+
+    Entry(long sentTime, long expiryTime, int suppressedCount, long lastTime) {
+      this.sentTime = sentTime;
+      this.expiryTime = expiryTime;
+      this.suppressedCount = suppressedCount;
+      this.lastTime = lastTime;
+    }
+
+    /**
+     * @return the time elapsed between the sent event and the last suppressed
+     *         one
+     */
+    long suppressedSpan() {
+      return lastTime - sentTime;
+    }
+  }
+
+  static final class Key {
+    private final EventType type;
+    private final String ownerId;
+    private final Object[] values;
+    private final int hash;
+
+    Key(EventType type, String ownerId, Object[] values) {
+      this.type = type;
+      this.ownerId = ownerId;
+      this.values = values;
+      this.hash = 31 * (31 * type.hashCode() + Objects.hashCode(ownerId)) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hash == other.hash && type == other.type && Objects.equals(ownerId, other.ownerId)
+          && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  /**
+   * Records an event in the table.
+   *
+   * @return <code>null</code> if the event should be sent, or the entry of the
+   *         previously sent identical event, updated with this suppressed event
+   */
+  Entry debounce(EventType type, String ownerId, Map<String, Object> properties, long debounceTimeMillis,
+      int maxSize) {
+    Key key = new Key(type, ownerId, valuesToCheck(type, properties));
+    for (;;) {
+      Entry current = entries.get(key);
+      // read after the entry, so that the event is never older than the sent one
+      long now = System.currentTimeMillis();
+      if (current == null) {
+        if (entries.size() >= maxSize && evicting.compareAndSet(false, true)) {
+          // the other threads don't wait for the eviction: the table can briefly exceed its size
+          try {
+            evict(now, maxSize - Math.max(1, maxSize / EVICTION_BATCH_DIVISOR));
+          } finally {
+            evicting.set(false);
+          }
+        }
+        if (entries.putIfAbsent(key, new Entry(now, now + debounceTimeMillis, 0, now)) == null) {
+          return null;
+        }
+      } else if (now >= current.expiryTime) {
+        if (entries.replace(key, current, new Entry(now, now + debounceTimeMillis, 0, now))) {
+          return null;
+        }
+      } else {
+        Entry suppressed = new Entry(current.sentTime, current.expiryTime, current.suppressedCount + 1, now);
+        if (entries.replace(key, current, suppressed)) {
+          return suppressed;
+        }
+      }
+    }
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private Object[] valuesToCheck(EventType type, Map<String, Object> properties) {
+    String[] propertiesToCheck = type.getPropertiesToCheck();
+    if (propertiesToCheck.length == 0) {
+      return NO_VALUES;
+    }
+    Object[] values = new Object[propertiesToCheck.length];
+    if (properties != null) {
+      for (int i = 0; i < propertiesToCheck.length; i++) {
+        values[i] = properties.get(propertiesToCheck[i]);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Removes the expired entries, each according to the debounce time of its
+   * type, and then the entries closest to expire until the table is down to
+   * the target size.
+   */
+  private void evict(long now, int targetSize) {
+    long[] expiryTimes = new long[Math.max(16, entries.size())];
+    int live = 0;
+    for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+      Entry value = entry.getValue();
+      if (now >= value.expiryTime) {
+        entries.remove(entry.getKey(), value);
+      } else {
+        if (live == expiryTimes.length) {
+          expiryTimes = Arrays.copyOf(expiryTimes, live * 2);
+        }
+        expiryTimes[live++] = value.expiryTime;
+      }
+    }
+    int excess = live - targetSize;
+    if (excess <= 0) {
+      return;
+    }
+    Arrays.sort(expiryTimes, 0, live);
+    long threshold = expiryTimes[excess - 1];
+    for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+      Entry value = entry.getValue();
+      if (value.expiryTime <= threshold && entries.remove(entry.getKey(), value) && --excess == 0) {
+        return;
+      }
+    }
+  }
+}
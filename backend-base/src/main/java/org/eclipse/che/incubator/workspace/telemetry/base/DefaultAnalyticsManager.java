@@ -33,17 +33,33 @@ public class DefaultAnalyticsManager extends AbstractAnalyticsManager {
     return true;
   }
 
+  @Override
+  public boolean isBlocking() {
+    return false;
+  }
+
   @Override
   public void onActivity() {
     LOG.info("Activity from user {}", getUserId());
   }
 
+  @Override
+  public void onActivity(long coalescedCount) {
+    LOG.info("Activity from user {} ({} more since the last one)", getUserId(), coalescedCount);
+  }
+
   @Override
   public void onEvent(AnalyticsEvent event, String ownerId, String ip,
     String userAgent, String resolution, Map<String, Object> properties) {
     LOG.info("Event triggered by user {} in {} from ip {} on agent {} :\n{}\nwith resolution: {}\nwith properties:\n{}", getUserId(), ownerId, ip, userAgent, event, resolution, properties);
   }
 
+  @Override
+  public void onCustomEvent(EventType type, String ownerId, String ip,
+    String userAgent, String resolution, Map<String, Object> properties) {
+    LOG.info("Custom event triggered by user {} in {} from ip {} on agent {} :\n{}\nwith resolution: {}\nwith properties:\n{}", getUserId(), ownerId, ip, userAgent, type, resolution, properties);
+  }
+
   @Override
   public void increaseDuration(AnalyticsEvent event, Map<String, Object> properties) {}
 
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Decides how the {@link AbstractAnalyticsManager} retries the delivery of
+ * events to the analytics backend, and keeps the delivery counters.
+ *
+ * <ul>
+ * <li>A circuit breaker opens after a number of consecutive failures, and
+ * rejects the deliveries until its open duration elapses. A single probe
+ * delivery is then let through: the breaker closes if it succeeds, and opens
+ * again if it fails.</li>
+ * <li>A failed delivery is retried after an exponential backoff with full
+ * jitter, up to a maximum number of attempts.</li>
+ * <li>Retries are limited by a budget: each successful delivery earns a
+ * fraction of a retry, up to {@link #MAX_RETRY_TOKENS} retries, so that a
+ * degraded backend doesn't receive more retries than a fraction of the
+ * traffic.</li>
+ * </ul>
+ *
+ * While the circuit breaker is closed, deliveries take no lock: the state is
+ * volatile, the counters are atomic, and only the state transitions are
+ * synchronized.
+ */
+public final class DeliveryPolicy {
+  private static final Logger LOG = getLogger(DeliveryPolicy.class);
+
+  static final int MAX_RETRY_TOKENS = 10;
+
+  /** Retry tokens are counted in thousandths of a retry. */
+  private static final long TOKEN_UNIT = 1000;
+
+  /**
+   * State of the circuit breaker.
+   */
+  public enum State {
+    /** Deliveries are attempted. */
+    CLOSED,
+    /** Deliveries are rejected until the open duration elapses. */
+    OPEN,
+    /** A single probe delivery is attempted. */
+    HALF_OPEN
+  }
+
+  private final int maxAttempts;
+  private final long retryDelayMillis;
+  private final long maxRetryDelayMillis;
+  private final long retryTokensPerSuccess;
+  private final int failureThreshold;
+  private final long openDurationMillis;
+  private final LongSupplier clock;
+
+  private volatile State state = State.CLOSED;
+  private volatile long openUntil;
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong retryTokens = new AtomicLong(MAX_RETRY_TOKENS * TOKEN_UNIT);
+  /** Guarded by this policy, as the state transitions. */
+  private boolean probing;
+  private long rejectedWhileOpen;
+
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder retried = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder opened = new LongAdder();
+
+  /**
+   * @param maxAttempts         maximum number of attempts to deliver an event,
+   *                            including the first one
+   * @param retryDelayMillis    base delay of the exponential backoff
+   * @param maxRetryDelayMillis maximum delay between two attempts
+   * @param retryBudgetPercent  number of retries earned by 100 successful
+   *                            deliveries
+   * @param failureThreshold    number of consecutive failures that open the
+   *                            circuit breaker
+   * @param openDurationMillis  time during which an open circuit breaker
+   *                            rejects the deliveries
+   */
+  public DeliveryPolicy(int maxAttempts, long retryDelayMillis, long maxRetryDelayMillis, int retryBudgetPercent,
+      int failureThreshold, long openDurationMillis) {
+    this(maxAttempts, retryDelayMillis, maxRetryDelayMillis, retryBudgetPercent, failureThreshold,
+        openDurationMillis, System::currentTimeMillis);
+  }
+
+  /**
+   * Creates a delivery policy from the <code>che.telemetry.delivery.*</code>
+   * settings.
+   */
+  static DeliveryPolicy fromConfig() {
+    return new DeliveryPolicy(TelemetryConfig.getInt("che.telemetry.delivery.max-attempts", 3),
+        TelemetryConfig.getLong("che.telemetry.delivery.retry-delay", 500),
+        TelemetryConfig.getLong("che.telemetry.delivery.max-retry-delay", 30000),
+        TelemetryConfig.getInt("che.telemetry.delivery.retry-budget", 10),
+        TelemetryConfig.getInt("che.telemetry.delivery.breaker.failure-threshold", 5),
+        TelemetryConfig.getLong("che.telemetry.delivery.breaker.open-duration", 30000));
+  }
+
+  DeliveryPolicy(int maxAttempts, long retryDelayMillis, long maxRetryDelayMillis, int retryBudgetPercent,
+      int failureThreshold, long openDurationMillis, LongSupplier clock) {
+    if (maxAttempts < 1 || failureThreshold < 1) {
+      throw new IllegalArgumentException(
+          "The maximum number of attempts and the failure threshold should be positive");
+    }
+    this.maxAttempts = maxAttempts;
+    this.retryDelayMillis = Math.max(1, retryDelayMillis);
+    this.maxRetryDelayMillis = Math.max(this.retryDelayMillis, maxRetryDelayMillis);
+    this.retryTokensPerSuccess = Math.max(0, retryBudgetPercent) * TOKEN_UNIT / 100;
+    this.failureThreshold = failureThreshold;
+    this.openDurationMillis = openDurationMillis;
+    this.clock = clock;
+  }
+
+  /**
+   * Called before each delivery attempt.
+   *
+   * @return <code>false</code> if the circuit breaker rejects the attempt
+   */
+  public boolean allowAttempt() {
+    return state == State.CLOSED || allowAttemptWhileOpen();
+  }
+
+  private synchronized boolean allowAttemptWhileOpen() {
+    switch (state) {
+    case CLOSED:
+      return true;
+    case OPEN:
+      if (clock.getAsLong() >= openUntil) {
+        transition(State.HALF_OPEN);
+        probing = true;
+        return true;
+      }
+      break;
+    default:
+      if (!probing) {
+        probing = true;
+        return true;
+      }
+    }
+    rejected.increment();
+    rejectedWhileOpen++;
+    return false;
+  }
+
+  /**
+   * Called after an attempt allowed by {@link #allowAttempt()} succeeded.
+   */
+  public void onSuccess() {
+    delivered.increment();
+    if (consecutiveFailures.get() != 0) {
+      consecutiveFailures.set(0);
+    }
+    long max = MAX_RETRY_TOKENS * TOKEN_UNIT;
+    for (long tokens = retryTokens.get(); tokens < max; tokens = retryTokens.get()) {
+      if (retryTokens.compareAndSet(tokens, Math.min(max, tokens + retryTokensPerSuccess))) {
+        break;
+      }
+    }
+    if (state != State.CLOSED) {
+      close();
+    }
+  }
+
+  private synchronized void close() {
+    if (state != State.CLOSED) {
+      probing = false;
+      transition(State.CLOSED);
+    }
+  }
+
+  /**
+   * Called after an attempt allowed by {@link #allowAttempt()} failed.
+   */
+  public void onFailure() {
+    failed.increment();
+    int failures = consecutiveFailures.incrementAndGet();
+    State current = state;
+    if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+      open();
+    }
+  }
+
+  private synchronized void open() {
+    if (state == State.HALF_OPEN
+        || (state == State.CLOSED && consecutiveFailures.get() >= failureThreshold)) {
+      probing = false;
+      openUntil = clock.getAsLong() + openDurationMillis;
+      opened.increment();
+      transition(State.OPEN);
+    }
+  }
+
+  /**
+   * Called after a failed attempt, to know whether the event should be
+   * retried. A retry is taken from the retry budget; an event that is not
+   * retried is counted as dropped.
+   *
+   * @param attempt number of attempts made so far, starting at 1
+   */
+  public boolean allowRetry(int attempt) {
+    if (attempt < maxAttempts) {
+      for (long tokens = retryTokens.get(); tokens >= TOKEN_UNIT; tokens = retryTokens.get()) {
+        if (retryTokens.compareAndSet(tokens, tokens - TOKEN_UNIT)) {
+          retried.increment();
+          return true;
+        }
+      }
+    }
+    dropped.increment();
+    return false;
+  }
+
+  /**
+   * @param attempt number of attempts made so far, starting at 1
+   * @return a random delay between 0 and the backoff of this attempt
+   */
+  public long getRetryDelayMillis(int attempt) {
+    long backoff = retryDelayMillis << Math.min(attempt - 1, 30);
+    if (backoff <= 0 || backoff > maxRetryDelayMillis) {
+      backoff = maxRetryDelayMillis;
+    }
+    return ThreadLocalRandom.current().nextLong(backoff + 1);
+  }
+
+  /**
+   * @return the time until an open circuit breaker lets a probe delivery
+   *         through, or 0 if it is not open
+   */
+  public long getRetryAfterMillis() {
+    return state == State.OPEN ? Math.max(0, openUntil - clock.getAsLong()) : 0;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * @return the number of events delivered
+   */
+  public long getDeliveredCount() {
+    return delivered.sum();
+  }
+
+  /**
+   * @return the number of failed delivery attempts
+   */
+  public long getFailedCount() {
+    return failed.sum();
+  }
+
+  /**
+   * @return the number of retried delivery attempts
+   */
+  public long getRetriedCount() {
+    return retried.sum();
+  }
+
+  /**
+   * @return the number of delivery attempts rejected by the circuit breaker
+   */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * @return the number of events dropped after a failed attempt, because they
+   *         had no attempt or retry budget left
+   */
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  /**
+   * @return the number of times the circuit breaker opened
+   */
+  public long getOpenedCount() {
+    return opened.sum();
+  }
+
+  private void transition(State next) {
+    State previous = state;
+    state = next;
+    switch (next) {
+    case OPEN:
+      if (previous == State.HALF_OPEN) {
+        LOG.warn("Analytics backend circuit breaker reopened: the probe delivery failed, failing fast for {} ms",
+            openDurationMillis);
+      } else {
+        LOG.warn("Analytics backend circuit breaker opened after {} consecutive failure(s), failing fast for {} ms",
+            consecutiveFailures.get(), openDurationMillis);
+      }
+      break;
+    case HALF_OPEN:
+      LOG.info("Analytics backend circuit breaker half-open: probing the analytics backend");
+      break;
+    default:
+      LOG.info("Analytics backend circuit breaker closed, {} delivery attempt(s) were rejected while it was open",
+          rejectedWhileOpen);
+      rejectedWhileOpen = 0;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.Map;
+
+/**
+ * Hands events received by the telemetry endpoints over to
+ * {@link AbstractAnalyticsManager#doSendEvent}.
+ */
+public interface EventDispatcher {
+
+  /**
+   * Dispatches an event to the analytics manager.
+   *
+   * @return <code>true</code> if the event was accepted, <code>false</code> if
+   *         it was dropped
+   */
+  boolean dispatch(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties);
+
+  /**
+   * Whether {@link #dispatch} can block the calling thread, for instance while
+   * waiting for room or delivering the event. The reactive endpoints dispatch
+   * the events on a worker thread when it does.
+   */
+  default boolean isBlocking() {
+    return true;
+  }
+
+  /**
+   * Stops the dispatcher, after having delivered the events that were already
+   * accepted.
+   */
+  void shutdown();
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+
+/**
+ * Append-only log of encoded events, made of memory-mapped segment files, with
+ * the position of its consumer checkpointed in a memory-mapped file as well.
+ * Its content survives restarts of the process.
+ *
+ * Positions are contiguous across segments: a segment file is named after the
+ * position of its first record, which is the end of the previous segment.
+ * Each record is made of its length, the CRC32 of its payload and the payload.
+ * The length is written last, so that a record torn by a crash reads as the
+ * end of the log.
+ *
+ * When the log holds as many segments as allowed, the oldest one is recycled
+ * as the next segment, even if it was not consumed. Segment files are reused
+ * rather than deleted, as the blocks of a deleted file stay allocated until
+ * its mapping is garbage collected.
+ */
+final class EventLog {
+  private static final Logger LOG = getLogger(EventLog.class);
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String CHECKPOINT_FILE = "consumer.offset";
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  /**
+   * A record read from the log.
+   */
+  static final class Entry {
+    final long position;
+    final long next;
+    final byte[] payload;
+
+    Entry(long position, long next, byte[] payload) {
+      this.position = position;
+      this.next = next;
+      this.payload = payload;
+    }
+  }
+
+  private static final class Segment {
+    final long base;
+    final Path file;
+    final MappedByteBuffer buffer;
+    int limit;
+
+    Segment(long base, Path file, MappedByteBuffer buffer) {
+      this.base = base;
+      this.file = file;
+      this.buffer = buffer;
+    }
+
+    long end() {
+      return base + limit;
+    }
+  }
+
+  private final Path directory;
+  private final int segmentSize;
+  private final int maxSegments;
+  private final TreeMap<Long, Segment> segments = new TreeMap<>();
+  private final MappedByteBuffer checkpoint;
+  private final CRC32 crc = new CRC32();
+  private Segment active;
+  private long committed;
+  private boolean closed;
+
+  /**
+   * Opens the log in the given directory, recovering the records written by a
+   * previous process.
+   *
+   * @param segmentSize size of each segment file, in bytes
+   * @param maxSize     maximum size of all the segment files, in bytes
+   */
+  EventLog(Path directory, int segmentSize, long maxSize) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxSize / segmentSize));
+    Files.createDirectories(directory);
+
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        long base;
+        try {
+          base = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+          continue;
+        }
+        Segment segment = new Segment(base, file, map(file, (int) Math.max(Files.size(file), segmentSize)));
+        segment.limit = recover(segment.buffer);
+        segments.put(base, segment);
+      }
+    }
+    if (segments.isEmpty()) {
+      active = createSegment(0);
+    } else {
+      active = segments.lastEntry().getValue();
+      // a corrupted record stopped the recovery: drop what follows it
+      for (int offset = active.limit; offset < active.buffer.capacity(); offset++) {
+        active.buffer.put(offset, (byte) 0);
+      }
+    }
+
+    checkpoint = map(directory.resolve(CHECKPOINT_FILE), Long.BYTES);
+    committed = Math.max(firstPosition(), Math.min(checkpoint.getLong(0), getEndPosition()));
+  }
+
+  /**
+   * @return <code>false</code> if the payload is larger than a segment
+   */
+  synchronized boolean append(byte[] payload) throws IOException {
+    if (closed) {
+      throw new IOException("The event log is closed");
+    }
+    int size = RECORD_HEADER_SIZE + payload.length;
+    if (size > segmentSize) {
+      return false;
+    }
+    if (active.limit + size > active.buffer.capacity()) {
+      if (active.limit == 0) {
+        // a smaller segment of a previous configuration
+        segments.remove(active.base);
+      }
+      active = createSegment(active.end());
+    }
+    ByteBuffer buffer = active.buffer;
+    int offset = active.limit;
+    crc.reset();
+    crc.update(payload, 0, payload.length);
+    buffer.putInt(offset + 4, (int) crc.getValue());
+    buffer.position(offset + RECORD_HEADER_SIZE);
+    buffer.put(payload);
+    buffer.putInt(offset, payload.length);
+    active.limit += size;
+    notifyAll();
+    return true;
+  }
+
+  /**
+   * @return the first record at or after the given position, or
+   *         <code>null</code> if there is none yet
+   */
+  synchronized Entry read(long position) {
+    long current = Math.max(position, firstPosition());
+    while (current < getEndPosition()) {
+      Map.Entry<Long, Segment> floor = segments.floorEntry(current);
+      Segment segment = floor.getValue();
+      if (current >= segment.end()) {
+        current = segments.higherKey(segment.base);
+        continue;
+      }
+      int offset = (int) (current - segment.base);
+      int length = segment.buffer.getInt(offset);
+      byte[] payload = new byte[length];
+      ByteBuffer record = segment.buffer.duplicate();
+      record.position(offset + RECORD_HEADER_SIZE);
+      record.get(payload);
+      return new Entry(current, current + RECORD_HEADER_SIZE + length, payload);
+    }
+    return null;
+  }
+
+  /**
+   * Waits until a record is appended after the given position.
+   *
+   * @return whether there is a record after the given position
+   */
+  synchronized boolean await(long position, long timeoutMillis) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    long remaining = timeoutMillis;
+    while (position >= getEndPosition() && remaining > 0) {
+      wait(remaining);
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return position < getEndPosition();
+  }
+
+  /**
+   * Records that every record before the given position was consumed.
+   */
+  synchronized void commit(long position) {
+    if (position > committed) {
+      committed = position;
+      checkpoint.putLong(0, position);
+    }
+  }
+
+  synchronized long getCommittedPosition() {
+    return committed;
+  }
+
+  synchronized long getEndPosition() {
+    return active.end();
+  }
+
+  /**
+   * Writes the records and the checkpoint to disk. The log can't be appended
+   * to afterwards.
+   */
+  synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (Segment segment : segments.values()) {
+      segment.buffer.force();
+    }
+    checkpoint.force();
+    notifyAll();
+  }
+
+  private long firstPosition() {
+    return segments.firstKey();
+  }
+
+  /**
+   * Creates the segment starting at the given position, recycling the file
+   * and the mapping of the oldest segment if the log is full.
+   */
+  private Segment createSegment(long base) throws IOException {
+    Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    Segment recycled = null;
+    while (segments.size() >= maxSegments) {
+      Segment oldest = evictOldest();
+      if (recycled == null && oldest.buffer.capacity() == segmentSize) {
+        recycled = oldest;
+      } else {
+        // a segment of a previous configuration, released when its mapping is collected
+        try {
+          Files.deleteIfExists(oldest.file);
+        } catch (IOException e) {
+          LOG.warn("Can't delete the event log segment " + oldest.file, e);
+        }
+      }
+    }
+    MappedByteBuffer buffer;
+    if (recycled == null) {
+      buffer = map(file, segmentSize);
+    } else {
+      // cleared before it is renamed, so that its records are never read at the new position
+      buffer = recycled.buffer;
+      int offset = 0;
+      for (; offset + Long.BYTES <= buffer.capacity(); offset += Long.BYTES) {
+        buffer.putLong(offset, 0);
+      }
+      for (; offset < buffer.capacity(); offset++) {
+        buffer.put(offset, (byte) 0);
+      }
+      buffer.force();
+      Files.move(recycled.file, file);
+    }
+    Segment segment = new Segment(base, file, buffer);
+    segments.put(base, segment);
+    return segment;
+  }
+
+  private Segment evictOldest() {
+    Segment oldest = segments.pollFirstEntry().getValue();
+    if (committed < oldest.end()) {
+      int lost = countRecords(oldest, (int) Math.max(0, committed - oldest.base));
+      LOG.warn("Event log is full: {} event(s) were dropped before they could be delivered", lost);
+      commit(segments.firstKey());
+    }
+    return oldest;
+  }
+
+  private static int countRecords(Segment segment, int from) {
+    int count = 0;
+    for (int offset = from; offset < segment.limit; offset += RECORD_HEADER_SIZE + segment.buffer.getInt(offset)) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * @return the end of the valid records of a segment
+   */
+  private static int recover(ByteBuffer buffer) {
+    CRC32 crc = new CRC32();
+    int offset = 0;
+    while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+      int length = buffer.getInt(offset);
+      if (length <= 0 || offset + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      ByteBuffer record = buffer.duplicate();
+      record.position(offset + RECORD_HEADER_SIZE);
+      record.get(payload);
+      crc.reset();
+      crc.update(payload, 0, length);
+      if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+        break;
+      }
+      offset += RECORD_HEADER_SIZE + length;
+    }
+    return offset;
+  }
+
+  private static MappedByteBuffer map(Path file, int size) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+  }
+}
@@ -32,6 +32,7 @@ public interface EventProperties {
   public static final String SOURCE_TYPES = "source types";
   public static final String START_NUMBER = "start number";
   public static final String PLUGINS = "plugins";
+  public static final String SAMPLE_WEIGHT = "sample weight";
 
   public static final String[] values = {"", ""};
 }
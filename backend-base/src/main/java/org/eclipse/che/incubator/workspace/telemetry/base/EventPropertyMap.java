@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Small insertion-ordered map of the properties of a single event.
+ *
+ * Keys and values are stored side by side in a flat array, and looked up by a
+ * linear scan: events only carry a handful of properties, for which this is
+ * cheaper than hashing. Putting an existing key replaces its value.
+ */
+public final class EventPropertyMap extends AbstractMap<String, Object> {
+
+  private Object[] keysAndValues;
+  private int size;
+  private Set<Entry<String, Object>> entrySet;
+
+  public EventPropertyMap() {
+    this(4);
+  }
+
+  public EventPropertyMap(int expectedSize) {
+    keysAndValues = new Object[Math.max(1, expectedSize) * 2];
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    int index = indexOf(key);
+    if (index >= 0) {
+      Object previous = keysAndValues[index + 1];
+      keysAndValues[index + 1] = value;
+      return previous;
+    }
+    if (size * 2 == keysAndValues.length) {
+      keysAndValues = Arrays.copyOf(keysAndValues, keysAndValues.length * 2);
+    }
+    keysAndValues[size * 2] = key;
+    keysAndValues[size * 2 + 1] = value;
+    size++;
+    return null;
+  }
+
+  @Override
+  public Object get(Object key) {
+    int index = indexOf(key);
+    return index >= 0 ? keysAndValues[index + 1] : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new Iterator<Entry<String, Object>>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+              return next < size;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              if (next >= size) {
+                throw new NoSuchElementException();
+              }
+              int index = next++ * 2;
+              return new SimpleImmutableEntry<>((String) keysAndValues[index], keysAndValues[index + 1]);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  private int indexOf(Object key) {
+    int length = size * 2;
+    for (int i = 0; i < length; i += 2) {
+      Object candidate = keysAndValues[i];
+      if (candidate == key || (candidate != null && candidate.equals(key))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+
+/**
+ * Decides which built-in events are sent, according to a sample rate per
+ * {@link AnalyticsEvent}.
+ *
+ * The decision is deterministic: the user id and the session (the workspace)
+ * are hashed to a position between 0 and 1, and an event is sent if this
+ * position is below the sample rate of its type. So all the events of a type
+ * are sent or not for a given user in a given session, and a user sampled in
+ * at some rate is sampled in at any higher rate. The sent events carry their
+ * {@link EventProperties#SAMPLE_WEIGHT weight}, the inverse of the sample
+ * rate, so that backends can scale the counts back up.
+ *
+ * The workspace lifecycle events are always sent.
+ */
+final class EventSampler {
+  private static final Logger LOG = getLogger(EventSampler.class);
+
+  static final Set<AnalyticsEvent> ALWAYS_SENT = Collections.unmodifiableSet(
+      EnumSet.of(AnalyticsEvent.WORKSPACE_STARTED, AnalyticsEvent.WORKSPACE_OPENED, AnalyticsEvent.WORKSPACE_STOPPED));
+
+  private final double position;
+  private final boolean[] sampledOut = new boolean[AnalyticsEvent.values().length];
+  /** Sample weight property of each event, or null if it is not sampled. */
+  private final Map<?, ?>[] weightProperties = new Map<?, ?>[AnalyticsEvent.values().length];
+
+  /**
+   * @param sampleRates the sample rate of each event, between 0 and 1
+   */
+  EventSampler(String userId, String sessionId, ToDoubleFunction<AnalyticsEvent> sampleRates) {
+    this.position = position(userId, sessionId);
+    for (AnalyticsEvent event : AnalyticsEvent.values()) {
+      double rate = sampleRates.applyAsDouble(event);
+      if (ALWAYS_SENT.contains(event) || rate >= 1) {
+        continue;
+      }
+      if (!(rate >= 0)) {
+        LOG.warn("Invalid sample rate {} for the {} event, sending all of them", rate, event);
+        continue;
+      }
+      sampledOut[event.ordinal()] = position >= rate;
+      weightProperties[event.ordinal()] = Collections.singletonMap(EventProperties.SAMPLE_WEIGHT, 1 / rate);
+    }
+  }
+
+  /**
+   * Creates a sampler from the <code>che.telemetry.sampling.&lt;EVENT&gt;</code>
+   * settings, which default to 1.
+   */
+  static EventSampler fromConfig(String userId, String sessionId) {
+    return new EventSampler(userId, sessionId,
+        event -> TelemetryConfig.getDouble("che.telemetry.sampling." + event.name(), 1));
+  }
+
+  /**
+   * @return whether the events of this type are not sent
+   */
+  boolean isSampledOut(AnalyticsEvent event) {
+    return sampledOut[event.ordinal()];
+  }
+
+  /**
+   * @return the event properties, with the sample weight if the events of this
+   *         type are sampled
+   */
+  @SuppressWarnings("unchecked")
+  Map<String, Object> withSampleWeight(AnalyticsEvent event, Map<String, Object> properties) {
+    Map<String, Object> weight = (Map<String, Object>) weightProperties[event.ordinal()];
+    return weight == null ? properties : new MergedProperties(properties, weight);
+  }
+
+  /**
+   * @return the position of the user in the session, between 0 inclusive and
+   *         1 exclusive: the first 53 bits of the SHA-256 hash of both
+   */
+  static double position(String userId, String sessionId) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+          .digest((userId + '\n' + sessionId).getBytes(StandardCharsets.UTF_8));
+      long bits = 0;
+      for (int i = 0; i < Long.BYTES; i++) {
+        bits = bits << 8 | (hash[i] & 0xff);
+      }
+      return (bits >>> 11) * 0x1.0p-53;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+/**
+ * Type of a telemetry event: either one of the built-in {@link AnalyticsEvent}s,
+ * or a custom event type registered in an {@link EventTypeRegistry}.
+ */
+public final class EventType {
+  /** Debounce time meaning that the default debounce time of the manager applies. */
+  public static final long DEFAULT_DEBOUNCE_TIME = -1;
+
+  private static final EventType[] BUILT_IN;
+
+  static {
+    AnalyticsEvent[] events = AnalyticsEvent.values();
+    BUILT_IN = new EventType[events.length];
+    for (AnalyticsEvent event : events) {
+      BUILT_IN[event.ordinal()] = new EventType(event.name(), event.toString(), event.getExpectedDurationSeconds(),
+          event.getPropertiesToCheck(), DEFAULT_DEBOUNCE_TIME, event, event.ordinal());
+    }
+  }
+
+  private final String id;
+  private final String name;
+  private final int expectedDuration;
+  private final String[] propertiesToCheck;
+  private final long debounceTimeMillis;
+  private final AnalyticsEvent analyticsEvent;
+  private final int index;
+
+  EventType(String id, String name, int expectedDurationSeconds, String[] propertiesToCheck,
+      long debounceTimeMillis, AnalyticsEvent analyticsEvent, int index) {
+    this.id = id;
+    this.name = name;
+    this.expectedDuration = expectedDurationSeconds;
+    this.propertiesToCheck = propertiesToCheck;
+    this.debounceTimeMillis = debounceTimeMillis;
+    this.analyticsEvent = analyticsEvent;
+    this.index = index;
+  }
+
+  /**
+   * @return the event type of a built-in event
+   */
+  public static EventType of(AnalyticsEvent event) {
+    return BUILT_IN[event.ordinal()];
+  }
+
+  static EventType[] builtIn() {
+    return BUILT_IN.clone();
+  }
+
+  /**
+   * @return the identifier used to submit events of this type
+   */
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getExpectedDurationSeconds() {
+    return expectedDuration;
+  }
+
+  public String[] getPropertiesToCheck() {
+    return propertiesToCheck;
+  }
+
+  /**
+   * @return the debounce time of this event type, or
+   *         {@link #DEFAULT_DEBOUNCE_TIME}
+   */
+  public long getDebounceTimeMillis() {
+    return debounceTimeMillis;
+  }
+
+  /**
+   * @return the built-in event of this type, or <code>null</code> for a custom
+   *         event type
+   */
+  public AnalyticsEvent getAnalyticsEvent() {
+    return analyticsEvent;
+  }
+
+  public boolean isBuiltIn() {
+    return analyticsEvent != null;
+  }
+
+  /**
+   * @return a dense index of this type in its registry, built-in events coming
+   *         first in their declaration order
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registry of the event types known by an analytics manager: the built-in
+ * {@link AnalyticsEvent}s, and the custom event types registered at runtime.
+ *
+ * Identifiers are resolved through a precomputed open-addressing table, so that
+ * resolving an identifier, known or not, is a constant-time operation that
+ * never throws. Registering a type rebuilds the table, which is then published
+ * atomically: registrations are expected to be rare.
+ */
+public class EventTypeRegistry {
+
+  private static final class Table {
+    final EventType[] types;
+    final String[] slotIds;
+    final EventType[] slotTypes;
+    final int mask;
+
+    Table(EventType[] types) {
+      this.types = types;
+      int capacity = Integer.highestOneBit(Math.max(4, types.length * 2) - 1) << 1;
+      this.mask = capacity - 1;
+      this.slotIds = new String[capacity];
+      this.slotTypes = new EventType[capacity];
+      for (EventType type : types) {
+        int slot = spread(type.getId().hashCode()) & mask;
+        while (slotIds[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        slotIds[slot] = type.getId();
+        slotTypes[slot] = type;
+      }
+    }
+
+    EventType get(String id) {
+      int slot = spread(id.hashCode()) & mask;
+      String candidate;
+      while ((candidate = slotIds[slot]) != null) {
+        if (candidate.equals(id)) {
+          return slotTypes[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      return null;
+    }
+
+    private static int spread(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+  }
+
+  private volatile Table table = new Table(EventType.builtIn());
+
+  /**
+   * @return the event type with the given identifier, or <code>null</code> if
+   *         there is none
+   */
+  public EventType resolve(String id) {
+    if (id == null) {
+      return null;
+    }
+    return table.get(id);
+  }
+
+  /**
+   * Registers a custom event type that uses the default debounce time.
+   */
+  public EventType register(String id, String name, int expectedDurationSeconds, String... propertiesToCheck) {
+    return register(id, name, expectedDurationSeconds, propertiesToCheck, EventType.DEFAULT_DEBOUNCE_TIME);
+  }
+
+  /**
+   * Registers a custom event type.
+   *
+   * @param id                      identifier used to submit events of this type
+   * @param name                    human-readable name of this type
+   * @param expectedDurationSeconds expected duration of the activity reported by
+   *                                such events, or -1
+   * @param propertiesToCheck       properties that should be equal for two events
+   *                                to be considered identical when debouncing
+   * @param debounceTimeMillis      debounce time of this type, or
+   *                                {@link EventType#DEFAULT_DEBOUNCE_TIME}
+   * @return the registered type
+   * @throws IllegalArgumentException if a type with the same identifier already
+   *                                  exists
+   */
+  public synchronized EventType register(String id, String name, int expectedDurationSeconds,
+      String[] propertiesToCheck, long debounceTimeMillis) {
+    if (id == null || id.isEmpty()) {
+      throw new IllegalArgumentException("An event type identifier should not be empty");
+    }
+    Table current = table;
+    if (current.get(id) != null) {
+      throw new IllegalArgumentException("Event type '" + id + "' is already registered");
+    }
+    EventType type = new EventType(id, name == null ? id : name, expectedDurationSeconds,
+        propertiesToCheck == null ? new String[0] : propertiesToCheck.clone(), debounceTimeMillis, null,
+        current.types.length);
+    EventType[] types = Arrays.copyOf(current.types, current.types.length + 1);
+    types[type.getIndex()] = type;
+    table = new Table(types);
+    return type;
+  }
+
+  /**
+   * @return all the known event types, ordered by {@link EventType#getIndex()}
+   */
+  public List<EventType> getEventTypes() {
+    return Collections.unmodifiableList(Arrays.asList(table.types));
+  }
+}
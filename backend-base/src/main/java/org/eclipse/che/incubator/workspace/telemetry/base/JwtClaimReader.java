@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.io.ByteArrayInputStream;
+import java.util.Base64;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+
+/**
+ * Reads a single claim of a JSON Web Token, by decoding its base64url
+ * segments and streaming through their JSON. The signature is neither decoded
+ * nor verified.
+ */
+final class JwtClaimReader {
+  private static final JsonParserFactory FACTORY = Json.createParserFactory(null);
+
+  private JwtClaimReader() {
+  }
+
+  /**
+   * @param header  the first segment of the token
+   * @param payload the second segment of the token
+   * @return the value of the claim as a string, or <code>null</code> if the
+   *         payload has no such claim
+   * @throws IllegalArgumentException if a segment is not base64url encoded,
+   *                                  or the claim is not a scalar value
+   * @throws javax.json.JsonException if a segment is not a JSON object
+   */
+  static String readClaim(String header, String payload, String claim) {
+    try (JsonParser parser = createParser(header)) {
+      expectObject(parser);
+      skipStructure(parser);
+    }
+    try (JsonParser parser = createParser(payload)) {
+      expectObject(parser);
+      String value = null;
+      Event event;
+      while ((event = parser.next()) != Event.END_OBJECT) {
+        String name = parser.getString();
+        event = parser.next();
+        if (!claim.equals(name)) {
+          skipValue(parser, event);
+          continue;
+        }
+        switch (event) {
+        case VALUE_STRING:
+        case VALUE_NUMBER:
+          value = parser.getString();
+          break;
+        case VALUE_TRUE:
+          value = "true";
+          break;
+        case VALUE_FALSE:
+          value = "false";
+          break;
+        case VALUE_NULL:
+          value = null;
+          break;
+        default:
+          throw new IllegalArgumentException("The '" + claim + "' claim is not a scalar value");
+        }
+      }
+      return value;
+    }
+  }
+
+  private static JsonParser createParser(String segment) {
+    return FACTORY.createParser(new ByteArrayInputStream(Base64.getUrlDecoder().decode(segment)));
+  }
+
+  private static void expectObject(JsonParser parser) {
+    if (!parser.hasNext() || parser.next() != Event.START_OBJECT) {
+      throw new IllegalArgumentException("Not a JSON object");
+    }
+  }
+
+  private static void skipValue(JsonParser parser, Event event) {
+    if (event == Event.START_OBJECT || event == Event.START_ARRAY) {
+      skipStructure(parser);
+    }
+  }
+
+  /**
+   * Skips the rest of the object or array whose start was just read.
+   */
+  private static void skipStructure(JsonParser parser) {
+    int depth = 1;
+    while (depth > 0) {
+      Event next = parser.next();
+      if (next == Event.START_ARRAY || next == Event.START_OBJECT) {
+        depth++;
+      } else if (next == Event.END_ARRAY || next == Event.END_OBJECT) {
+        depth--;
+      }
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * An event as it is written to the {@link EventLog}: its type id, its origin
+ * and its own properties. The common properties are added when it is
+ * delivered.
+ *
+ * Property values keep their type when they are strings, booleans, integers,
+ * longs or doubles, so that a replayed event reaches the analytics manager as
+ * it was sent. Values of other types are replayed as their string.
+ */
+final class LoggedEvent {
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte BOOLEAN = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte DOUBLE = 5;
+
+  final String typeId;
+  final String ownerId;
+  final String ip;
+  final String userAgent;
+  final String resolution;
+  final Map<String, Object> properties;
+
+  LoggedEvent(String typeId, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    this.typeId = typeId;
+    this.ownerId = ownerId;
+    this.ip = ip;
+    this.userAgent = userAgent;
+    this.resolution = resolution;
+    this.properties = properties;
+  }
+
+  byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeString(out, typeId);
+      writeString(out, ownerId);
+      writeString(out, ip);
+      writeString(out, userAgent);
+      writeString(out, resolution);
+      out.writeInt(properties == null ? 0 : properties.size());
+      if (properties != null) {
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+          writeString(out, property.getKey());
+          writeValue(out, property.getValue());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  static LoggedEvent decode(byte[] payload) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    String typeId = readString(in);
+    String ownerId = readString(in);
+    String ip = readString(in);
+    String userAgent = readString(in);
+    String resolution = readString(in);
+    int count = in.readInt();
+    if (count < 0 || count > payload.length) {
+      throw new IOException("Invalid property count: " + count);
+    }
+    EventPropertyMap properties = new EventPropertyMap(count);
+    for (int i = 0; i < count; i++) {
+      String key = readString(in);
+      properties.put(key, readValue(in));
+    }
+    return new LoggedEvent(typeId, ownerId, ip, userAgent, resolution, properties);
+  }
+
+  private static void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else {
+      out.writeByte(STRING);
+      writeString(out, value.toString());
+    }
+  }
+
+  private static Object readValue(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+    case NULL:
+      return null;
+    case STRING:
+      return readString(in);
+    case BOOLEAN:
+      return in.readBoolean();
+    case INTEGER:
+      return in.readInt();
+    case LONG:
+      return in.readLong();
+    case DOUBLE:
+      return in.readDouble();
+    default:
+      throw new IOException("Invalid property type: " + type);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < 0 || length > in.available()) {
+      throw new IOException("Invalid string length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
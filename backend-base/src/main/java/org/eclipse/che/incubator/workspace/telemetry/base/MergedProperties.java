@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only view of the common properties overlaid with the properties of an
+ * event, without copying any of them. Event properties take precedence over
+ * common properties with the same key.
+ */
+final class MergedProperties extends AbstractMap<String, Object> {
+
+  private final Map<String, Object> commonProperties;
+  private final Map<String, Object> eventProperties;
+  private int size = -1;
+  private Set<Entry<String, Object>> entrySet;
+
+  MergedProperties(Map<String, Object> commonProperties, Map<String, Object> eventProperties) {
+    this.commonProperties = commonProperties == null ? Collections.emptyMap() : commonProperties;
+    this.eventProperties = eventProperties == null ? Collections.emptyMap() : eventProperties;
+  }
+
+  @Override
+  public Object get(Object key) {
+    Object value = eventProperties.get(key);
+    if (value != null || eventProperties.containsKey(key)) {
+      return value;
+    }
+    return commonProperties.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return eventProperties.containsKey(key) || commonProperties.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    if (size < 0) {
+      int count = commonProperties.size();
+      for (String key : eventProperties.keySet()) {
+        if (!commonProperties.containsKey(key)) {
+          count++;
+        }
+      }
+      size = count;
+    }
+    return size;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          return MergedProperties.this.size();
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  /**
+   * Iterates over the common properties that are not overridden, then over the
+   * event properties.
+   */
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private final Iterator<Entry<String, Object>> common = commonProperties.entrySet().iterator();
+    private final Iterator<Entry<String, Object>> event = eventProperties.entrySet().iterator();
+    private Entry<String, Object> next = advance();
+
+    private Entry<String, Object> advance() {
+      while (common.hasNext()) {
+        Entry<String, Object> entry = common.next();
+        if (!eventProperties.containsKey(entry.getKey())) {
+          return entry;
+        }
+      }
+      return event.hasNext() ? event.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Entry<String, Object> current = next;
+      next = advance();
+      return current;
+    }
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+
+/**
+ * {@link EventDispatcher} that decouples the request threads from the analytics
+ * backend: events are put on a bounded ring buffer of preallocated slots, and
+ * a single dedicated consumer thread runs
+ * {@link AbstractAnalyticsManager#doSendEvent} (debouncing and
+ * <code>onEvent</code>) for each of them, in arrival order.
+ *
+ * The buffer is a lock-free multi-producer queue: each slot carries a sequence
+ * number telling whether it is free for the producer of a given position or
+ * published for the consumer of this position.
+ */
+public class RingBufferEventDispatcher implements EventDispatcher {
+  private static final Logger LOG = getLogger(RingBufferEventDispatcher.class);
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+  /**
+   * What to do with a new event when the buffer is full.
+   */
+  public enum OverflowPolicy {
+    /** The new event is dropped. */
+    DROP_NEWEST,
+    /** The oldest buffered event is dropped to make room for the new one. */
+    DROP_OLDEST,
+    /** The request thread waits until there is room for the new event. */
+    BLOCK
+  }
+
+  static final class Slot {
+    EventType type;
+    String ownerId;
+    String ip;
+    String userAgent;
+    String resolution;
+    Map<String, Object> properties;
+
+    void set(EventType type, String ownerId, String ip, String userAgent, String resolution,
+        Map<String, Object> properties) {
+      this.type = type;
+      this.ownerId = ownerId;
+      this.ip = ip;
+      this.userAgent = userAgent;
+      this.resolution = resolution;
+      this.properties = properties;
+    }
+
+    void copyFrom(Slot other) {
+      set(other.type, other.ownerId, other.ip, other.userAgent, other.resolution, other.properties);
+    }
+
+    void clear() {
+      set(null, null, null, null, null, null);
+    }
+  }
+
+  private final AbstractAnalyticsManager analyticsManager;
+  private final OverflowPolicy overflowPolicy;
+  private final Slot[] slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread consumer;
+
+  private volatile boolean running = true;
+  private volatile boolean consumerParked = false;
+
+  public RingBufferEventDispatcher(AbstractAnalyticsManager analyticsManager, int capacity,
+      OverflowPolicy overflowPolicy) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The event buffer capacity should be positive: " + capacity);
+    }
+    this.analyticsManager = analyticsManager;
+    this.overflowPolicy = overflowPolicy;
+
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.mask = size - 1;
+    this.slots = new Slot[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      slots[i] = new Slot();
+      sequences.set(i, i);
+    }
+
+    consumer = new Thread(this::consume, "telemetry-event-dispatcher");
+    consumer.setDaemon(true);
+    consumer.start();
+  }
+
+  @Override
+  public boolean dispatch(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    if (!running) {
+      return false;
+    }
+    while (!offer(type, ownerId, ip, userAgent, resolution, properties)) {
+      if (!running) {
+        return false;
+      }
+      switch (overflowPolicy) {
+      case DROP_OLDEST:
+        if (poll(null)) {
+          onDropped();
+        }
+        break;
+      case BLOCK:
+        LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        break;
+      default:
+        onDropped();
+        return false;
+      }
+    }
+    if (!running) {
+      // Shut down while publishing: the consumer may have drained the buffer and exited already.
+      drain();
+    } else if (consumerParked) {
+      LockSupport.unpark(consumer);
+    }
+    return true;
+  }
+
+  /**
+   * Only waits for room with the {@link OverflowPolicy#BLOCK BLOCK} policy:
+   * the events are delivered on the consumer thread.
+   */
+  @Override
+  public boolean isBlocking() {
+    return overflowPolicy == OverflowPolicy.BLOCK;
+  }
+
+  @Override
+  public void shutdown() {
+    running = false;
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join(SHUTDOWN_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (consumer.isAlive()) {
+      LOG.warn("Telemetry event dispatcher stopped with {} undelivered event(s)", size());
+    }
+  }
+
+  /**
+   * @return the number of events currently waiting in the buffer
+   */
+  public int size() {
+    return (int) Math.max(0, tail.get() - head.get());
+  }
+
+  public int capacity() {
+    return slots.length;
+  }
+
+  /**
+   * @return the number of events dropped because the buffer was full
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  private boolean offer(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    long position = tail.get();
+    for (;;) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          slots[index].set(type, ownerId, ip, userAgent, resolution, properties);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  private boolean poll(Slot target) {
+    long position = head.get();
+    for (;;) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          Slot slot = slots[index];
+          if (target != null) {
+            target.copyFrom(slot);
+          }
+          slot.clear();
+          sequences.set(index, position + slots.length);
+          return true;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  private void consume() {
+    Slot current = new Slot();
+    while (running || size() > 0) {
+      if (poll(current)) {
+        deliver(current);
+      } else if (running) {
+        consumerParked = true;
+        if (size() == 0) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        consumerParked = false;
+      }
+    }
+  }
+
+  /**
+   * Delivers the buffered events on the calling thread, along with the
+   * consumer if it is still running.
+   */
+  private void drain() {
+    Slot current = new Slot();
+    while (poll(current)) {
+      deliver(current);
+    }
+  }
+
+  private void deliver(Slot current) {
+    try {
+      analyticsManager.doSendEvent(current.type, current.ownerId, current.ip, current.userAgent,
+          current.resolution, current.properties);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed sending telemetry event " + current.type.getId(), e);
+    }
+    current.clear();
+  }
+
+  private void onDropped() {
+    long count = dropped.incrementAndGet();
+    if (count == 1 || count % 1000 == 0) {
+      LOG.warn("Telemetry event buffer is full: {} event(s) dropped so far", count);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.Map;
+
+/**
+ * Default {@link EventDispatcher}: events are sent on the calling (request)
+ * thread.
+ */
+public class SynchronousEventDispatcher implements EventDispatcher {
+
+  private final AbstractAnalyticsManager analyticsManager;
+
+  public SynchronousEventDispatcher(AbstractAnalyticsManager analyticsManager) {
+    this.analyticsManager = analyticsManager;
+  }
+
+  @Override
+  public boolean dispatch(EventType type, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    analyticsManager.doSendEvent(type, ownerId, ip, userAgent, resolution, properties);
+    return true;
+  }
+
+  /**
+   * Events are delivered on the calling thread, or appended to the event log,
+   * which can create a new segment.
+   */
+  @Override
+  public boolean isBlocking() {
+    return analyticsManager.isBlocking() || analyticsManager.isEventLogEnabled();
+  }
+
+  @Override
+  public void shutdown() {
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+
+/**
+ * Reads the optional <code>che.telemetry.*</code> settings of the analytics
+ * manager. Analytics managers are built by plugins through the
+ * {@link AbstractAnalyticsManager} constructor, so these settings can't be
+ * injected: they are looked up in the MicroProfile configuration, and fall
+ * back to their default value when there is no configuration.
+ */
+final class TelemetryConfig {
+  private static final Logger LOG = getLogger(TelemetryConfig.class);
+
+  private TelemetryConfig() {
+  }
+
+  static boolean getBoolean(String name, boolean defaultValue) {
+    return get(name, Boolean.class, defaultValue);
+  }
+
+  static int getInt(String name, int defaultValue) {
+    return get(name, Integer.class, defaultValue);
+  }
+
+  static long getLong(String name, long defaultValue) {
+    return get(name, Long.class, defaultValue);
+  }
+
+  static double getDouble(String name, double defaultValue) {
+    return get(name, Double.class, defaultValue);
+  }
+
+  static String getString(String name, String defaultValue) {
+    return get(name, String.class, defaultValue);
+  }
+
+  private static <T> T get(String name, Class<T> type, T defaultValue) {
+    try {
+      Config config = ConfigProvider.getConfig();
+      return config.getOptionalValue(name, type).orElse(defaultValue);
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Invalid value for '{}', using the default value {}", name, defaultValue);
+      return defaultValue;
+    } catch (IllegalStateException e) {
+      return defaultValue;
+    }
+  }
+}
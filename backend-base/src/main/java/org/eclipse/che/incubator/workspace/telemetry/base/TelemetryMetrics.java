@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Metrics of the telemetry pipeline of an analytics manager, written in the
+ * Prometheus text format.
+ *
+ * Counters and histograms are striped ({@link LongAdder}), so that recording
+ * takes no lock on the event path. Queue depths and the other state of the
+ * pipeline are read when the metrics are written.
+ */
+public final class TelemetryMetrics {
+
+  /**
+   * Content type of the Prometheus text format.
+   */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  static final String WORKSPACE_REQUEST = "workspace";
+  static final String FACTORY_REQUEST = "factory";
+
+  private static final class EventCounters {
+    final LongAdder received = new LongAdder();
+    final LongAdder suppressed = new LongAdder();
+    final LongAdder sampledOut = new LongAdder();
+    final LongAdder sent = new LongAdder();
+  }
+
+  private final EventCounters[] builtInEvents = new EventCounters[AnalyticsEvent.values().length];
+  private final ConcurrentMap<String, EventCounters> customEvents = new ConcurrentHashMap<>();
+  private final LatencyHistogram eventLatency = new LatencyHistogram();
+  private final LatencyHistogram activityLatency = new LatencyHistogram();
+  private final LatencyHistogram workspaceRequestLatency = new LatencyHistogram();
+  private final LatencyHistogram factoryRequestLatency = new LatencyHistogram();
+  private volatile long startupNanos;
+
+  TelemetryMetrics() {
+    for (int i = 0; i < builtInEvents.length; i++) {
+      builtInEvents[i] = new EventCounters();
+    }
+  }
+
+  /**
+   * Counts an event received by the telemetry endpoints.
+   */
+  public void eventReceived(EventType type) {
+    counters(type).received.increment();
+  }
+
+  void eventSuppressed(EventType type) {
+    counters(type).suppressed.increment();
+  }
+
+  void eventSampledOut(EventType type) {
+    counters(type).sampledOut.increment();
+  }
+
+  void eventSent(EventType type, long nanos) {
+    counters(type).sent.increment();
+    eventLatency.record(nanos);
+  }
+
+  void activityReported(long nanos) {
+    activityLatency.record(nanos);
+  }
+
+  void metadataRequested(String request, long nanos) {
+    (FACTORY_REQUEST.equals(request) ? factoryRequestLatency : workspaceRequestLatency).record(nanos);
+  }
+
+  void managerStarted(long nanos) {
+    startupNanos = nanos;
+  }
+
+  /**
+   * Writes the metrics of the analytics manager, and of the queue of the event
+   * dispatcher if it has one.
+   */
+  public static String scrape(AbstractAnalyticsManager manager, EventDispatcher dispatcher) {
+    StringBuilder out = new StringBuilder(8192);
+    manager.getMetrics().writeTo(out, manager);
+    if (dispatcher instanceof RingBufferEventDispatcher) {
+      RingBufferEventDispatcher ringBuffer = (RingBufferEventDispatcher) dispatcher;
+      writeGauge(out, "che_telemetry_dispatcher_queue_size", "Events waiting in the asynchronous dispatcher.",
+          ringBuffer.size());
+      writeGauge(out, "che_telemetry_dispatcher_queue_capacity", "Capacity of the asynchronous dispatcher.",
+          ringBuffer.capacity());
+      writeCounter(out, "che_telemetry_dispatcher_dropped_total",
+          "Events dropped because the asynchronous dispatcher was full.", ringBuffer.getDroppedCount());
+    }
+    return out.toString();
+  }
+
+  private void writeTo(StringBuilder out, AbstractAnalyticsManager manager) {
+    writeEventCounters(out, "che_telemetry_events_received_total", "Events received by the telemetry endpoints.",
+        counters -> counters.received);
+    writeEventCounters(out, "che_telemetry_events_suppressed_total",
+        "Events suppressed because an identical event was sent less than the debounce time ago.",
+        counters -> counters.suppressed);
+    writeEventCounters(out, "che_telemetry_events_sampled_out_total",
+        "Events not sent because the user isn't sampled in for their type.", counters -> counters.sampledOut);
+    writeEventCounters(out, "che_telemetry_events_sent_total", "Events delivered to the analytics backend.",
+        counters -> counters.sent);
+
+    writeHistogramHeader(out, "che_telemetry_on_event_duration_seconds",
+        "Duration of the successful deliveries of events to the analytics backend.");
+    eventLatency.writeTo(out, "che_telemetry_on_event_duration_seconds", "");
+    writeHistogramHeader(out, "che_telemetry_on_activity_duration_seconds",
+        "Duration of the onActivity calls of the analytics manager.");
+    activityLatency.writeTo(out, "che_telemetry_on_activity_duration_seconds", "");
+    writeCounter(out, "che_telemetry_activities_total", "Activities recorded, including the coalesced ones.",
+        manager.getActivityCount());
+
+    writeHistogramHeader(out, "che_telemetry_metadata_request_duration_seconds",
+        "Duration of the requests fetching the workspace metadata from the Che API.");
+    workspaceRequestLatency.writeTo(out, "che_telemetry_metadata_request_duration_seconds",
+        "request=\"" + WORKSPACE_REQUEST + "\",");
+    factoryRequestLatency.writeTo(out, "che_telemetry_metadata_request_duration_seconds",
+        "request=\"" + FACTORY_REQUEST + "\",");
+    writeGauge(out, "che_telemetry_startup_seconds", "Time taken to create the analytics manager.",
+        startupNanos / 1e9);
+    writeGauge(out, "che_telemetry_metadata_pending", "Whether the workspace metadata is still being loaded.",
+        manager.isWorkspaceMetadataPending() ? 1 : 0);
+    writeGauge(out, "che_telemetry_metadata_pending_events",
+        "Events queued until the workspace metadata is loaded.", manager.getPendingEventCount());
+    long backlog = manager.getEventLogBacklog();
+    if (backlog >= 0) {
+      writeGauge(out, "che_telemetry_event_log_backlog_bytes", "Size of the events of the write-ahead log "
+          + "that weren't delivered yet.", backlog);
+    }
+
+    DeliveryPolicy delivery = manager.getDeliveryPolicy();
+    writeCounter(out, "che_telemetry_delivery_failures_total", "Failed delivery attempts.",
+        delivery.getFailedCount());
+    writeCounter(out, "che_telemetry_delivery_retries_total", "Retried delivery attempts.",
+        delivery.getRetriedCount());
+    writeCounter(out, "che_telemetry_delivery_rejected_total",
+        "Delivery attempts rejected by the open circuit breaker.", delivery.getRejectedCount());
+    writeCounter(out, "che_telemetry_delivery_dropped_total",
+        "Events dropped after a failed delivery, without attempt or retry budget left.",
+        delivery.getDroppedCount());
+    writeCounter(out, "che_telemetry_circuit_breaker_opened_total", "Times the circuit breaker opened.",
+        delivery.getOpenedCount());
+    out.append("# HELP che_telemetry_circuit_breaker_state State of the circuit breaker.\n");
+    out.append("# TYPE che_telemetry_circuit_breaker_state gauge\n");
+    DeliveryPolicy.State state = delivery.getState();
+    for (DeliveryPolicy.State value : DeliveryPolicy.State.values()) {
+      out.append("che_telemetry_circuit_breaker_state{state=\"").append(value.name().toLowerCase()).append("\"} ")
+          .append(value == state ? 1 : 0).append('\n');
+    }
+    if (manager instanceof CompositeAnalyticsManager) {
+      writeSinks(out, ((CompositeAnalyticsManager) manager).getSinks());
+    }
+  }
+
+  private static void writeSinks(StringBuilder out, List<CompositeAnalyticsManager.Sink> sinks) {
+    writeSinkSeries(out, "che_telemetry_sink_delivered_total", "counter", "Events delivered by each sink.", sinks,
+        sink -> sink.getDeliveryPolicy().getDeliveredCount());
+    writeSinkSeries(out, "che_telemetry_sink_failures_total", "counter", "Failed delivery attempts of each sink.",
+        sinks, sink -> sink.getDeliveryPolicy().getFailedCount());
+    writeSinkSeries(out, "che_telemetry_sink_timeouts_total", "counter",
+        "Calls to each sink interrupted by its timeout.", sinks, CompositeAnalyticsManager.Sink::getTimedOutCount);
+    writeSinkSeries(out, "che_telemetry_sink_dropped_total", "counter",
+        "Calls dropped because the queue of the sink was full.", sinks,
+        CompositeAnalyticsManager.Sink::getDroppedCount);
+    writeSinkSeries(out, "che_telemetry_sink_queue_size", "gauge", "Calls waiting in the queue of each sink.",
+        sinks, CompositeAnalyticsManager.Sink::getQueueSize);
+    writeSinkSeries(out, "che_telemetry_sink_abandoned_threads", "gauge",
+        "Threads of each sink abandoned in a timed out call that didn't return yet.", sinks,
+        CompositeAnalyticsManager.Sink::getAbandonedWorkerCount);
+    writeSinkSeries(out, "che_telemetry_sink_circuit_breaker_open", "gauge",
+        "Whether the circuit breaker of each sink is open.", sinks,
+        sink -> sink.getDeliveryPolicy().getState() == DeliveryPolicy.State.OPEN ? 1 : 0);
+  }
+
+  private static void writeSinkSeries(StringBuilder out, String name, String type, String help,
+      List<CompositeAnalyticsManager.Sink> sinks, ToLongFunction<CompositeAnalyticsManager.Sink> value) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    for (CompositeAnalyticsManager.Sink sink : sinks) {
+      out.append(name).append("{sink=\"");
+      escapeLabelValue(out, sink.getName());
+      out.append("\"} ").append(value.applyAsLong(sink)).append('\n');
+    }
+  }
+
+  private EventCounters counters(EventType type) {
+    AnalyticsEvent event = type.getAnalyticsEvent();
+    if (event != null) {
+      return builtInEvents[event.ordinal()];
+    }
+    EventCounters counters = customEvents.get(type.getId());
+    return counters != null ? counters : customEvents.computeIfAbsent(type.getId(), id -> new EventCounters());
+  }
+
+  private void writeEventCounters(StringBuilder out, String name, String help,
+      Function<EventCounters, LongAdder> counter) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" counter\n");
+    for (AnalyticsEvent event : AnalyticsEvent.values()) {
+      writeEventCounter(out, name, event.name(), counter.apply(builtInEvents[event.ordinal()]));
+    }
+    for (Map.Entry<String, EventCounters> custom : customEvents.entrySet()) {
+      writeEventCounter(out, name, custom.getKey(), counter.apply(custom.getValue()));
+    }
+  }
+
+  private static void writeEventCounter(StringBuilder out, String name, String event, LongAdder value) {
+    out.append(name).append("{event=\"");
+    escapeLabelValue(out, event);
+    out.append("\"} ").append(value.sum()).append('\n');
+  }
+
+  private static void writeHistogramHeader(StringBuilder out, String name, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" histogram\n");
+  }
+
+  private static void writeCounter(StringBuilder out, String name, String help, long value) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" counter\n");
+    out.append(name).append(' ').append(value).append('\n');
+  }
+
+  private static void writeGauge(StringBuilder out, String name, String help, double value) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" gauge\n");
+    out.append(name).append(' ');
+    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+      out.append((long) value);
+    } else {
+      out.append(value);
+    }
+    out.append('\n');
+  }
+
+  private static void escapeLabelValue(StringBuilder out, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' || c == '"') {
+        out.append('\\').append(c);
+      } else if (c == '\n') {
+        out.append("\\n");
+      } else {
+        out.append(c);
+      }
+    }
+  }
+}
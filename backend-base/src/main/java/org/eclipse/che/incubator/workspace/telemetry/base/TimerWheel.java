@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.slf4j.Logger;
+
+/**
+ * Hashed timer wheel running the timeouts of the analytics manager on a single
+ * daemon thread.
+ *
+ * The wheel is an array of buckets, each one being a doubly linked list of
+ * {@link Timeout timeouts}. The thread visits one bucket per tick, and runs
+ * the timeouts of this bucket whose number of remaining rounds is zero. A
+ * timeout is a node of these lists, created once by its owner: scheduling,
+ * rescheduling and cancelling it take constant time and allocate nothing.
+ * Timeouts are run at most one tick late.
+ */
+final class TimerWheel {
+  private static final Logger LOG = getLogger(TimerWheel.class);
+
+  /**
+   * A task that can be scheduled on a timer wheel, again and again.
+   */
+  static final class Timeout {
+    final Runnable task;
+    private Timeout previous;
+    private Timeout next;
+    private Timeout nextExpired;
+    private int bucket = -1;
+    private long rounds;
+
+    Timeout(Runnable task) {
+      this.task = task;
+    }
+  }
+
+  private final long tickMillis;
+  private final Timeout[] buckets;
+  private final int mask;
+  private final long startTime;
+  private final Thread thread;
+  private long tick;
+  private volatile boolean running = true;
+
+  /**
+   * @param wheelSize number of buckets, rounded up to a power of two
+   */
+  TimerWheel(String threadName, long tickMillis, int wheelSize) {
+    this.tickMillis = Math.max(1, tickMillis);
+    int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+    this.buckets = new Timeout[size];
+    this.mask = size - 1;
+    this.startTime = System.currentTimeMillis();
+    thread = new Thread(this::run, threadName);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  long getTickMillis() {
+    return tickMillis;
+  }
+
+  /**
+   * Schedules a timeout to run after the given delay, replacing its previous
+   * schedule if it has one.
+   */
+  synchronized void schedule(Timeout timeout, long delayMillis) {
+    unlink(timeout);
+    long deadlineTick = (System.currentTimeMillis() + Math.max(0, delayMillis) - startTime + tickMillis - 1)
+        / tickMillis;
+    long ticks = Math.max(deadlineTick, tick);
+    timeout.rounds = (ticks - tick) / buckets.length;
+    timeout.bucket = (int) (ticks & mask);
+    timeout.previous = null;
+    timeout.next = buckets[timeout.bucket];
+    if (timeout.next != null) {
+      timeout.next.previous = timeout;
+    }
+    buckets[timeout.bucket] = timeout;
+  }
+
+  synchronized void cancel(Timeout timeout) {
+    unlink(timeout);
+  }
+
+  synchronized boolean isScheduled(Timeout timeout) {
+    return timeout.bucket >= 0;
+  }
+
+  void stop() {
+    running = false;
+    thread.interrupt();
+  }
+
+  private void unlink(Timeout timeout) {
+    if (timeout.bucket < 0) {
+      return;
+    }
+    if (timeout.previous != null) {
+      timeout.previous.next = timeout.next;
+    } else {
+      buckets[timeout.bucket] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.previous = timeout.previous;
+    }
+    timeout.previous = null;
+    timeout.next = null;
+    timeout.bucket = -1;
+  }
+
+  private void run() {
+    while (running) {
+      Timeout expired = null;
+      synchronized (this) {
+        Timeout timeout = buckets[(int) (tick & mask)];
+        while (timeout != null) {
+          Timeout next = timeout.next;
+          if (timeout.rounds > 0) {
+            timeout.rounds--;
+          } else {
+            unlink(timeout);
+            timeout.nextExpired = expired;
+            expired = timeout;
+          }
+          timeout = next;
+        }
+        tick++;
+      }
+      while (expired != null) {
+        Timeout timeout = expired;
+        expired = timeout.nextExpired;
+        timeout.nextExpired = null;
+        try {
+          timeout.task.run();
+        } catch (RuntimeException e) {
+          LOG.error("Timeout task failed", e);
+        }
+      }
+      long sleep = startTime + tick * tickMillis - System.currentTimeMillis();
+      if (sleep > 0) {
+        try {
+          Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    }
+  }
+}
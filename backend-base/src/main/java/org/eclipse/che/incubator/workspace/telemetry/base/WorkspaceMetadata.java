@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static java.lang.Long.parseLong;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.eclipse.che.api.core.model.workspace.Workspace;
+import org.eclipse.che.api.core.model.workspace.WorkspaceConfig;
+import org.eclipse.che.api.core.model.workspace.devfile.Component;
+import org.eclipse.che.api.core.model.workspace.devfile.Devfile;
+import org.eclipse.che.api.factory.shared.dto.FactoryDto;
+import org.eclipse.che.api.workspace.shared.Constants;
+import org.slf4j.Logger;
+
+/**
+ * Immutable view of the workspace information used by the analytics managers,
+ * resolved from the workspace and its factory.
+ */
+public final class WorkspaceMetadata {
+  private static final Logger LOG = getLogger(WorkspaceMetadata.class);
+
+  private static final String FACTORY_PARAMETERS_PREFIX = "factory.parameter.";
+
+  /**
+   * Metadata of a workspace whose information is not known.
+   */
+  public static final WorkspaceMetadata EMPTY = new Builder().build();
+
+  private final String workspaceName;
+  private final String stackId;
+  private final String factoryId;
+  private final String factoryName;
+  private final String factoryOwner;
+  private final String factoryUrl;
+  private final String createdOn;
+  private final String updatedOn;
+  private final String stoppedOn;
+  private final String stoppedAbnormally;
+  private final String lastErrorMessage;
+  private final String sourceTypes;
+  private final String startNumber;
+  private final List<String> pluginNames;
+  private final Long age;
+  private final Long returnDelay;
+  private final Boolean firstStart;
+
+  private WorkspaceMetadata(Builder builder) {
+    this.workspaceName = builder.workspaceName;
+    this.stackId = builder.stackId;
+    this.factoryId = builder.factoryId;
+    this.factoryName = builder.factoryName;
+    this.factoryOwner = builder.factoryOwner;
+    this.factoryUrl = builder.factoryUrl;
+    this.createdOn = builder.createdOn;
+    this.updatedOn = builder.updatedOn;
+    this.stoppedOn = builder.stoppedOn;
+    this.stoppedAbnormally = builder.stoppedAbnormally;
+    this.lastErrorMessage = builder.lastErrorMessage;
+    this.sourceTypes = builder.sourceTypes;
+    this.startNumber = builder.startNumber;
+    this.pluginNames = Collections.unmodifiableList(builder.pluginNames);
+    this.age = builder.age;
+    this.returnDelay = builder.returnDelay;
+    this.firstStart = builder.firstStart;
+  }
+
+  /**
+   * Resolves the metadata of a workspace.
+   *
+   * @param workspace the workspace
+   * @param factory   the factory the workspace was created from, or
+   *                  <code>null</code> if it has none or it couldn't be fetched
+   */
+  public static WorkspaceMetadata resolve(Workspace workspace, FactoryDto factory) {
+    Map<String, String> attributes = workspace.getAttributes();
+    Builder builder = new Builder();
+    builder.createdOn = attributes.get(Constants.CREATED_ATTRIBUTE_NAME);
+    builder.updatedOn = attributes.get(Constants.UPDATED_ATTRIBUTE_NAME);
+    builder.stoppedOn = attributes.get(Constants.STOPPED_ATTRIBUTE_NAME);
+    builder.stoppedAbnormally = attributes.get(Constants.STOPPED_ABNORMALLY_ATTRIBUTE_NAME);
+    builder.lastErrorMessage = attributes.get(Constants.ERROR_MESSAGE_ATTRIBUTE_NAME);
+    builder.sourceTypes = attributes.get("sourceTypes");
+    builder.startNumber = attributes.get("startNumber");
+    builder.stackId = attributes.get("stackName");
+    builder.factoryId = attributes.get("factoryId");
+    builder.pluginNames = getPluginNames(workspace.getDevfile());
+
+    Long createDate = builder.createdOn == null ? null : getDateFromString("created date", builder.createdOn);
+    Long updateDate = builder.updatedOn == null ? null : getDateFromString("updated date", builder.updatedOn);
+    Long stopDate = builder.stoppedOn == null ? null : getDateFromString("stop date", builder.stoppedOn);
+    builder.age = getSecondsBetween(updateDate, createDate);
+    builder.returnDelay = getSecondsBetween(updateDate, stopDate);
+    builder.firstStart = updateDate == null ? null : stopDate == null;
+
+    WorkspaceConfig config = workspace.getConfig();
+    if (hasFactory(builder.factoryId)) {
+      if (factory != null) {
+        builder.factoryName = factory.getName();
+        builder.factoryOwner = factory.getCreator().getName();
+      }
+    } else if (config != null) {
+      Map<String, String> configAttributes = config.getAttributes();
+      builder.factoryName = configAttributes.get(FACTORY_PARAMETERS_PREFIX + "name");
+      builder.factoryOwner = configAttributes.get(FACTORY_PARAMETERS_PREFIX + "user");
+      builder.factoryUrl = configAttributes.get(FACTORY_PARAMETERS_PREFIX + "url");
+    }
+
+    builder.workspaceName = getWorkspaceName(config, workspace.getDevfile());
+    return builder.build();
+  }
+
+  /**
+   * @return whether the given factory id refers to a factory that should be
+   *         fetched
+   */
+  static boolean hasFactory(String factoryId) {
+    return factoryId != null && !"undefined".equals(factoryId);
+  }
+
+  /**
+   * @return the common properties of the events of this workspace
+   */
+  public Map<String, Object> toCommonProperties(String workspaceId) {
+    return CommonProperties.builder()
+        .put(EventProperties.CREATED, createdOn)
+        .put(EventProperties.WORKSPACE_ID, workspaceId)
+        .put(EventProperties.WORKSPACE_NAME, workspaceName)
+        .put(EventProperties.UPDATED, updatedOn)
+        .put(EventProperties.STOPPED, stoppedOn)
+        .put(EventProperties.AGE, age)
+        .put(EventProperties.RETURN_DELAY, returnDelay)
+        .put(EventProperties.FIRST_START, firstStart)
+        .put(EventProperties.STACK_ID, stackId)
+        .put(EventProperties.FACTORY_ID, factoryId)
+        .put(EventProperties.FACTORY_NAME, factoryName)
+        .put(EventProperties.FACTORY_URL, factoryUrl)
+        .put(EventProperties.FACTORY_OWNER, factoryOwner)
+        .put(EventProperties.LAST_WORKSPACE_FAILED, stoppedAbnormally)
+        .put(EventProperties.LAST_WORKSPACE_FAILURE, lastErrorMessage)
+        .put(EventProperties.SOURCE_TYPES, sourceTypes)
+        .put(EventProperties.START_NUMBER, startNumber)
+        .put(EventProperties.PLUGINS, String.join(", ", pluginNames))
+        .build();
+  }
+
+  public String getWorkspaceName() {
+    return workspaceName;
+  }
+
+  public String getStackId() {
+    return stackId;
+  }
+
+  public String getFactoryId() {
+    return factoryId;
+  }
+
+  public String getFactoryName() {
+    return factoryName;
+  }
+
+  public String getFactoryOwner() {
+    return factoryOwner;
+  }
+
+  public String getFactoryUrl() {
+    return factoryUrl;
+  }
+
+  public String getCreatedOn() {
+    return createdOn;
+  }
+
+  public String getUpdatedOn() {
+    return updatedOn;
+  }
+
+  public String getStoppedOn() {
+    return stoppedOn;
+  }
+
+  public String getStoppedAbnormally() {
+    return stoppedAbnormally;
+  }
+
+  public String getLastErrorMessage() {
+    return lastErrorMessage;
+  }
+
+  public String getSourceTypes() {
+    return sourceTypes;
+  }
+
+  public String getStartNumber() {
+    return startNumber;
+  }
+
+  public List<String> getPluginNames() {
+    return pluginNames;
+  }
+
+  public Long getAge() {
+    return age;
+  }
+
+  public Long getReturnDelay() {
+    return returnDelay;
+  }
+
+  public Boolean getFirstStart() {
+    return firstStart;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    WorkspaceMetadata other = (WorkspaceMetadata) o;
+    return Objects.equals(workspaceName, other.workspaceName) && Objects.equals(stackId, other.stackId)
+        && Objects.equals(factoryId, other.factoryId) && Objects.equals(factoryName, other.factoryName)
+        && Objects.equals(factoryOwner, other.factoryOwner) && Objects.equals(factoryUrl, other.factoryUrl)
+        && Objects.equals(createdOn, other.createdOn) && Objects.equals(updatedOn, other.updatedOn)
+        && Objects.equals(stoppedOn, other.stoppedOn) && Objects.equals(stoppedAbnormally, other.stoppedAbnormally)
+        && Objects.equals(lastErrorMessage, other.lastErrorMessage)
+        && Objects.equals(sourceTypes, other.sourceTypes) && Objects.equals(startNumber, other.startNumber)
+        && pluginNames.equals(other.pluginNames) && Objects.equals(age, other.age)
+        && Objects.equals(returnDelay, other.returnDelay) && Objects.equals(firstStart, other.firstStart);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(workspaceName, stackId, factoryId, factoryName, factoryOwner, factoryUrl, createdOn,
+        updatedOn, stoppedOn, stoppedAbnormally, lastErrorMessage, sourceTypes, startNumber, pluginNames, age,
+        returnDelay, firstStart);
+  }
+
+  private static Long getDateFromString(String fieldName, String date) {
+    Long parsedDate = null;
+    try {
+      parsedDate = parseLong(date);
+    } catch (NumberFormatException nfe) {
+      LOG.warn("the timestamp for " + fieldName + " is null or invalid: [" + date + "]");
+    }
+    return parsedDate;
+  }
+
+  private static Long getSecondsBetween(Long end, Long start) {
+    Long timeBetween = null;
+    if (end != null && start != null) {
+      timeBetween = (end - start) / 1000;
+    }
+    return timeBetween;
+  }
+
+  private static String getWorkspaceName(WorkspaceConfig config, Devfile devfile) {
+    String workspaceName;
+    if (config != null) {
+      workspaceName = config.getName();
+    } else if (devfile != null) {
+      workspaceName = devfile.getMetadata().getName();
+    } else {
+      workspaceName = null;
+    }
+    return workspaceName;
+  }
+
+  private static List<String> getPluginNames(Devfile devfile) {
+    List<? extends Component> components = devfile.getComponents();
+    return components.stream().filter((e -> e.getType().equals("chePlugin"))).map((e -> e.getId()))
+        .collect(Collectors.toList());
+  }
+
+  static final class Builder {
+    String workspaceName;
+    String stackId;
+    String factoryId;
+    String factoryName;
+    String factoryOwner;
+    String factoryUrl;
+    String createdOn;
+    String updatedOn;
+    String stoppedOn;
+    String stoppedAbnormally;
+    String lastErrorMessage;
+    String sourceTypes;
+    String startNumber;
+    List<String> pluginNames = Collections.emptyList();
+    Long age;
+    Long returnDelay;
+    Boolean firstStart;
+
+    WorkspaceMetadata build() {
+      return new WorkspaceMetadata(this);
+    }
+  }
+}
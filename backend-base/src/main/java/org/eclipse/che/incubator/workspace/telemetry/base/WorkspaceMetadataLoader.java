@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.che.api.core.ApiException;
+import org.eclipse.che.api.core.model.workspace.Workspace;
+import org.eclipse.che.api.core.rest.HttpJsonRequest;
+import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
+import org.eclipse.che.api.core.rest.HttpJsonResponse;
+import org.eclipse.che.api.factory.shared.dto.FactoryDto;
+import org.eclipse.che.api.workspace.shared.dto.WorkspaceDto;
+import org.slf4j.Logger;
+
+/**
+ * Fetches the workspace and its factory from the Che API, and resolves their
+ * {@link WorkspaceMetadata}. The time spent in each request is logged, and
+ * recorded in the {@link TelemetryMetrics}.
+ */
+final class WorkspaceMetadataLoader {
+  private static final Logger LOG = getLogger(WorkspaceMetadataLoader.class);
+
+  private static final int NOT_MODIFIED = 304;
+
+  private final HttpJsonRequestFactory requestFactory;
+  private final String workspaceEndpoint;
+  private final int timeoutMillis;
+  private final TelemetryMetrics metrics;
+
+  /*
+   * Validators of the last fetched workspace, and its factory. The loader is
+   * only used by one thread at a time.
+   */
+  private String entityTag;
+  private String lastModified;
+  private String factoryId;
+  private FactoryDto factory;
+
+  /**
+   * @param timeoutMillis timeout of each request, or 0 to use the default
+   *                      timeout of the request factory
+   */
+  WorkspaceMetadataLoader(HttpJsonRequestFactory requestFactory, String apiEndpoint, String workspaceId,
+      int timeoutMillis) {
+    this(requestFactory, apiEndpoint, workspaceId, timeoutMillis, new TelemetryMetrics());
+  }
+
+  /**
+   * @param metrics where the duration of the requests is recorded
+   */
+  WorkspaceMetadataLoader(HttpJsonRequestFactory requestFactory, String apiEndpoint, String workspaceId,
+      int timeoutMillis, TelemetryMetrics metrics) {
+    this.requestFactory = requestFactory;
+    this.workspaceEndpoint = apiEndpoint + "/workspace/" + workspaceId;
+    this.timeoutMillis = timeoutMillis;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Fetches the workspace, then its factory if it has one. A factory that can't
+   * be fetched is only logged.
+   *
+   * @throws IOException  if the workspace can't be fetched
+   * @throws ApiException if the Che API rejected the workspace request
+   */
+  WorkspaceMetadata load() throws IOException, ApiException {
+    return load(false);
+  }
+
+  /**
+   * Same as {@link #load()}, but sends the validators of the last fetched
+   * workspace, and reuses the last fetched factory while the workspace refers
+   * to the same one.
+   *
+   * @return the metadata, or <code>null</code> if the Che API reported that the
+   *         workspace was not modified
+   */
+  WorkspaceMetadata loadIfModified() throws IOException, ApiException {
+    return load(true);
+  }
+
+  private WorkspaceMetadata load(boolean conditional) throws IOException, ApiException {
+    long start = System.nanoTime();
+    HttpJsonRequest request = newRequest(workspaceEndpoint);
+    if (conditional && entityTag != null) {
+      request.addHeader("If-None-Match", entityTag);
+    }
+    if (conditional && lastModified != null) {
+      request.addHeader("If-Modified-Since", lastModified);
+    }
+    HttpJsonResponse response;
+    try {
+      response = request.request();
+    } catch (IOException e) {
+      if (conditional && isNotModified(e)) {
+        return null;
+      }
+      throw e;
+    } finally {
+      metrics.metadataRequested(TelemetryMetrics.WORKSPACE_REQUEST, System.nanoTime() - start);
+    }
+    if (response.getResponseCode() == NOT_MODIFIED) {
+      return null;
+    }
+    Workspace workspace = response.asDto(WorkspaceDto.class);
+    entityTag = getHeader(response, "ETag");
+    lastModified = getHeader(response, "Last-Modified");
+    long workspaceTime = elapsedMillis(start);
+
+    String factoryId = workspace.getAttributes().get("factoryId");
+    long factoryTime = 0;
+    if (!WorkspaceMetadata.hasFactory(factoryId)) {
+      factory = null;
+    } else if (!conditional || factory == null || !factoryId.equals(this.factoryId)) {
+      long factoryStart = System.nanoTime();
+      try {
+        factory = newRequest(workspaceEndpoint + "/factory/" + factoryId).request().asDto(FactoryDto.class);
+      } catch (Exception e) {
+        factory = null;
+        LOG.warn("Can't get workspace factory ('" + factoryId + "') information for Che analytics", e);
+      }
+      metrics.metadataRequested(TelemetryMetrics.FACTORY_REQUEST, System.nanoTime() - factoryStart);
+      factoryTime = elapsedMillis(factoryStart);
+    }
+    this.factoryId = factoryId;
+
+    WorkspaceMetadata metadata = WorkspaceMetadata.resolve(workspace, factory);
+    if (conditional) {
+      LOG.debug("Workspace metadata reloaded in {} ms (workspace: {} ms, factory: {} ms)", elapsedMillis(start),
+          workspaceTime, factoryTime);
+    } else {
+      LOG.info("Workspace metadata loaded in {} ms (workspace: {} ms, factory: {} ms)", elapsedMillis(start),
+          workspaceTime, factoryTime);
+    }
+    return metadata;
+  }
+
+  private HttpJsonRequest newRequest(String url) {
+    HttpJsonRequest request = requestFactory.fromUrl(url);
+    if (timeoutMillis > 0) {
+      request.setTimeout(timeoutMillis);
+    }
+    return request;
+  }
+
+  /**
+   * The default request implementation reports the responses without a JSON
+   * body and with a status other than 2xx as an <code>IOException</code>.
+   */
+  private static boolean isNotModified(IOException e) {
+    String message = e.getMessage();
+    return message != null && message.contains("response code: " + NOT_MODIFIED);
+  }
+
+  private static String getHeader(HttpJsonResponse response, String name) {
+    Map<String, List<String>> headers = response.getHeaders();
+    if (headers == null) {
+      return null;
+    }
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+        return header.getValue().get(0);
+      }
+    }
+    return null;
+  }
+
+  static long elapsedMillis(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+}
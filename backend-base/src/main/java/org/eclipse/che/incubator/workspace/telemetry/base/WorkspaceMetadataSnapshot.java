@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+/**
+ * Local file holding the last resolved {@link WorkspaceMetadata}, so that a
+ * restarted sidecar has the workspace properties before the Che API answers.
+ *
+ * The snapshot is keyed by the workspace id and its <code>updated</code>
+ * attribute: it is only read for the same workspace, and is meant to be
+ * revalidated against the Che API once read. It is a small binary file,
+ * memory-mapped when read, and replaced atomically when written.
+ */
+final class WorkspaceMetadataSnapshot {
+  private static final Logger LOG = getLogger(WorkspaceMetadataSnapshot.class);
+
+  private static final int MAGIC = 0xCE7E1E0D;
+  private static final int VERSION = 1;
+  private static final int MAX_SIZE = 1024 * 1024;
+
+  private final Path file;
+
+  WorkspaceMetadataSnapshot(Path file) {
+    this.file = file;
+  }
+
+  Path getFile() {
+    return file;
+  }
+
+  /**
+   * @return the metadata of the given workspace, or <code>null</code> if there
+   *         is no snapshot for it or the snapshot can't be read
+   */
+  WorkspaceMetadata read(String workspaceId) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > MAX_SIZE) {
+        LOG.warn("Ignoring the workspace metadata snapshot {}: it is too large", file);
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        LOG.warn("Ignoring the workspace metadata snapshot {}: unknown format", file);
+        return null;
+      }
+      if (!workspaceId.equals(readString(buffer))) {
+        return null;
+      }
+      return readMetadata(buffer);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+      LOG.warn("Can't read the workspace metadata snapshot " + file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the snapshot with the metadata of the given workspace.
+   *
+   * @return whether the snapshot was written
+   */
+  boolean write(String workspaceId, WorkspaceMetadata metadata) {
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      Files.createDirectories(parent);
+      Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+      try {
+        Files.write(temp, encode(workspaceId, metadata));
+        try {
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+      return true;
+    } catch (IOException e) {
+      LOG.warn("Can't write the workspace metadata snapshot " + file, e);
+      return false;
+    }
+  }
+
+  private static byte[] encode(String workspaceId, WorkspaceMetadata metadata) {
+    Encoder encoder = new Encoder();
+    encoder.putInt(MAGIC);
+    encoder.putInt(VERSION);
+    encoder.putString(workspaceId);
+    encoder.putString(metadata.getUpdatedOn());
+    encoder.putString(metadata.getWorkspaceName());
+    encoder.putString(metadata.getStackId());
+    encoder.putString(metadata.getFactoryId());
+    encoder.putString(metadata.getFactoryName());
+    encoder.putString(metadata.getFactoryOwner());
+    encoder.putString(metadata.getFactoryUrl());
+    encoder.putString(metadata.getCreatedOn());
+    encoder.putString(metadata.getStoppedOn());
+    encoder.putString(metadata.getStoppedAbnormally());
+    encoder.putString(metadata.getLastErrorMessage());
+    encoder.putString(metadata.getSourceTypes());
+    encoder.putString(metadata.getStartNumber());
+    encoder.putString(metadata.getAge() == null ? null : metadata.getAge().toString());
+    encoder.putString(metadata.getReturnDelay() == null ? null : metadata.getReturnDelay().toString());
+    encoder.putString(metadata.getFirstStart() == null ? null : metadata.getFirstStart().toString());
+    List<String> pluginNames = metadata.getPluginNames();
+    encoder.putInt(pluginNames.size());
+    for (String pluginName : pluginNames) {
+      encoder.putString(pluginName);
+    }
+    return encoder.toByteArray();
+  }
+
+  private static WorkspaceMetadata readMetadata(ByteBuffer buffer) {
+    WorkspaceMetadata.Builder builder = new WorkspaceMetadata.Builder();
+    builder.updatedOn = readString(buffer);
+    builder.workspaceName = readString(buffer);
+    builder.stackId = readString(buffer);
+    builder.factoryId = readString(buffer);
+    builder.factoryName = readString(buffer);
+    builder.factoryOwner = readString(buffer);
+    builder.factoryUrl = readString(buffer);
+    builder.createdOn = readString(buffer);
+    builder.stoppedOn = readString(buffer);
+    builder.stoppedAbnormally = readString(buffer);
+    builder.lastErrorMessage = readString(buffer);
+    builder.sourceTypes = readString(buffer);
+    builder.startNumber = readString(buffer);
+    String age = readString(buffer);
+    builder.age = age == null ? null : Long.valueOf(age);
+    String returnDelay = readString(buffer);
+    builder.returnDelay = returnDelay == null ? null : Long.valueOf(returnDelay);
+    String firstStart = readString(buffer);
+    builder.firstStart = firstStart == null ? null : Boolean.valueOf(firstStart);
+    int pluginCount = buffer.getInt();
+    if (pluginCount < 0 || pluginCount > buffer.remaining() / 4) {
+      throw new IllegalArgumentException("Invalid plugin count: " + pluginCount);
+    }
+    List<String> pluginNames = new ArrayList<>(pluginCount);
+    for (int i = 0; i < pluginCount; i++) {
+      pluginNames.add(readString(buffer));
+    }
+    builder.pluginNames = pluginNames;
+    return builder.build();
+  }
+
+  /**
+   * Strings are written as their UTF-8 length, or -1 for <code>null</code>,
+   * followed by their UTF-8 bytes.
+   */
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length == -1) {
+      return null;
+    }
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid string length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static final class Encoder {
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    void putInt(int value) {
+      ensureCapacity(4);
+      buffer.putInt(value);
+    }
+
+    void putString(String value) {
+      if (value == null) {
+        putInt(-1);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      putInt(bytes.length);
+      ensureCapacity(bytes.length);
+      buffer.put(bytes);
+    }
+
+    byte[] toByteArray() {
+      byte[] bytes = new byte[buffer.position()];
+      buffer.flip();
+      buffer.get(bytes);
+      return bytes;
+    }
+
+    private void ensureCapacity(int count) {
+      if (buffer.remaining() < count) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + count));
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+      }
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.AGE;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.CREATED;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.FACTORY_ID;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.FACTORY_NAME;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.FACTORY_OWNER;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.FACTORY_URL;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.FIRST_START;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.LAST_WORKSPACE_FAILED;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.LAST_WORKSPACE_FAILURE;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.OSIO_SPACE_ID;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.PLUGINS;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.PROGRAMMING_LANGUAGE;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.RETURN_DELAY;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.SOURCE_TYPES;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.STACK_ID;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.START_NUMBER;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.STOPPED;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.UPDATED;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.WORKSPACE_ID;
+import static org.eclipse.che.incubator.workspace.telemetry.base.EventProperties.WORKSPACE_NAME;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.EventPropertyMap;
+
+/**
+ * Compact binary encoding of events, for clients that send events at a high
+ * rate. A body is made of a header followed by one or more events:
+ *
+ * <pre>
+ * body     := 0xCE version(0x01) event+
+ * event    := code(type) [string(id) if code is 0]
+ *             nstring(ownerId) nstring(ip) nstring(agent) nstring(resolution)
+ *             varint(propertyCount) property*
+ * property := code(key) [string(key) if code is 0] nstring(value)
+ * nstring  := varint(0) for null, or varint(byteLength + 1) UTF-8 bytes
+ * </pre>
+ *
+ * Codes are unsigned LEB128 varints. Built-in event ids and the
+ * {@link org.eclipse.che.incubator.workspace.telemetry.base.EventProperties}
+ * keys have numeric codes, and code 0 is followed by the string of a custom
+ * event id or property key. The codes are shared with the TypeScript client:
+ * new codes should only be appended to the tables.
+ */
+public final class BinaryEventCodec {
+  public static final String MEDIA_TYPE = "application/vnd.che.telemetry.event+binary";
+
+  static final int MAGIC = 0xCE;
+  static final int VERSION = 1;
+  static final int MAX_STRING_LENGTH = 64 * 1024;
+  static final int MAX_PROPERTIES = 1024;
+
+  private static final String[] EVENT_IDS = { null, "WORKSPACE_STARTED", "WORKSPACE_OPENED", "WORKSPACE_USED",
+      "WORKSPACE_INACTIVE", "WORKSPACE_STOPPED", "EDITOR_USED", "PUSH_TO_REMOTE", "COMMIT_LOCALLY" };
+
+  private static final String[] PROPERTY_KEYS = { null, PROGRAMMING_LANGUAGE, WORKSPACE_ID, WORKSPACE_NAME,
+      STACK_ID, FACTORY_ID, FACTORY_NAME, FACTORY_OWNER, FACTORY_URL, CREATED, UPDATED, STOPPED, AGE, RETURN_DELAY,
+      FIRST_START, LAST_WORKSPACE_FAILED, LAST_WORKSPACE_FAILURE, OSIO_SPACE_ID, SOURCE_TYPES, START_NUMBER,
+      PLUGINS };
+
+  private static final Map<String, Integer> EVENT_CODES = codes(EVENT_IDS);
+  private static final Map<String, Integer> PROPERTY_CODES = codes(PROPERTY_KEYS);
+
+  private BinaryEventCodec() {
+  }
+
+  /**
+   * Reads and checks the header of a body.
+   */
+  public static void readHeader(InputStream input) throws IOException {
+    int magic = input.read();
+    int version = input.read();
+    if (magic != MAGIC) {
+      throw new MalformedEventException("Not a binary telemetry event body");
+    }
+    if (version != VERSION) {
+      throw new MalformedEventException("Unsupported binary telemetry event version: " + version);
+    }
+  }
+
+  /**
+   * Reads the next event of a body.
+   *
+   * @return the event, or <code>null</code> if the end of the body was reached
+   */
+  public static EventRecord readEvent(InputStream input) throws IOException {
+    int first = input.read();
+    if (first < 0) {
+      return null;
+    }
+    String id = readCoded(input, first, EVENT_IDS, "event id");
+    String ownerId = readString(input);
+    String ip = readString(input);
+    String agent = readString(input);
+    String resolution = readString(input);
+    int count = readVarint(input, input.read());
+    if (count > MAX_PROPERTIES) {
+      throw new MalformedEventException("Too many event properties: " + count);
+    }
+    EventPropertyMap properties = new EventPropertyMap(count);
+    for (int i = 0; i < count; i++) {
+      String key = readCoded(input, input.read(), PROPERTY_KEYS, "property key");
+      properties.put(key, readString(input));
+    }
+    return new EventRecord(id, ownerId, ip, agent, resolution, properties);
+  }
+
+  public static void writeHeader(OutputStream output) throws IOException {
+    output.write(MAGIC);
+    output.write(VERSION);
+  }
+
+  public static void writeEvent(EventRecord event, OutputStream output) throws IOException {
+    writeCoded(output, event.getId(), EVENT_CODES);
+    writeString(output, event.getOwnerId());
+    writeString(output, event.getIp());
+    writeString(output, event.getAgent());
+    writeString(output, event.getResolution());
+    EventPropertyMap properties = event.getProperties();
+    writeVarint(output, properties.size());
+    for (Map.Entry<String, Object> property : properties.entrySet()) {
+      writeCoded(output, property.getKey(), PROPERTY_CODES);
+      writeString(output, property.getValue() == null ? null : property.getValue().toString());
+    }
+  }
+
+  private static String readCoded(InputStream input, int first, String[] table, String what) throws IOException {
+    int code = readVarint(input, first);
+    if (code == 0) {
+      String value = readString(input);
+      if (value == null) {
+        throw new MalformedEventException("Missing custom " + what);
+      }
+      return value;
+    }
+    if (code >= table.length) {
+      throw new MalformedEventException("Unknown " + what + " code: " + code);
+    }
+    return table[code];
+  }
+
+  private static String readString(InputStream input) throws IOException {
+    int length = readVarint(input, input.read());
+    if (length == 0) {
+      return null;
+    }
+    length--;
+    if (length > MAX_STRING_LENGTH) {
+      throw new MalformedEventException("String too long: " + length + " bytes");
+    }
+    byte[] bytes = new byte[length];
+    int read = 0;
+    while (read < length) {
+      int n = input.read(bytes, read, length - read);
+      if (n < 0) {
+        throw new MalformedEventException("Unexpected end of the event");
+      }
+      read += n;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int readVarint(InputStream input, int first) throws IOException {
+    int value = 0;
+    int b = first;
+    for (int shift = 0;; shift += 7) {
+      if (b < 0) {
+        throw new MalformedEventException("Unexpected end of the event");
+      }
+      // The fifth byte holds the 4 high bits of the value, which can't be negative.
+      if (shift > 28 || shift == 28 && b > 0x07) {
+        throw new MalformedEventException("Invalid varint");
+      }
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      b = input.read();
+    }
+  }
+
+  private static void writeCoded(OutputStream output, String value, Map<String, Integer> codes) throws IOException {
+    Integer code = codes.get(value);
+    if (code != null) {
+      writeVarint(output, code);
+    } else {
+      writeVarint(output, 0);
+      writeString(output, value == null ? "" : value);
+    }
+  }
+
+  private static void writeString(OutputStream output, String value) throws IOException {
+    if (value == null) {
+      writeVarint(output, 0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(output, bytes.length + 1);
+    output.write(bytes);
+  }
+
+  private static void writeVarint(OutputStream output, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      output.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    output.write(value);
+  }
+
+  private static Map<String, Integer> codes(String[] table) {
+    Map<String, Integer> codes = new HashMap<>();
+    for (int i = 1; i < table.length; i++) {
+      codes.put(table[i], i);
+    }
+    return codes;
+  }
+}
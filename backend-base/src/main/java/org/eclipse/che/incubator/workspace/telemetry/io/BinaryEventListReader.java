@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Reads a {@link BinaryEventCodec binary} request body made of several events
+ * into a list of {@link EventRecord}s. Malformed bodies are rejected as a whole
+ * with a 400 response.
+ */
+@Provider
+@Consumes(BinaryEventCodec.MEDIA_TYPE)
+public class BinaryEventListReader implements MessageBodyReader<List<EventRecord>> {
+
+  @Override
+  public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return type == List.class && genericType instanceof ParameterizedType
+        && ((ParameterizedType) genericType).getActualTypeArguments()[0] == EventRecord.class;
+  }
+
+  @Override
+  public List<EventRecord> readFrom(Class<List<EventRecord>> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+    InputStream input = new BufferedInputStream(entityStream);
+    try {
+      BinaryEventCodec.readHeader(input);
+      List<EventRecord> events = new ArrayList<>();
+      EventRecord event;
+      while ((event = BinaryEventCodec.readEvent(input)) != null) {
+        events.add(event);
+      }
+      return events;
+    } catch (MalformedEventException e) {
+      throw EventRecordReader.badRequest(e);
+    }
+  }
+}
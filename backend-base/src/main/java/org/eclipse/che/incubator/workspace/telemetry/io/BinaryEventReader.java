@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Reads a {@link BinaryEventCodec binary} event request body into an
+ * {@link EventRecord}. Malformed bodies are rejected with a 400 response.
+ */
+@Provider
+@Consumes(BinaryEventCodec.MEDIA_TYPE)
+public class BinaryEventReader implements MessageBodyReader<EventRecord> {
+
+  @Override
+  public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return type == EventRecord.class;
+  }
+
+  @Override
+  public EventRecord readFrom(Class<EventRecord> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+    InputStream input = new BufferedInputStream(entityStream);
+    try {
+      BinaryEventCodec.readHeader(input);
+      EventRecord event = BinaryEventCodec.readEvent(input);
+      if (event == null) {
+        throw new MalformedEventException("Missing event");
+      }
+      if (input.read() >= 0) {
+        throw new MalformedEventException("Unexpected content after the event");
+      }
+      return event;
+    } catch (MalformedEventException e) {
+      throw EventRecordReader.badRequest(e);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.EventPropertyMap;
+
+/**
+ * Internal representation of a submitted telemetry event, with its properties
+ * already flattened into an {@link EventPropertyMap}.
+ *
+ * The wire format is described by
+ * {@link org.eclipse.che.incubator.workspace.telemetry.model.Event}.
+ */
+public final class EventRecord {
+
+  private final String id;
+  private final String ownerId;
+  private final String ip;
+  private final String agent;
+  private final String resolution;
+  private final EventPropertyMap properties;
+
+  public EventRecord(String id, String ownerId, String ip, String agent, String resolution,
+      EventPropertyMap properties) {
+    this.id = id;
+    this.ownerId = ownerId;
+    this.ip = ip;
+    this.agent = agent;
+    this.resolution = resolution;
+    this.properties = properties == null ? new EventPropertyMap(1) : properties;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getOwnerId() {
+    return ownerId;
+  }
+
+  public String getIp() {
+    return ip;
+  }
+
+  public String getAgent() {
+    return agent;
+  }
+
+  public String getResolution() {
+    return resolution;
+  }
+
+  public EventPropertyMap getProperties() {
+    return properties;
+  }
+
+  @Override
+  public String toString() {
+    return "EventRecord{id=" + id + ", ownerId=" + ownerId + ", ip=" + ip + ", agent=" + agent + ", resolution="
+        + resolution + ", properties=" + properties + "}";
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+import javax.ws.rs.core.MediaType;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.EventPropertyMap;
+
+/**
+ * Reads events in the JSON format of
+ * {@link org.eclipse.che.incubator.workspace.telemetry.model.Event} straight
+ * into {@link EventRecord}s, in a single pass over the JSON-P token stream and
+ * without any reflection.
+ *
+ * Unknown fields are skipped, but fields of the wrong type are rejected as soon
+ * as they are met, with a {@link MalformedEventException}.
+ */
+final class EventRecordParser {
+  private static final JsonParserFactory FACTORY = Json.createParserFactory(null);
+
+  private EventRecordParser() {
+  }
+
+  static JsonParser createParser(InputStream input, MediaType mediaType) {
+    String charset = mediaType == null ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+    return FACTORY.createParser(input, charset == null ? StandardCharsets.UTF_8 : charset(charset));
+  }
+
+  private static Charset charset(String name) {
+    try {
+      return Charset.forName(name);
+    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+      throw new MalformedEventException("Unsupported charset: " + name, e);
+    }
+  }
+
+  /**
+   * Reads a document made of a single event.
+   */
+  static EventRecord readEvent(JsonParser parser) {
+    try {
+      if (next(parser) != JsonParser.Event.START_OBJECT) {
+        throw new MalformedEventException("An event should be a JSON object");
+      }
+      EventRecord event = readEventFields(parser);
+      expectEnd(parser);
+      return event;
+    } catch (JsonException e) {
+      throw new MalformedEventException("Invalid JSON: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads a document made of an array of events. <code>null</code> elements
+   * are kept, so that they can be reported individually.
+   */
+  static List<EventRecord> readEvents(JsonParser parser) {
+    try {
+      if (next(parser) != JsonParser.Event.START_ARRAY) {
+        throw new MalformedEventException("A batch of events should be a JSON array");
+      }
+      List<EventRecord> events = new ArrayList<>();
+      for (;;) {
+        switch (next(parser)) {
+        case END_ARRAY:
+          expectEnd(parser);
+          return events;
+        case START_OBJECT:
+          events.add(readEventFields(parser));
+          break;
+        case VALUE_NULL:
+          events.add(null);
+          break;
+        default:
+          throw new MalformedEventException("Event " + events.size() + " should be a JSON object");
+        }
+      }
+    } catch (JsonException e) {
+      throw new MalformedEventException("Invalid JSON: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads the fields of an event whose <code>START_OBJECT</code> was just read,
+   * up to its <code>END_OBJECT</code>.
+   */
+  static EventRecord readEventFields(JsonParser parser) {
+    String id = null;
+    String ownerId = null;
+    String ip = null;
+    String agent = null;
+    String resolution = null;
+    EventPropertyMap properties = null;
+    while (next(parser) == JsonParser.Event.KEY_NAME) {
+      String field = parser.getString();
+      switch (field) {
+      case "id":
+        id = readString(parser, field);
+        break;
+      case "ownerId":
+        ownerId = readString(parser, field);
+        break;
+      case "ip":
+        ip = readString(parser, field);
+        break;
+      case "agent":
+        agent = readString(parser, field);
+        break;
+      case "resolution":
+        resolution = readString(parser, field);
+        break;
+      case "properties":
+        properties = readProperties(parser);
+        break;
+      default:
+        skipValue(parser);
+      }
+    }
+    return new EventRecord(id, ownerId, ip, agent, resolution, properties);
+  }
+
+  private static EventPropertyMap readProperties(JsonParser parser) {
+    JsonParser.Event event = next(parser);
+    if (event == JsonParser.Event.VALUE_NULL) {
+      return null;
+    }
+    if (event != JsonParser.Event.START_ARRAY) {
+      throw new MalformedEventException("Field 'properties' should be an array");
+    }
+    EventPropertyMap properties = new EventPropertyMap();
+    while ((event = next(parser)) != JsonParser.Event.END_ARRAY) {
+      if (event != JsonParser.Event.START_OBJECT) {
+        throw new MalformedEventException("An event property should be a JSON object");
+      }
+      String id = null;
+      String value = null;
+      while (next(parser) == JsonParser.Event.KEY_NAME) {
+        String field = parser.getString();
+        if ("id".equals(field)) {
+          id = readString(parser, "properties.id");
+        } else if ("value".equals(field)) {
+          value = readScalar(parser, "properties.value");
+        } else {
+          skipValue(parser);
+        }
+      }
+      if (id == null) {
+        throw new MalformedEventException("An event property should have an id");
+      }
+      properties.put(id, value);
+    }
+    return properties;
+  }
+
+  private static String readString(JsonParser parser, String field) {
+    switch (next(parser)) {
+    case VALUE_STRING:
+      return parser.getString();
+    case VALUE_NULL:
+      return null;
+    default:
+      throw new MalformedEventException("Field '" + field + "' should be a string");
+    }
+  }
+
+  /**
+   * Reads a string, or the text of a number or boolean.
+   */
+  private static String readScalar(JsonParser parser, String field) {
+    switch (next(parser)) {
+    case VALUE_STRING:
+    case VALUE_NUMBER:
+      return parser.getString();
+    case VALUE_TRUE:
+      return "true";
+    case VALUE_FALSE:
+      return "false";
+    case VALUE_NULL:
+      return null;
+    default:
+      throw new MalformedEventException("Field '" + field + "' should be a string");
+    }
+  }
+
+  private static void skipValue(JsonParser parser) {
+    switch (next(parser)) {
+    case START_OBJECT:
+      parser.skipObject();
+      break;
+    case START_ARRAY:
+      parser.skipArray();
+      break;
+    default:
+      break;
+    }
+  }
+
+  private static JsonParser.Event next(JsonParser parser) {
+    if (!parser.hasNext()) {
+      throw new MalformedEventException("Unexpected end of the event");
+    }
+    return parser.next();
+  }
+
+  private static void expectEnd(JsonParser parser) {
+    if (parser.hasNext()) {
+      throw new MalformedEventException("Unexpected content after the event");
+    }
+  }
+}
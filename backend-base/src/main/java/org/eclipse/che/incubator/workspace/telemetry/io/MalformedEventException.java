@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+/**
+ * Thrown when a submitted event doesn't match the expected structure.
+ */
+public class MalformedEventException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public MalformedEventException(String message) {
+    super(message);
+  }
+
+  public MalformedEventException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
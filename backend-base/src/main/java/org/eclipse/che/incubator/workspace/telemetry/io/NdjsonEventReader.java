@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a stream of newline-delimited JSON events incrementally: each line is
+ * handed over as soon as it has been read, and memory stays bounded by the
+ * maximum line length whatever the length of the stream.
+ *
+ * Blank lines are ignored. A malformed or too long line is reported to the
+ * handler, and reading goes on with the next line.
+ */
+public final class NdjsonEventReader {
+  public static final String MEDIA_TYPE = "application/x-ndjson";
+  public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+  /**
+   * Receives the lines of the stream. Line numbers start at 1.
+   */
+  public interface Handler {
+    void onEvent(int line, EventRecord event);
+
+    void onError(int line, String message);
+  }
+
+  private final InputStream input;
+  private final int maxLineLength;
+  private final byte[] chunk = new byte[8192];
+  private byte[] line = new byte[512];
+  private int length;
+  private boolean overflow;
+  private int lineNumber;
+
+  public NdjsonEventReader(InputStream input) {
+    this(input, MAX_LINE_LENGTH);
+  }
+
+  public NdjsonEventReader(InputStream input, int maxLineLength) {
+    this.input = input;
+    this.maxLineLength = maxLineLength;
+  }
+
+  /**
+   * Reads the whole stream.
+   */
+  public void readAll(Handler handler) throws IOException {
+    int read;
+    while ((read = input.read(chunk)) >= 0) {
+      int start = 0;
+      for (int i = 0; i < read; i++) {
+        if (chunk[i] == '\n') {
+          append(start, i);
+          endLine(handler);
+          start = i + 1;
+        }
+      }
+      append(start, read);
+    }
+    if (length > 0 || overflow) {
+      endLine(handler);
+    }
+  }
+
+  private void append(int from, int to) {
+    int count = to - from;
+    if (count == 0 || overflow) {
+      return;
+    }
+    if (length + count > maxLineLength) {
+      overflow = true;
+      return;
+    }
+    if (length + count > line.length) {
+      line = Arrays.copyOf(line, Math.min(maxLineLength, Math.max(line.length * 2, length + count)));
+    }
+    System.arraycopy(chunk, from, line, length, count);
+    length += count;
+  }
+
+  private void endLine(Handler handler) {
+    lineNumber++;
+    try {
+      if (overflow) {
+        handler.onError(lineNumber, "Line is longer than " + maxLineLength + " bytes");
+      } else if (!isBlank()) {
+        EventRecord event = EventRecordParser.readEvent(
+            EventRecordParser.createParser(new ByteArrayInputStream(line, 0, length), null));
+        handler.onEvent(lineNumber, event);
+      }
+    } catch (MalformedEventException e) {
+      handler.onError(lineNumber, e.getMessage());
+    } finally {
+      length = 0;
+      overflow = false;
+    }
+  }
+
+  private boolean isBlank() {
+    for (int i = 0; i < length; i++) {
+      byte b = line[i];
+      if (b != ' ' && b != '\t' && b != '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Che Workspace Telemetry API
+ * This is the API of the Che workspace telemetry manager
+ *
+ */
+
+package org.eclipse.che.incubator.workspace.telemetry.model;
+
+import java.util.Objects;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(
+  title = "Event result definition",
+  description = "Outcome of the submission of a single event of a batch or stream."
+)
+public class EventResult {
+
+  public String id;
+  public int status;
+  public String message;
+  public Integer line;
+
+  public EventResult() {
+  }
+
+  public EventResult(String id, int status, String message) {
+    this.id = id;
+    this.status = status;
+    this.message = message;
+  }
+
+  public EventResult(String id, int status, String message, Integer line) {
+    this(id, status, message);
+    this.line = line;
+  }
+
+  @Schema(
+    description = "Identifier of the event type, as submitted",
+    example = "EDITOR_USED"
+  )
+  public String getId() {
+    return id;
+  }
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  @Schema(
+    description = "HTTP-like status code of the event submission",
+    required = true,
+    example = "200"
+  )
+  public int getStatus() {
+    return status;
+  }
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  @Schema(
+    description = "Reason of the failure, if the event was not submitted",
+    example = "Unknown event id"
+  )
+  public String getMessage() {
+    return message;
+  }
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  @Schema(
+    description = "Line of the event, if it was submitted in a stream",
+    example = "3"
+  )
+  public Integer getLine() {
+    return line;
+  }
+  public void setLine(Integer line) {
+    this.line = line;
+  }
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    EventResult eventResult = (EventResult) o;
+    return Objects.equals(this.id, eventResult.id) &&
+        this.status == eventResult.status &&
+        Objects.equals(this.message, eventResult.message) &&
+        Objects.equals(this.line, eventResult.line);
+  }
+
+  @Override
+  public int hashCode() {
+    return java.util.Objects.hash(id, status, message, line);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class EventResult {\n");
+
+    sb.append("    id: ").append(toIndentedString(id)).append("\n");
+    sb.append("    status: ").append(toIndentedString(status)).append("\n");
+    sb.append("    message: ").append(toIndentedString(message)).append("\n");
+    sb.append("    line: ").append(toIndentedString(line)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+}
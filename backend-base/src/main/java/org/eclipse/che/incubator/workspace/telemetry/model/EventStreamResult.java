@@ -0,0 +1,110 @@
+/*
+ * Che Workspace Telemetry API
+ * This is the API of the Che workspace telemetry manager
+ *
+ */
+
+package org.eclipse.che.incubator.workspace.telemetry.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(
+  title = "Event stream result definition",
+  description = "Outcome of the submission of a stream of events."
+)
+public class EventStreamResult {
+
+  public int received;
+  public int accepted;
+  public List<EventResult> errors = new ArrayList<EventResult>();
+
+  public EventStreamResult() {
+  }
+
+  public EventStreamResult(int received, int accepted, List<EventResult> errors) {
+    this.received = received;
+    this.accepted = accepted;
+    this.errors = errors;
+  }
+
+  @Schema(
+    description = "Number of non-empty lines read from the stream",
+    required = true,
+    example = "120"
+  )
+  public int getReceived() {
+    return received;
+  }
+  public void setReceived(int received) {
+    this.received = received;
+  }
+
+  @Schema(
+    description = "Number of events that were submitted",
+    required = true,
+    example = "118"
+  )
+  public int getAccepted() {
+    return accepted;
+  }
+  public void setAccepted(int accepted) {
+    this.accepted = accepted;
+  }
+
+  @Schema(
+    description = "Results of the lines that could not be submitted, in stream order. Only the first errors are reported",
+    required = true
+  )
+  public List<EventResult> getErrors() {
+    return errors;
+  }
+  public void setErrors(List<EventResult> errors) {
+    this.errors = errors;
+  }
+
+  @Override
+  public boolean equals(java.lang.Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    EventStreamResult eventStreamResult = (EventStreamResult) o;
+    return this.received == eventStreamResult.received &&
+        this.accepted == eventStreamResult.accepted &&
+        Objects.equals(this.errors, eventStreamResult.errors);
+  }
+
+  @Override
+  public int hashCode() {
+    return java.util.Objects.hash(received, accepted, errors);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class EventStreamResult {\n");
+
+    sb.append("    received: ").append(toIndentedString(received)).append("\n");
+    sb.append("    accepted: ").append(toIndentedString(accepted)).append("\n");
+    sb.append("    errors: ").append(toIndentedString(errors)).append("\n");
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Convert the given object to string with each line indented by 4 spaces
+   * (except the first line).
+   */
+  private String toIndentedString(java.lang.Object o) {
+    if (o == null) {
+      return "null";
+    }
+    return o.toString().replace("\n", "\n    ");
+  }
+}
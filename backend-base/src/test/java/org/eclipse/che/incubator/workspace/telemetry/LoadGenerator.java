@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.AnalyticsEvent;
+
+/**
+ * Drives the <code>/event</code> and <code>/activity</code> endpoints of a
+ * running telemetry sidecar from a number of client threads, and reports the
+ * throughput, the latency percentiles and, when the sidecar runs in the same
+ * JVM, the bytes allocated per request.
+ *
+ * It is configured with system properties:
+ * <ul>
+ * <li><code>load.duration</code>: measured duration, in seconds (30)</li>
+ * <li><code>load.warmup</code>: warm-up duration, in seconds (10)</li>
+ * <li><code>load.concurrency</code>: number of client threads (8)</li>
+ * <li><code>load.mix</code>: weights of the requests, as a comma-separated
+ * list of <code>EVENT=weight</code> where <code>EVENT</code> is an
+ * {@link AnalyticsEvent} or <code>activity</code>
+ * (<code>EDITOR_USED=60,COMMIT_LOCALLY=10,PUSH_TO_REMOTE=5,WORKSPACE_OPENED=5,activity=20</code>)</li>
+ * <li><code>load.cardinality</code>: number of distinct values of the event
+ * properties, which drives the number of distinct events seen by the debounce
+ * (100)</li>
+ * </ul>
+ */
+final class LoadGenerator {
+
+  static final String ACTIVITY = "activity";
+
+  private static final String DEFAULT_MIX = "EDITOR_USED=60,COMMIT_LOCALLY=10,PUSH_TO_REMOTE=5,WORKSPACE_OPENED=5,"
+      + ACTIVITY + "=20";
+
+  /**
+   * Latencies are recorded in log-linear buckets: 2^SUB_BUCKET_BITS buckets
+   * per power of two, which is a precision of about 3%.
+   */
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final String baseUrl;
+  private final long warmupNanos;
+  private final long durationNanos;
+  private final int concurrency;
+  private final int cardinality;
+  private final String[] requestNames;
+  private final int[] cumulativeWeights;
+  /** Bodies of each event of the mix, by property value; null for the activity. */
+  private final byte[][][] bodies;
+
+  LoadGenerator(String baseUrl) {
+    this.baseUrl = baseUrl;
+    this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.getLong("load.warmup", 10));
+    this.durationNanos = TimeUnit.SECONDS.toNanos(Long.getLong("load.duration", 30));
+    this.concurrency = Integer.getInteger("load.concurrency", 8);
+    this.cardinality = Math.max(1, Integer.getInteger("load.cardinality", 100));
+
+    String[] entries = System.getProperty("load.mix", DEFAULT_MIX).split(",");
+    requestNames = new String[entries.length];
+    cumulativeWeights = new int[entries.length];
+    int total = 0;
+    for (int i = 0; i < entries.length; i++) {
+      String[] entry = entries[i].trim().split("=");
+      requestNames[i] = entry[0].trim();
+      if (!ACTIVITY.equals(requestNames[i])) {
+        AnalyticsEvent.valueOf(requestNames[i]);
+      }
+      total += entry.length > 1 ? Integer.parseInt(entry[1].trim()) : 1;
+      cumulativeWeights[i] = total;
+    }
+    bodies = new byte[requestNames.length][][];
+    for (int i = 0; i < requestNames.length; i++) {
+      bodies[i] = ACTIVITY.equals(requestNames[i]) ? null : eventBodies(requestNames[i]);
+    }
+  }
+
+  /**
+   * Report of a load test run.
+   */
+  static final class Report {
+    final int concurrency;
+    final String mix;
+    final int cardinality;
+    long requests;
+    long errors;
+    double seconds;
+    long p50Nanos;
+    long p99Nanos;
+    long p999Nanos;
+    long maxNanos;
+    /** Bytes allocated by the sidecar per request, or -1 if unknown. */
+    long allocatedBytesPerRequest = -1;
+
+    Report(int concurrency, String mix, int cardinality) {
+      this.concurrency = concurrency;
+      this.mix = mix;
+      this.cardinality = cardinality;
+    }
+
+    double getThroughput() {
+      return requests / seconds;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+          "concurrency=%d%nmix=%s%ncardinality=%d%nrequests=%d%nerrors=%d%nthroughput=%.1f req/s%n"
+              + "p50=%.3f ms%np99=%.3f ms%np99.9=%.3f ms%nmax=%.3f ms%nallocated=%s%n",
+          concurrency, mix, cardinality, requests, errors, getThroughput(), p50Nanos / 1e6, p99Nanos / 1e6,
+          p999Nanos / 1e6, maxNanos / 1e6,
+          allocatedBytesPerRequest < 0 ? "n/a" : allocatedBytesPerRequest + " B/req");
+    }
+  }
+
+  /**
+   * Runs the warm-up, then the measured load.
+   *
+   * @param inProcess whether the sidecar runs in this JVM, in which case the
+   *                  bytes it allocates are measured
+   */
+  Report run(boolean inProcess) throws InterruptedException {
+    run(warmupNanos, null);
+    Report report = new Report(concurrency, String.join(",", describeMix()), cardinality);
+    AllocationCounter allocations = inProcess ? AllocationCounter.create() : null;
+    long before = allocations != null ? allocations.allocatedBytes() : 0;
+    run(durationNanos, report);
+    if (allocations != null) {
+      // The client threads started after the first sample, and ended before this one: neither counts them.
+      long serverBytes = allocations.allocatedBytes() - before;
+      report.allocatedBytesPerRequest = report.requests > 0 ? Math.max(0, serverBytes) / report.requests : 0;
+    }
+    return report;
+  }
+
+  private String[] describeMix() {
+    String[] mix = new String[requestNames.length];
+    for (int i = 0; i < mix.length; i++) {
+      mix[i] = requestNames[i] + "=" + (cumulativeWeights[i] - (i > 0 ? cumulativeWeights[i - 1] : 0));
+    }
+    return mix;
+  }
+
+  private void run(long nanos, Report report) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    Worker[] workers = new Worker[concurrency];
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < concurrency; i++) {
+      workers[i] = new Worker(start);
+      Thread thread = new Thread(workers[i], "load-generator-" + i);
+      threads.add(thread);
+      thread.start();
+    }
+    long startTime = System.nanoTime();
+    for (Worker worker : workers) {
+      worker.deadline = startTime + nanos;
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (report != null) {
+      report.seconds = (System.nanoTime() - startTime) / 1e9;
+      long[] latencies = new long[BUCKETS];
+      for (Worker worker : workers) {
+        report.requests += worker.requests;
+        report.errors += worker.errors;
+        report.maxNanos = Math.max(report.maxNanos, worker.maxNanos);
+        for (int i = 0; i < BUCKETS; i++) {
+          latencies[i] += worker.latencies[i];
+        }
+      }
+      report.p50Nanos = percentile(latencies, report.requests, 0.5);
+      report.p99Nanos = percentile(latencies, report.requests, 0.99);
+      report.p999Nanos = percentile(latencies, report.requests, 0.999);
+    }
+  }
+
+  private static int bucket(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) Math.max(0, nanos);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) ((nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long bucketValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    return (1L << exponent) | ((long) (bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS));
+  }
+
+  private static long percentile(long[] latencies, long count, double percentile) {
+    long rank = (long) Math.ceil(count * percentile);
+    long seen = 0;
+    for (int i = 0; i < latencies.length; i++) {
+      seen += latencies[i];
+      if (seen >= rank && seen > 0) {
+        return bucketValue(i);
+      }
+    }
+    return 0;
+  }
+
+  private byte[][] eventBodies(String event) {
+    byte[][] bodies = new byte[cardinality][];
+    for (int i = 0; i < cardinality; i++) {
+      bodies[i] = ("{\"id\":\"" + event + "\",\"ownerId\":\"load-generator\",\"ip\":\"127.0.0.1\","
+          + "\"agent\":\"load-generator\",\"resolution\":\"1920x1080\",\"properties\":["
+          + "{\"id\":\"programming language\",\"value\":\"language-" + i + "\"},"
+          + "{\"id\":\"file extension\",\"value\":\".ext" + i + "\"}]}").getBytes(StandardCharsets.UTF_8);
+    }
+    return bodies;
+  }
+
+  private final class Worker implements Runnable {
+    private final CountDownLatch start;
+    private final byte[] buffer = new byte[1024];
+    final long[] latencies = new long[BUCKETS];
+    volatile long deadline;
+    long requests;
+    long errors;
+    long maxNanos;
+
+    Worker(CountDownLatch start) {
+      this.start = start;
+    }
+
+    @Override
+    public void run() {
+      try {
+        start.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+      long now;
+      while ((now = System.nanoTime()) < deadline) {
+        int pick = random.nextInt(totalWeight);
+        int request = 0;
+        while (cumulativeWeights[request] <= pick) {
+          request++;
+        }
+        boolean ok;
+        if (bodies[request] == null) {
+          ok = post("/telemetry/activity", "application/x-www-form-urlencoded", null);
+        } else {
+          ok = post("/telemetry/event", "application/json", bodies[request][random.nextInt(cardinality)]);
+        }
+        long latency = System.nanoTime() - now;
+        latencies[bucket(latency)]++;
+        maxNanos = Math.max(maxNanos, latency);
+        requests++;
+        if (!ok) {
+          errors++;
+        }
+      }
+    }
+
+    private boolean post(String path, String contentType, byte[] body) {
+      try {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", contentType);
+        connection.setDoOutput(true);
+        if (body != null) {
+          connection.setFixedLengthStreamingMode(body.length);
+          try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+          }
+        } else {
+          connection.setFixedLengthStreamingMode(0);
+          connection.getOutputStream().close();
+        }
+        int status = connection.getResponseCode();
+        // Reads the whole response, so that the connection is kept alive.
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+          if (in != null) {
+            while (in.read(buffer) >= 0) {
+              // discard
+            }
+          }
+        }
+        return status == 200;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Reads the bytes allocated by the threads of this JVM, with the HotSpot
+   * extension of the thread management bean. Threads that ended are not
+   * counted.
+   */
+  private static final class AllocationCounter {
+    private final com.sun.management.ThreadMXBean threads;
+
+    private AllocationCounter(com.sun.management.ThreadMXBean threads) {
+      this.threads = threads;
+    }
+
+    static AllocationCounter create() {
+      java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+        if (hotSpotThreads.isThreadAllocatedMemorySupported()) {
+          hotSpotThreads.setThreadAllocatedMemoryEnabled(true);
+          return new AllocationCounter(hotSpotThreads);
+        }
+      }
+      return null;
+    }
+
+    long allocatedBytes() {
+      long total = 0;
+      for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+        if (allocated > 0) {
+          total += allocated;
+        }
+      }
+      return total;
+    }
+  }
+}
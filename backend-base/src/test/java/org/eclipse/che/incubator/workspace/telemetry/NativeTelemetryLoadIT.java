@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry;
+
+import io.quarkus.test.junit.NativeImageTest;
+
+/**
+ * Load test of the native runner, run by the <code>native</code> and
+ * <code>loadTests</code> profiles together. The bytes allocated by the runner
+ * are not measured.
+ *
+ * The native runner doesn't contain the test stand-ins, and the system
+ * properties of the test don't reach its process: the profile runs it offline
+ * with environment variables, which the runner inherits, setting a Che API
+ * that can't be reached and deferring the workspace metadata, so that it
+ * starts without it.
+ */
+@NativeImageTest
+public class NativeTelemetryLoadIT extends TelemetryLoadIT {
+
+  @Override
+  protected String runner() {
+    return "native";
+  }
+
+  @Override
+  protected boolean inProcess() {
+    return false;
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+import org.eclipse.che.incubator.workspace.telemetry.base.AnalyticsEvent;
+import org.eclipse.che.incubator.workspace.telemetry.base.CountingAnalyticsManager;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventType;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReactiveTelemetryRoutesTest {
+
+  /**
+   * Analytics manager recording the thread on which it is called.
+   */
+  private static class ThreadRecordingAnalyticsManager extends CountingAnalyticsManager {
+    private final boolean blocking;
+    volatile String eventThread;
+    volatile String activityThread;
+
+    ThreadRecordingAnalyticsManager(boolean blocking) {
+      this.blocking = blocking;
+      activityCoalesceMillis = 0;
+    }
+
+    @Override
+    public boolean isBlocking() {
+      return blocking;
+    }
+
+    @Override
+    public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+        Map<String, Object> properties) {
+      eventThread = Thread.currentThread().getName();
+    }
+
+    @Override
+    public void onActivity() {
+      activityThread = Thread.currentThread().getName();
+    }
+  }
+
+  private Vertx vertx;
+  private int port;
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    if (vertx != null) {
+      CompletableFuture<Void> closed = new CompletableFuture<>();
+      vertx.close(done -> closed.complete(null));
+      closed.get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void testNonBlockingManagerRunsOnTheEventLoop() throws Exception {
+    ThreadRecordingAnalyticsManager manager = start(false);
+
+    assertEquals(200, post("/event", "application/json", "{\"id\":\"COMMIT_LOCALLY\",\"ownerId\":\"git\"}"));
+    assertEquals(200, post("/activity", "application/x-www-form-urlencoded", ""));
+
+    assertTrue(manager.eventThread.startsWith("vert.x-eventloop-thread"), manager.eventThread);
+    assertTrue(manager.activityThread.startsWith("vert.x-eventloop-thread"), manager.activityThread);
+  }
+
+  @Test
+  public void testBlockingManagerRunsOnAWorkerThread() throws Exception {
+    ThreadRecordingAnalyticsManager manager = start(true);
+
+    assertEquals(200, post("/event", "application/json", "{\"id\":\"PUSH_TO_REMOTE\",\"ownerId\":\"git\"}"));
+
+    assertTrue(manager.eventThread.startsWith("vert.x-worker-thread"), manager.eventThread);
+  }
+
+  @Test
+  public void testFullBlockingDispatcherRunsOnAWorkerThread() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    ThreadRecordingAnalyticsManager manager = new ThreadRecordingAnalyticsManager(false) {
+      @Override
+      public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+          Map<String, Object> properties) {
+        super.onEvent(event, ownerId, ip, userAgent, resolution, properties);
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    TelemetryResource resource = new TelemetryResource();
+    resource.asyncEnabled = true;
+    resource.asyncCapacity = 2;
+    resource.asyncOverflowPolicy = "BLOCK";
+    start(manager, resource);
+    // one event held by the consumer, and two filling the buffer
+    for (String owner : new String[] { "a", "b", "c" }) {
+      assertTrue(resource.eventDispatcher.dispatch(EventType.of(AnalyticsEvent.COMMIT_LOCALLY), owner, null, null,
+          null, Collections.emptyMap()));
+    }
+
+    CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(() -> {
+      try {
+        return post("/event", "application/json", "{\"id\":\"COMMIT_LOCALLY\",\"ownerId\":\"d\"}");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    // the event loop still serves the other requests
+    assertEquals(200, post("/activity", "application/x-www-form-urlencoded", ""));
+    assertFalse(blocked.isDone());
+
+    release.countDown();
+    assertEquals(200, blocked.get(10, TimeUnit.SECONDS).intValue());
+    resource.eventDispatcher.shutdown();
+  }
+
+  @Test
+  public void testEventDroppedByAFullBufferIsRejected() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    ThreadRecordingAnalyticsManager manager = new ThreadRecordingAnalyticsManager(false) {
+      @Override
+      public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+          Map<String, Object> properties) {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        super.onEvent(event, ownerId, ip, userAgent, resolution, properties);
+      }
+    };
+    TelemetryResource resource = new TelemetryResource();
+    resource.asyncEnabled = true;
+    resource.asyncCapacity = 2;
+    resource.asyncOverflowPolicy = "DROP_NEWEST";
+    start(manager, resource);
+    // one event held by the consumer, and two filling the buffer
+    int accepted = 0;
+    for (int i = 0; i < 10 && accepted < 3; i++) {
+      if (resource.eventDispatcher.dispatch(EventType.of(AnalyticsEvent.COMMIT_LOCALLY), "owner-" + i, null, null,
+          null, Collections.emptyMap())) {
+        accepted++;
+      }
+      Thread.sleep(10);
+    }
+    assertEquals(3, accepted);
+
+    assertEquals(503, post("/event", "application/json", "{\"id\":\"COMMIT_LOCALLY\",\"ownerId\":\"d\"}"));
+    assertEquals(503, resource.event(new EventRecord("PUSH_TO_REMOTE", "e", null, null, null, null)).getStatus());
+
+    release.countDown();
+    resource.eventDispatcher.shutdown();
+  }
+
+  @Test
+  public void testInvalidEvents() throws Exception {
+    start(false);
+
+    assertEquals(400, post("/event", "application/json", "{\"id\":\"NOT_AN_EVENT\"}"));
+    assertEquals(400, post("/event", "application/json", "not json"));
+    assertEquals(400, post("/event", "application/vnd.che.telemetry.event+binary", "not binary"));
+  }
+
+  private ThreadRecordingAnalyticsManager start(boolean blocking) throws Exception {
+    return start(new ThreadRecordingAnalyticsManager(blocking), new TelemetryResource());
+  }
+
+  private ThreadRecordingAnalyticsManager start(ThreadRecordingAnalyticsManager manager, TelemetryResource resource)
+      throws Exception {
+    resource.analyticsManager = manager;
+    resource.init();
+
+    vertx = Vertx.vertx();
+    ReactiveTelemetryRoutes routes = new ReactiveTelemetryRoutes();
+    routes.telemetryResource = resource;
+    routes.analyticsManager = manager;
+    routes.vertx = vertx;
+    Router router = Router.router(vertx);
+    routes.init(router);
+
+    CompletableFuture<HttpServer> server = new CompletableFuture<>();
+    vertx.createHttpServer().requestHandler(router).listen(0, done -> {
+      if (done.succeeded()) {
+        server.complete(done.result());
+      } else {
+        server.completeExceptionally(done.cause());
+      }
+    });
+    port = server.get(10, TimeUnit.SECONDS).actualPort();
+    return manager;
+  }
+
+  private int post(String path, String contentType, String body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(
+        "http://localhost:" + port + ReactiveTelemetryRoutes.PATH + path).openConnection();
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Type", contentType);
+    connection.setDoOutput(true);
+    try (OutputStream out = connection.getOutputStream()) {
+      out.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+    return connection.getResponseCode();
+  }
+}
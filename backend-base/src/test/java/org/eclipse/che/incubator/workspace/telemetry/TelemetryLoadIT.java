@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the telemetry sidecar, run by the <code>loadTests</code>
+ * profile. The sidecar answers the workspace requests with the
+ * <code>MockBaseConfiguration</code> stand-ins, so that it runs offline.
+ *
+ * The report is printed, and written to
+ * <code>target/load-report-jvm.txt</code>, to compare releases and runners.
+ * See {@link LoadGenerator} for the settings.
+ */
+@QuarkusTest
+public class TelemetryLoadIT {
+
+  @BeforeAll
+  public static void setUp() {
+    System.setProperty("che.api.internal", "http://fake-che.com/api");
+    System.setProperty("che.workspace.id", "fake-workspace");
+    System.setProperty("che.machine.token", "fake-token");
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    System.clearProperty("che.api.internal");
+    System.clearProperty("che.workspace.id");
+    System.clearProperty("che.machine.token");
+  }
+
+  /**
+   * @return the name of the runner in the report file name
+   */
+  protected String runner() {
+    return "jvm";
+  }
+
+  /**
+   * @return whether the sidecar runs in the JVM of the test, so that the bytes
+   *         it allocates can be measured
+   */
+  protected boolean inProcess() {
+    return true;
+  }
+
+  @Test
+  public void testLoad() throws InterruptedException, IOException {
+    LoadGenerator generator = new LoadGenerator(RestAssured.baseURI + ":" + RestAssured.port);
+    LoadGenerator.Report report = generator.run(inProcess());
+
+    String text = "runner=" + runner() + System.lineSeparator() + report;
+    System.out.print(text);
+    Path file = Paths.get(System.getProperty("load.report.dir", "target"), "load-report-" + runner() + ".txt");
+    Files.createDirectories(file.getParent());
+    Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+    assertTrue(report.requests > 0);
+    assertEquals(0, report.errors);
+  }
+}
@@ -12,15 +12,22 @@
 package org.eclipse.che.incubator.workspace.telemetry;
 
 import io.quarkus.test.junit.QuarkusTest;
-import org.eclipse.che.incubator.workspace.telemetry.model.Event;
-import org.eclipse.che.incubator.workspace.telemetry.model.EventProperty;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventPropertyMap;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecord;
+import org.eclipse.che.incubator.workspace.telemetry.model.EventResult;
+import org.eclipse.che.incubator.workspace.telemetry.model.EventStreamResult;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
+import javax.ws.rs.core.Response;
 
-import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,11 +57,58 @@ public class TelemetryResourceTest {
     assertEquals("", response);
   }
 
+  @Test
+  public void testMetrics() {
+    EventRecord e = new EventRecord("EDITOR_USED", "1", "127.0.0.1", "curl", "", new EventPropertyMap());
+    telemetryResource.event(e);
+
+    String metrics = telemetryResource.metrics();
+    assertTrue(metrics.contains("# TYPE che_telemetry_events_received_total counter\n"));
+    assertTrue(metrics.contains("che_telemetry_on_event_duration_seconds_bucket{le=\"+Inf\"} "));
+  }
+
   @Test
   public void testEvent() {
-    ArrayList<EventProperty> properties = new ArrayList<>();
-    Event e = new Event("WORKSPACE_STARTED", "1", "127.0.0.1", "curl", "", properties);
-    String response = telemetryResource.event(e);
-    assertEquals("", response);
+    EventRecord e = new EventRecord("WORKSPACE_STARTED", "1", "127.0.0.1", "curl", "", new EventPropertyMap());
+    Response response = telemetryResource.event(e);
+    assertEquals(200, response.getStatus());
+    assertEquals("", response.getEntity());
+  }
+
+  @Test
+  public void testUnknownEvent() {
+    EventRecord e = new EventRecord("NOT_AN_EVENT", "1", "127.0.0.1", "curl", "", new EventPropertyMap());
+    Response response = telemetryResource.event(e);
+    assertEquals(400, response.getStatus());
+  }
+
+  @Test
+  public void testEvents() {
+    List<EventRecord> events = Arrays.asList(
+      new EventRecord("EDITOR_USED", "1", "127.0.0.1", "curl", "", new EventPropertyMap()),
+      new EventRecord("NOT_AN_EVENT", "1", "127.0.0.1", "curl", "", new EventPropertyMap()),
+      new EventRecord("COMMIT_LOCALLY", "1", "127.0.0.1", "curl", "", new EventPropertyMap()));
+    List<EventResult> results = telemetryResource.events(events);
+    assertEquals(3, results.size());
+    assertEquals(200, results.get(0).getStatus());
+    assertEquals(400, results.get(1).getStatus());
+    assertEquals("NOT_AN_EVENT", results.get(1).getId());
+    assertEquals(200, results.get(2).getStatus());
+  }
+
+  @Test
+  public void testEventsStream() throws IOException {
+    String body = "{\"id\":\"PUSH_TO_REMOTE\",\"ownerId\":\"git\"}\n"
+      + "{\"id\":\"NOT_AN_EVENT\"}\n"
+      + "not json\n"
+      + "{\"id\":\"COMMIT_LOCALLY\",\"ownerId\":\"git\"}\n";
+    EventStreamResult result = telemetryResource.eventsStream(
+      new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(4, result.getReceived());
+    assertEquals(2, result.getAccepted());
+    assertEquals(2, result.getErrors().size());
+    assertEquals(Integer.valueOf(2), result.getErrors().get(0).getLine());
+    assertEquals("NOT_AN_EVENT", result.getErrors().get(0).getId());
+    assertEquals(Integer.valueOf(3), result.getErrors().get(1).getLine());
   }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.anonymizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class AnonymizersTest {
+
+  @Test
+  public void testDigests() {
+    assertEquals("ded736438647e25487ef37c6c6ca2420ef0072db", Anonymizers.sha1().anonymize("test-username"));
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        Anonymizers.create("SHA256", null).anonymize("abc"));
+    assertNull(Anonymizers.sha1().anonymize(null));
+  }
+
+  @Test
+  public void testHmac() {
+    assertEquals("5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843",
+        Anonymizers.hmacSha256("Jefe").anonymize("what do ya want for nothing?"));
+    assertThrows(IllegalArgumentException.class, () -> Anonymizers.create(Anonymizers.HMAC_SHA_256, ""));
+    assertThrows(IllegalArgumentException.class, () -> Anonymizers.create("md5", null));
+  }
+
+  @Test
+  public void testMemoizingKeepsRecentValues() {
+    AtomicInteger calls = new AtomicInteger();
+    Anonymizer sha1 = Anonymizers.sha1();
+    Anonymizer anonymizer = Anonymizers.memoizing(input -> {
+      calls.incrementAndGet();
+      return sha1.anonymize(input);
+    }, 2);
+
+    assertEquals(sha1.anonymize("a"), anonymizer.anonymize("a"));
+    anonymizer.anonymize("b");
+    anonymizer.anonymize("a");
+    anonymizer.anonymize("c");
+    assertEquals(3, calls.get());
+
+    anonymizer.anonymize("a");
+    assertEquals(3, calls.get());
+    anonymizer.anonymize("b");
+    assertEquals(4, calls.get());
+  }
+
+  @Test
+  public void testMemoizingIsThreadSafe() throws Exception {
+    Anonymizer sha1 = Anonymizers.sha1();
+    Anonymizer anonymizer = Anonymizers.memoizing(sha1, 64);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    Future<?>[] results = new Future<?>[8];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = executor.submit(() -> {
+        for (int j = 0; j < 10000; j++) {
+          String input = "user-" + (j % 200);
+          assertEquals(sha1.anonymize(input), anonymizer.anonymize(input));
+        }
+        return null;
+      });
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+  }
+}
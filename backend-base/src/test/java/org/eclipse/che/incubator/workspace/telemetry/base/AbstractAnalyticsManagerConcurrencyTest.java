@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class AbstractAnalyticsManagerConcurrencyTest {
+  private static final int THREADS = 8;
+  private static final int EVENTS_PER_THREAD = 1000;
+
+  @Test
+  public void testConcurrentIdenticalEventsAreSentOnce() throws InterruptedException {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.debounceTimeMillis = 3600000;
+
+    runConcurrently(() -> manager.doSendEvent(AnalyticsEvent.COMMIT_LOCALLY, "owner", "127.0.0.1", "agent", "",
+        Collections.emptyMap()));
+
+    assertEquals(1, manager.sentEvents.get());
+    assertEquals(THREADS * EVENTS_PER_THREAD - 1, manager.suppressedEvents.get());
+  }
+
+  @Test
+  public void testConcurrentEventsAreNotLostWithoutDebounce() throws InterruptedException {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.debounceTimeMillis = 0;
+
+    runConcurrently(() -> manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "owner", "127.0.0.1", "agent", "",
+        Collections.singletonMap(EventProperties.PROGRAMMING_LANGUAGE, "java")));
+
+    assertEquals(THREADS * EVENTS_PER_THREAD, manager.sentEvents.get());
+    assertEquals(0, manager.suppressedEvents.get());
+  }
+
+  @Test
+  public void testConcurrentWorkspaceOpenedStartsWorkspaceOnce() throws InterruptedException {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    AtomicInteger started = new AtomicInteger();
+
+    runConcurrently(() -> {
+      if (manager.transformEvent(AnalyticsEvent.WORKSPACE_OPENED, "user") == AnalyticsEvent.WORKSPACE_STARTED) {
+        started.incrementAndGet();
+      }
+    });
+
+    assertEquals(1, started.get());
+    assertEquals("user", manager.workspaceStartingUserId);
+  }
+
+  @Test
+  public void testConcurrentActivitiesAreCoalesced() throws InterruptedException {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.activityCoalesceMillis = 3600000;
+
+    runConcurrently(manager::recordActivity);
+
+    assertEquals(1, manager.activities.get());
+    assertEquals(THREADS * EVENTS_PER_THREAD, manager.getActivityCount());
+  }
+
+  @Test
+  public void testConcurrentActivitiesAreAllReportedWithoutCoalescing() throws InterruptedException {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.activityCoalesceMillis = 0;
+
+    runConcurrently(manager::recordActivity);
+
+    assertEquals(THREADS * EVENTS_PER_THREAD, manager.activities.get());
+    assertEquals(0, manager.coalescedActivities.get());
+  }
+
+  @Test
+  public void testCoalescedActivitiesAreReportedToTheNextCallback() throws InterruptedException {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.activityCoalesceMillis = 100;
+
+    for (int i = 0; i < 10; i++) {
+      manager.recordActivity();
+    }
+    Thread.sleep(150);
+    manager.recordActivity();
+
+    assertEquals(2, manager.activities.get());
+    assertEquals(9, manager.coalescedActivities.get());
+  }
+
+  private void runConcurrently(Runnable action) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    for (int i = 0; i < THREADS; i++) {
+      executor.submit(() -> {
+        start.await();
+        for (int j = 0; j < EVENTS_PER_THREAD; j++) {
+          action.run();
+        }
+        return null;
+      });
+    }
+    start.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+  }
+}
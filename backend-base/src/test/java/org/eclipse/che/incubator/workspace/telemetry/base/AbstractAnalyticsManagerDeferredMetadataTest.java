@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.che.api.core.rest.DefaultHttpJsonRequestFactory;
+import org.eclipse.che.api.core.rest.HttpJsonRequest;
+import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.junit.jupiter.api.Test;
+
+public class AbstractAnalyticsManagerDeferredMetadataTest {
+
+  @Test
+  public void testEventsAreQueuedUntilMetadataIsLoaded() throws InterruptedException {
+    CountDownLatch available = new CountDownLatch(1);
+    RecordingAnalyticsManager manager = new RecordingAnalyticsManager(delayedRequestFactory(available, 0));
+    manager.start();
+
+    assertTrue(manager.isWorkspaceMetadataPending());
+    assertNull(manager.workspaceName);
+    manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "owner", "127.0.0.1", "agent", "",
+        Collections.singletonMap(EventProperties.PROGRAMMING_LANGUAGE, "java"));
+    assertTrue(manager.sentProperties.isEmpty());
+
+    available.countDown();
+    manager.awaitEvents(1);
+
+    assertFalse(manager.isWorkspaceMetadataPending());
+    assertEquals("wksp-lqq9", manager.workspaceName);
+    Map<String, Object> sent = manager.sentProperties.get(0);
+    assertEquals("java", sent.get(EventProperties.PROGRAMMING_LANGUAGE));
+    assertEquals("wksp-lqq9", sent.get(EventProperties.WORKSPACE_NAME));
+    assertEquals("Go", sent.get(EventProperties.STACK_ID));
+  }
+
+  @Test
+  public void testMetadataLoadingIsRetried() throws InterruptedException {
+    RecordingAnalyticsManager manager = new RecordingAnalyticsManager(
+        delayedRequestFactory(new CountDownLatch(0), 1));
+    manager.start();
+
+    manager.doSendEvent(AnalyticsEvent.COMMIT_LOCALLY, "owner", "127.0.0.1", "agent", "", Collections.emptyMap());
+    manager.awaitEvents(1);
+
+    assertEquals("wksp-lqq9", manager.sentProperties.get(0).get(EventProperties.WORKSPACE_NAME));
+  }
+
+  @Test
+  public void testMetadataIsLoadedOnceTheManagerIsStarted() throws InterruptedException {
+    RecordingAnalyticsManager manager = new RecordingAnalyticsManager(
+        delayedRequestFactory(new CountDownLatch(0), 0)) {
+      final AtomicInteger updates = new AtomicInteger();
+
+      @Override
+      protected void onWorkspaceMetadata(WorkspaceMetadata metadata) {
+        // fails if called before the constructor of this class initialized the counter
+        sentProperties.add(Collections.singletonMap("updates", updates.incrementAndGet()));
+      }
+    };
+    manager.doSendEvent(AnalyticsEvent.COMMIT_LOCALLY, "owner", "127.0.0.1", "agent", "", Collections.emptyMap());
+    Thread.sleep(100);
+    assertTrue(manager.isWorkspaceMetadataPending());
+    assertTrue(manager.sentProperties.isEmpty());
+
+    manager.start();
+    manager.awaitEvents(2);
+
+    assertEquals(1, manager.sentProperties.get(0).get("updates"));
+  }
+
+  /**
+   * @return a request factory backed by the mock workspace response, whose
+   *         requests wait for <code>available</code> and fail
+   *         <code>failures</code> times first
+   */
+  private static HttpJsonRequestFactory delayedRequestFactory(CountDownLatch available, int failures) {
+    HttpJsonRequestFactory mockFactory = new MockBaseConfiguration().requestFactory();
+    AtomicInteger remainingFailures = new AtomicInteger(failures);
+    return new DefaultHttpJsonRequestFactory() {
+      @Override
+      public HttpJsonRequest fromUrl(String url) {
+        HttpJsonRequest request = mockFactory.fromUrl(url);
+        return (HttpJsonRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { HttpJsonRequest.class }, (proxy, method, args) -> {
+              if (method.getName().equals("request")) {
+                available.await();
+                if (remainingFailures.getAndDecrement() > 0) {
+                  throw new IOException("Che API unavailable");
+                }
+              }
+              try {
+                return method.invoke(request, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+      }
+
+      @Override
+      public HttpJsonRequest fromLink(Link link) {
+        return fromUrl(link.getHref());
+      }
+    };
+  }
+
+  private static class RecordingAnalyticsManager extends CountingAnalyticsManager {
+    final List<Map<String, Object>> sentProperties = Collections.synchronizedList(new ArrayList<>());
+
+    RecordingAnalyticsManager(HttpJsonRequestFactory requestFactory) {
+      super(requestFactory, true);
+    }
+
+    @Override
+    public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+        Map<String, Object> properties) {
+      super.onEvent(event, ownerId, ip, userAgent, resolution, properties);
+      sentProperties.add(properties);
+    }
+
+    void awaitEvents(int count) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (sentProperties.size() < count && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(count, sentProperties.size());
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.spi.ConfigProviderResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.smallrye.config.PropertiesConfigSource;
+
+public class AbstractAnalyticsManagerShutdownTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testShutdownStopsTheThreadsOfTheBaseClass() throws InterruptedException {
+    CountingAnalyticsManager manager;
+    ConfigProviderResolver resolver = ConfigProviderResolver.instance();
+    Config config = resolver.getBuilder().withSources(new PropertiesConfigSource(properties(
+        "che.telemetry.wal.enabled", "true",
+        "che.telemetry.wal.dir", directory.toString(),
+        "che.telemetry.activity-tracking.enabled", "true"), "test", 500)).build();
+    resolver.registerConfig(config, Thread.currentThread().getContextClassLoader());
+    try {
+      manager = new CountingAnalyticsManager();
+    } finally {
+      resolver.releaseConfig(config);
+    }
+    assertFalse(manager.isEventLogEnabled());
+    manager.start();
+    assertTrue(manager.isEventLogEnabled());
+    manager.recordActivity();
+    manager.doSendEvent(AnalyticsEvent.COMMIT_LOCALLY, "owner", null, null, null, Collections.emptyMap());
+    for (int i = 0; i < 100 && manager.sentEvents.get() == 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, manager.sentEvents.get());
+    assertTrue(threadNames().containsAll(Arrays.asList("telemetry-activity-timer", "telemetry-event-log")));
+
+    manager.shutdown();
+    manager.shutdown();
+
+    for (int i = 0; i < 100 && threadNames().contains("telemetry-activity-timer"); i++) {
+      Thread.sleep(10);
+    }
+    Set<String> threads = threadNames();
+    assertFalse(threads.contains("telemetry-activity-timer"), threads.toString());
+    assertFalse(threads.contains("telemetry-event-log"), threads.toString());
+    assertEquals(0, manager.getEventLogBacklog());
+  }
+
+  private static Map<String, String> properties(String... keysAndValues) {
+    Map<String, String> properties = new HashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      properties.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return properties;
+  }
+
+  private static Set<String> threadNames() {
+    return Thread.getAllStackTraces().keySet().stream().filter(Thread::isAlive).map(Thread::getName)
+        .collect(Collectors.toSet());
+  }
+}
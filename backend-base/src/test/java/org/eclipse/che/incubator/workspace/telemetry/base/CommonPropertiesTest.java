@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class CommonPropertiesTest {
+
+  @Test
+  public void testSlotsAndExtras() {
+    CommonProperties properties = CommonProperties.builder()
+        .put(EventProperties.WORKSPACE_ID, "workspace")
+        .put(EventProperties.AGE, 12L)
+        .put(EventProperties.STACK_ID, null)
+        .put("custom", "value")
+        .build();
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put(EventProperties.WORKSPACE_ID, "workspace");
+    expected.put(EventProperties.AGE, 12L);
+    expected.put("custom", "value");
+
+    assertEquals(expected, properties);
+    assertEquals(expected.hashCode(), properties.hashCode());
+    assertFalse(properties.containsKey(EventProperties.STACK_ID));
+    assertEquals(CommonProperties.EMPTY.size(), 0);
+  }
+
+  @Test
+  public void testEventPropertiesOverlayCommonProperties() {
+    CommonProperties common = CommonProperties.builder()
+        .put(EventProperties.WORKSPACE_ID, "workspace")
+        .put(EventProperties.PLUGINS, "a, b")
+        .build();
+    EventPropertyMap event = new EventPropertyMap();
+    event.put(EventProperties.PROGRAMMING_LANGUAGE, "java");
+    event.put(EventProperties.PLUGINS, "c");
+    event.put(EventProperties.PROGRAMMING_LANGUAGE, "go");
+
+    Map<String, Object> merged = new MergedProperties(common, event);
+
+    Map<String, Object> expected = new HashMap<>();
+    expected.put(EventProperties.WORKSPACE_ID, "workspace");
+    expected.put(EventProperties.PLUGINS, "c");
+    expected.put(EventProperties.PROGRAMMING_LANGUAGE, "go");
+
+    assertEquals(expected, merged);
+    assertEquals(3, merged.size());
+    assertEquals(3, merged.entrySet().stream().count());
+    assertEquals("c", merged.get(EventProperties.PLUGINS));
+    assertNull(merged.get(EventProperties.STACK_ID));
+    assertThrows(UnsupportedOperationException.class, () -> merged.put("key", "value"));
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.spi.ConfigProviderResolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.smallrye.config.PropertiesConfigSource;
+
+public class CompositeAnalyticsManagerTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Sink that blocks in <code>onEvent</code> until it is released or
+   * interrupted.
+   */
+  private static class BlockingAnalyticsManager extends CountingAnalyticsManager {
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+        Map<String, Object> properties) {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException("Interrupted", e);
+      }
+      super.onEvent(event, ownerId, ip, userAgent, resolution, properties);
+    }
+  }
+
+  @Test
+  public void testSlowSinkDoesNotDelayTheOthers() throws InterruptedException {
+    BlockingAnalyticsManager slow = new BlockingAnalyticsManager();
+    CountingAnalyticsManager fast = new CountingAnalyticsManager();
+    Map<String, AbstractAnalyticsManager> sinks = new LinkedHashMap<>();
+    sinks.put("slow", slow);
+    sinks.put("fast", fast);
+    CompositeAnalyticsManager composite = new CompositeAnalyticsManager("http://fake-che.com/api",
+        "fake-workspace", "", new MockBaseConfiguration().requestFactory(), sinks);
+    composite.activityCoalesceMillis = 0;
+
+    composite.doSendEvent(AnalyticsEvent.COMMIT_LOCALLY, "owner", null, null, null, Collections.emptyMap());
+    composite.doSendEvent(AnalyticsEvent.PUSH_TO_REMOTE, "owner", null, null, null, Collections.emptyMap());
+    composite.recordActivity();
+
+    assertTrue(await(() -> fast.sentEvents.get() == 2 && fast.activities.get() == 1));
+    assertEquals(0, slow.sentEvents.get());
+    assertEquals(2, composite.getSinks().get(0).getQueueSize());
+
+    slow.release.countDown();
+    assertTrue(await(() -> slow.sentEvents.get() == 2 && slow.activities.get() == 1));
+    assertEquals(2, composite.getSinks().get(0).getDeliveryPolicy().getDeliveredCount());
+    assertEquals(2, composite.getSinks().get(1).getDeliveryPolicy().getDeliveredCount());
+    composite.shutdown();
+  }
+
+  @Test
+  public void testSinkTimeoutFailsTheDelivery() throws InterruptedException {
+    BlockingAnalyticsManager hanging = new BlockingAnalyticsManager();
+    TimerWheel watchdog = new TimerWheel("test-watchdog", 10, 64);
+    CompositeAnalyticsManager.Sink sink = new CompositeAnalyticsManager.Sink("hanging", hanging, 8, 100, watchdog);
+
+    long start = System.nanoTime();
+    sink.submit(() -> sink.deliver(EventType.of(AnalyticsEvent.EDITOR_USED), "owner", null, null, null,
+        Collections.emptyMap(), sink.getDeliveryPolicy().getMaxAttempts()));
+
+    assertTrue(await(() -> sink.getDeliveryPolicy().getDroppedCount() == 1 && sink.getTimedOutCount() == 1));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+    assertEquals(1, sink.getDeliveryPolicy().getFailedCount());
+    sink.shutdown();
+    watchdog.stop();
+  }
+
+  @Test
+  public void testSinkStuckInACallIsReplaced() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    CountingAnalyticsManager stuck = new CountingAnalyticsManager() {
+      @Override
+      public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+          Map<String, Object> properties) {
+        // like blocking socket I/O, ignores the interrupts
+        while ("stuck".equals(ownerId) && release.getCount() > 0) {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            // ignored
+          }
+        }
+        super.onEvent(event, ownerId, ip, userAgent, resolution, properties);
+      }
+    };
+    TimerWheel watchdog = new TimerWheel("test-watchdog", 10, 64);
+    CompositeAnalyticsManager.Sink sink = new CompositeAnalyticsManager.Sink("stuck", stuck, 8, 100, watchdog);
+
+    sink.submit(() -> sink.deliver(EventType.of(AnalyticsEvent.COMMIT_LOCALLY), "stuck", null, null, null,
+        Collections.emptyMap(), sink.getDeliveryPolicy().getMaxAttempts()));
+    sink.submit(() -> sink.deliver(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "owner", null, null, null,
+        Collections.emptyMap(), 1));
+
+    assertTrue(await(() -> stuck.sentEvents.get() == 1));
+    assertEquals(1, sink.getTimedOutCount());
+    assertEquals(1, sink.getAbandonedWorkerCount());
+
+    release.countDown();
+    assertTrue(await(() -> sink.getAbandonedWorkerCount() == 0));
+    assertEquals(2, stuck.sentEvents.get());
+    sink.shutdown();
+    watchdog.stop();
+  }
+
+  @Test
+  public void testSinkMetrics() throws InterruptedException {
+    CountingAnalyticsManager sink = new CountingAnalyticsManager();
+    CompositeAnalyticsManager composite = new CompositeAnalyticsManager("http://fake-che.com/api",
+        "fake-workspace", "", new MockBaseConfiguration().requestFactory(),
+        Collections.singletonMap("warehouse", sink));
+
+    composite.doSendEvent(AnalyticsEvent.COMMIT_LOCALLY, "owner", null, null, null, Collections.emptyMap());
+    assertTrue(await(() -> sink.sentEvents.get() == 1));
+    String metrics = TelemetryMetrics.scrape(composite, new SynchronousEventDispatcher(composite));
+
+    assertTrue(metrics.contains("\nche_telemetry_sink_delivered_total{sink=\"warehouse\"} 1\n"), metrics);
+    assertTrue(metrics.contains("\nche_telemetry_sink_circuit_breaker_open{sink=\"warehouse\"} 0\n"));
+    composite.shutdown();
+  }
+
+  @Test
+  public void testSinksDontReplayTheEventLog() throws Exception {
+    EventLog log = new EventLog(directory, 64 * 1024, 1024 * 1024);
+    log.append(new LoggedEvent("COMMIT_LOCALLY", "owner", null, null, null, Collections.emptyMap()).encode());
+    log.close();
+    Map<String, CountingAnalyticsManager> sinks = new LinkedHashMap<>();
+    CompositeAnalyticsManager composite;
+    Config config = registerEventLogConfig();
+    try {
+      sinks.put("first", new CountingAnalyticsManager());
+      sinks.put("second", new CountingAnalyticsManager());
+      composite = new CompositeAnalyticsManager("http://fake-che.com/api", "fake-workspace", "",
+          new MockBaseConfiguration().requestFactory(), sinks);
+    } finally {
+      ConfigProviderResolver.instance().releaseConfig(config);
+    }
+    composite.start();
+    CountingAnalyticsManager first = sinks.get("first");
+    CountingAnalyticsManager second = sinks.get("second");
+
+    assertTrue(composite.isEventLogEnabled());
+    assertFalse(first.isEventLogEnabled());
+    assertFalse(second.isEventLogEnabled());
+    assertTrue(await(() -> first.sentEvents.get() == 1 && second.sentEvents.get() == 1));
+    composite.doSendEvent(AnalyticsEvent.PUSH_TO_REMOTE, "owner", null, null, null, Collections.emptyMap());
+    assertTrue(await(() -> first.sentEvents.get() == 2 && second.sentEvents.get() == 2));
+    Thread.sleep(200);
+    assertEquals(2, first.sentEvents.get());
+    assertEquals(2, second.sentEvents.get());
+    composite.shutdown();
+
+    EventLog reopened = new EventLog(directory, 64 * 1024, 1024 * 1024);
+    assertEquals(reopened.getEndPosition(), reopened.getCommittedPosition());
+    reopened.close();
+  }
+
+  @Test
+  public void testSinkWithItsOwnEventLogIsRejected() {
+    CountingAnalyticsManager sink;
+    Config config = registerEventLogConfig();
+    try {
+      sink = new CountingAnalyticsManager();
+    } finally {
+      ConfigProviderResolver.instance().releaseConfig(config);
+    }
+    sink.start();
+    TimerWheel watchdog = new TimerWheel("test-watchdog", 10, 64);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> new CompositeAnalyticsManager.Sink("logged", sink, 8, 100, watchdog));
+    sink.shutdown();
+    watchdog.stop();
+  }
+
+  private Config registerEventLogConfig() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("che.telemetry.wal.enabled", "true");
+    properties.put("che.telemetry.wal.dir", directory.toString());
+    properties.put("che.telemetry.wal.segment-size", String.valueOf(64 * 1024));
+    properties.put("che.telemetry.wal.max-size", String.valueOf(1024 * 1024));
+    ConfigProviderResolver resolver = ConfigProviderResolver.instance();
+    Config config = resolver.getBuilder().withSources(new PropertiesConfigSource(properties, "test", 500)).build();
+    resolver.registerConfig(config, Thread.currentThread().getContextClassLoader());
+    return config;
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(10);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
+
+/**
+ * Analytics manager backed by the mock workspace response, that only counts
+ * the calls it receives.
+ */
+public class CountingAnalyticsManager extends AbstractAnalyticsManager {
+
+  final AtomicInteger activities = new AtomicInteger();
+  final AtomicLong coalescedActivities = new AtomicLong();
+  final AtomicInteger sentEvents = new AtomicInteger();
+  final AtomicInteger suppressedEvents = new AtomicInteger();
+
+  public CountingAnalyticsManager() {
+    super("http://fake-che.com/api", "fake-workspace", "", new MockBaseConfiguration().requestFactory());
+  }
+
+  public CountingAnalyticsManager(HttpJsonRequestFactory requestFactory, boolean deferredMetadata) {
+    super("http://fake-che.com/api", "fake-workspace", "", requestFactory, deferredMetadata);
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public void onActivity() {
+    activities.incrementAndGet();
+  }
+
+  @Override
+  public void onActivity(long coalescedCount) {
+    coalescedActivities.addAndGet(coalescedCount);
+    super.onActivity(coalescedCount);
+  }
+
+  @Override
+  public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+    sentEvents.incrementAndGet();
+  }
+
+  @Override
+  public void increaseDuration(AnalyticsEvent event, Map<String, Object> properties) {
+    suppressedEvents.incrementAndGet();
+  }
+
+  @Override
+  public void destroy() {
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class DebounceTableTest {
+  private static final Map<String, Object> JAVA = Collections.singletonMap(EventProperties.PROGRAMMING_LANGUAGE, "java");
+  private static final Map<String, Object> GO = Collections.singletonMap(EventProperties.PROGRAMMING_LANGUAGE, "go");
+
+  @Test
+  public void testInterleavedEventsAreDebounced() {
+    DebounceTable table = new DebounceTable();
+
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", JAVA, 60000, 16));
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-2", JAVA, 60000, 16));
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.COMMIT_LOCALLY), "editor-1", JAVA, 60000, 16));
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", GO, 60000, 16));
+
+    assertNotNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", JAVA, 60000, 16));
+    assertNotNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-2", JAVA, 60000, 16));
+    DebounceTable.Entry suppressed = table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", JAVA, 60000, 16);
+    assertEquals(2, suppressed.suppressedCount);
+    assertTrue(suppressed.suppressedSpan() >= 0);
+    // COMMIT_LOCALLY has no property to check
+    assertNotNull(table.debounce(EventType.of(AnalyticsEvent.COMMIT_LOCALLY), "editor-1", GO, 60000, 16));
+  }
+
+  @Test
+  public void testExpiredEventIsSentAgain() {
+    DebounceTable table = new DebounceTable();
+
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", JAVA, 0, 16));
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", JAVA, 0, 16));
+  }
+
+  @Test
+  public void testEventsExpireAfterTheDebounceTimeOfTheirType() {
+    DebounceTable table = new DebounceTable();
+
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", JAVA, 60000, 2));
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.COMMIT_LOCALLY), "git", null, 0, 2));
+    // a full table: the COMMIT_LOCALLY entry is expired, but not the EDITOR_USED one
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "git", null, 0, 2));
+
+    assertNotNull(table.debounce(EventType.of(AnalyticsEvent.EDITOR_USED), "editor-1", JAVA, 60000, 2));
+  }
+
+  @Test
+  public void testTableIsBounded() {
+    DebounceTable table = new DebounceTable();
+
+    for (int i = 0; i < 100; i++) {
+      assertNull(table.debounce(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "owner-" + i, null, 60000, 10));
+    }
+    assertTrue(table.size() <= 10);
+  }
+
+  @Test
+  public void testFullTableEvictsABatchOfTheEntriesClosestToExpire() {
+    DebounceTable table = new DebounceTable();
+
+    for (int i = 0; i < 16; i++) {
+      assertNull(table.debounce(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "owner-" + i, null, 60000 + i, 16));
+    }
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "owner-16", null, 60000, 16));
+
+    // an eighth of the table was freed, starting with the entries closest to expire
+    assertEquals(15, table.size());
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "owner-0", null, 60000, 16));
+    assertNull(table.debounce(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "owner-1", null, 60000, 16));
+    assertNotNull(table.debounce(EventType.of(AnalyticsEvent.PUSH_TO_REMOTE), "owner-2", null, 60000, 16));
+  }
+
+  @Test
+  public void testSuppressedEventsAreReportedToManager() {
+    int[] lastCount = new int[1];
+    CountingAnalyticsManager manager = new CountingAnalyticsManager() {
+      @Override
+      public void increaseDuration(AnalyticsEvent event, Map<String, Object> properties, int suppressedCount,
+          long suppressedSpanMillis) {
+        lastCount[0] = suppressedCount;
+        super.increaseDuration(event, properties, suppressedCount, suppressedSpanMillis);
+      }
+    };
+
+    manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "editor-1", null, null, null, JAVA);
+    manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "editor-2", null, null, null, JAVA);
+    manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "editor-1", null, null, null, JAVA);
+    manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "editor-2", null, null, null, JAVA);
+    manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "editor-1", null, null, null, JAVA);
+
+    assertEquals(2, manager.sentEvents.get());
+    assertEquals(3, manager.suppressedEvents.get());
+    assertEquals(2, lastCount[0]);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.DeliveryPolicy.State;
+import org.junit.jupiter.api.Test;
+
+public class DeliveryPolicyTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  public void testConcurrentDeliveries() throws InterruptedException {
+    DeliveryPolicy policy = new DeliveryPolicy(3, 100, 1000, 10, 5, 5000, now::get);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 1000; j++) {
+          assertTrue(policy.allowAttempt());
+          policy.onSuccess();
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(8000, policy.getDeliveredCount());
+    assertEquals(State.CLOSED, policy.getState());
+
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 100; j++) {
+          policy.onFailure();
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(800, policy.getFailedCount());
+    assertEquals(1, policy.getOpenedCount());
+    assertEquals(State.OPEN, policy.getState());
+  }
+
+  @Test
+  public void testCircuitBreakerOpensAndProbes() {
+    DeliveryPolicy policy = new DeliveryPolicy(3, 100, 1000, 10, 2, 5000, now::get);
+
+    assertTrue(policy.allowAttempt());
+    policy.onFailure();
+    assertTrue(policy.allowAttempt());
+    policy.onFailure();
+    assertEquals(State.OPEN, policy.getState());
+    assertFalse(policy.allowAttempt());
+    assertEquals(5000, policy.getRetryAfterMillis());
+
+    now.set(5000);
+    assertTrue(policy.allowAttempt());
+    assertEquals(State.HALF_OPEN, policy.getState());
+    assertFalse(policy.allowAttempt());
+    policy.onFailure();
+    assertEquals(State.OPEN, policy.getState());
+
+    now.set(10000);
+    assertTrue(policy.allowAttempt());
+    policy.onSuccess();
+    assertEquals(State.CLOSED, policy.getState());
+    assertTrue(policy.allowAttempt());
+
+    assertEquals(2, policy.getOpenedCount());
+    assertEquals(2, policy.getRejectedCount());
+    assertEquals(3, policy.getFailedCount());
+    assertEquals(1, policy.getDeliveredCount());
+  }
+
+  @Test
+  public void testRetriesAreLimitedByAttemptsAndBudget() {
+    DeliveryPolicy policy = new DeliveryPolicy(3, 100, 1000, 50, 1000, 5000, now::get);
+
+    assertTrue(policy.allowRetry(1));
+    assertTrue(policy.allowRetry(2));
+    assertFalse(policy.allowRetry(3));
+    for (int i = 2; i < DeliveryPolicy.MAX_RETRY_TOKENS; i++) {
+      assertTrue(policy.allowRetry(1));
+    }
+    assertFalse(policy.allowRetry(1));
+
+    policy.onSuccess();
+    assertFalse(policy.allowRetry(1));
+    policy.onSuccess();
+    assertTrue(policy.allowRetry(1));
+
+    assertEquals(DeliveryPolicy.MAX_RETRY_TOKENS + 1, policy.getRetriedCount());
+    assertEquals(3, policy.getDroppedCount());
+  }
+
+  @Test
+  public void testRetryDelayIsJitteredAndCapped() {
+    DeliveryPolicy policy = new DeliveryPolicy(100, 100, 1000, 10, 5, 5000, now::get);
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(policy.getRetryDelayMillis(1) <= 100);
+      assertTrue(policy.getRetryDelayMillis(3) <= 400);
+      assertTrue(policy.getRetryDelayMillis(64) <= 1000);
+      assertTrue(policy.getRetryDelayMillis(64) >= 0);
+    }
+  }
+
+  @Test
+  public void testFailedDeliveryIsRetriedOffTheCallingThread() throws InterruptedException {
+    AtomicInteger failures = new AtomicInteger(1);
+    CountingAnalyticsManager manager = new CountingAnalyticsManager() {
+      @Override
+      public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+          Map<String, Object> properties) {
+        if (failures.getAndDecrement() > 0) {
+          throw new IllegalStateException("Analytics backend unavailable");
+        }
+        super.onEvent(event, ownerId, ip, userAgent, resolution, properties);
+      }
+    };
+
+    manager.doSendEvent(AnalyticsEvent.EDITOR_USED, "owner", null, null, null, Collections.emptyMap());
+    assertEquals(0, manager.sentEvents.get());
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (manager.sentEvents.get() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, manager.sentEvents.get());
+    DeliveryPolicy policy = manager.getDeliveryPolicy();
+    assertEquals(1, policy.getFailedCount());
+    assertEquals(1, policy.getRetriedCount());
+    assertEquals(1, policy.getDeliveredCount());
+  }
+}
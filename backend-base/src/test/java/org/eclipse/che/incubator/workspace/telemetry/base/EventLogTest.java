@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EventLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testEventsSurviveReopening() throws IOException {
+    EventLog log = new EventLog(directory, 1024, 4096);
+    log.append(bytes("first"));
+    log.append(bytes("second"));
+    log.append(bytes("third"));
+    EventLog.Entry first = log.read(log.getCommittedPosition());
+    assertEquals("first", string(first.payload));
+    log.commit(first.next);
+
+    EventLog reopened = new EventLog(directory, 1024, 4096);
+
+    assertEquals(first.next, reopened.getCommittedPosition());
+    assertEquals("second,third", readAll(reopened));
+  }
+
+  @Test
+  public void testSegmentsRotateAndOldestAreEvicted() throws IOException {
+    EventLog log = new EventLog(directory, 64, 128);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(log.append(bytes("event-" + i + "-" + "................".substring(i))));
+    }
+    assertFalse(log.append(new byte[64]));
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(2, files.filter(f -> f.toString().endsWith(".log")).count());
+    }
+    String remaining = readAll(log);
+    assertTrue(remaining.startsWith("event-"));
+    assertTrue(remaining.endsWith("event-9-......."));
+    assertFalse(remaining.contains("event-0-"));
+  }
+
+  @Test
+  public void testSegmentFilesAreRecycled() throws IOException {
+    EventLog log = new EventLog(directory, 64, 128);
+    for (int i = 0; i < 30; i++) {
+      assertTrue(log.append(bytes("event-" + (100 + i) + "-.....................")));
+    }
+    String remaining = readAll(log);
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(128, files.filter(f -> f.toString().endsWith(".log")).mapToLong(f -> f.toFile().length()).sum());
+    }
+    assertEquals(remaining, readAll(new EventLog(directory, 64, 128)));
+    assertTrue(remaining.endsWith("event-129-....................."), remaining);
+    assertFalse(remaining.contains("event-100-"));
+  }
+
+  @Test
+  public void testTornRecordIsDiscarded() throws IOException {
+    EventLog log = new EventLog(directory, 1024, 4096);
+    log.append(bytes("complete"));
+    long end = log.getEndPosition();
+    log.append(bytes("corrupted"));
+    Path segment;
+    try (Stream<Path> files = Files.list(directory)) {
+      segment = files.filter(f -> f.toString().endsWith(".log")).findFirst().get();
+    }
+    byte[] content = Files.readAllBytes(segment);
+    content[(int) end + 10] ^= 1;
+    Files.write(segment, content);
+
+    EventLog reopened = new EventLog(directory, 1024, 4096);
+
+    assertEquals(end, reopened.getEndPosition());
+    reopened.append(bytes("next"));
+    assertEquals("complete,next", readAll(new EventLog(directory, 1024, 4096)));
+  }
+
+  @Test
+  public void testLoggedEventRoundTrip() throws IOException {
+    EventPropertyMap properties = new EventPropertyMap();
+    properties.put(EventProperties.PROGRAMMING_LANGUAGE, "java");
+    properties.put("empty", null);
+    properties.put(EventProperties.SAMPLE_WEIGHT, 2.0);
+    properties.put("count", 3);
+    properties.put("size", 1L << 40);
+    properties.put("enabled", true);
+    LoggedEvent event = LoggedEvent.decode(
+        new LoggedEvent("EDITOR_USED", "owner", null, "agent", "1920x1080", properties).encode());
+
+    assertEquals("EDITOR_USED", event.typeId);
+    assertEquals("owner", event.ownerId);
+    assertNull(event.ip);
+    assertEquals("1920x1080", event.resolution);
+    assertEquals(properties, event.properties);
+  }
+
+  private static String readAll(EventLog log) {
+    List<String> payloads = new ArrayList<>();
+    long position = log.getCommittedPosition();
+    EventLog.Entry entry;
+    while ((entry = log.read(position)) != null) {
+      payloads.add(string(entry.payload));
+      position = entry.next;
+    }
+    return payloads.stream().collect(Collectors.joining(","));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String string(byte[] value) {
+    return new String(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class EventSamplerTest {
+
+  @Test
+  public void testSamplingIsDeterministicPerUserAndSession() {
+    int sampledIn = 0;
+    for (int i = 0; i < 1000; i++) {
+      String userId = "user-" + i;
+      EventSampler sampler = new EventSampler(userId, "workspace", event -> 0.25);
+      EventSampler again = new EventSampler(userId, "workspace", event -> 0.25);
+      EventSampler higherRate = new EventSampler(userId, "workspace", event -> 0.5);
+      boolean out = sampler.isSampledOut(AnalyticsEvent.EDITOR_USED);
+
+      assertEquals(out, again.isSampledOut(AnalyticsEvent.EDITOR_USED));
+      assertEquals(out, sampler.isSampledOut(AnalyticsEvent.COMMIT_LOCALLY));
+      assertTrue(out || !higherRate.isSampledOut(AnalyticsEvent.EDITOR_USED));
+      if (!out) {
+        sampledIn++;
+      }
+    }
+    assertTrue(sampledIn > 175 && sampledIn < 325, "sampled in: " + sampledIn);
+  }
+
+  @Test
+  public void testLifecycleEventsAreAlwaysSent() {
+    EventSampler sampler = new EventSampler("user", "workspace", event -> 0);
+
+    assertTrue(sampler.isSampledOut(AnalyticsEvent.EDITOR_USED));
+    for (AnalyticsEvent event : EventSampler.ALWAYS_SENT) {
+      assertFalse(sampler.isSampledOut(event));
+    }
+  }
+
+  @Test
+  public void testSampleWeightIsAttachedToSampledEvents() {
+    EventSampler sampler = new EventSampler("user", "workspace",
+        event -> event == AnalyticsEvent.EDITOR_USED ? 0.2 : 1);
+    Map<String, Object> properties = Collections.singletonMap(EventProperties.PROGRAMMING_LANGUAGE, "java");
+
+    Map<String, Object> weighted = sampler.withSampleWeight(AnalyticsEvent.EDITOR_USED, properties);
+    assertEquals(5.0, (Double) weighted.get(EventProperties.SAMPLE_WEIGHT), 1e-9);
+    assertEquals("java", weighted.get(EventProperties.PROGRAMMING_LANGUAGE));
+    assertSame(properties, sampler.withSampleWeight(AnalyticsEvent.COMMIT_LOCALLY, properties));
+  }
+
+  @Test
+  public void testPositionIsInTheUnitInterval() {
+    for (int i = 0; i < 100; i++) {
+      double position = EventSampler.position("user-" + i, "workspace-" + i);
+      assertTrue(position >= 0 && position < 1);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class EventTypeRegistryTest {
+
+  @Test
+  public void testBuiltInEventsAreResolved() {
+    EventTypeRegistry registry = new EventTypeRegistry();
+    for (AnalyticsEvent event : AnalyticsEvent.values()) {
+      EventType type = registry.resolve(event.name());
+      assertSame(EventType.of(event), type);
+      assertSame(event, type.getAnalyticsEvent());
+      assertEquals(event.ordinal(), type.getIndex());
+    }
+  }
+
+  @Test
+  public void testUnknownEventsAreNotResolved() {
+    EventTypeRegistry registry = new EventTypeRegistry();
+    assertNull(registry.resolve("NOT_AN_EVENT"));
+    assertNull(registry.resolve("editor_used"));
+    assertNull(registry.resolve(""));
+    assertNull(registry.resolve(null));
+  }
+
+  @Test
+  public void testCustomEventsAreRegistered() {
+    EventTypeRegistry registry = new EventTypeRegistry();
+    EventType type = registry.register("DEBUG_SESSION_STARTED", "Debug Session Started", 60,
+        EventProperties.PROGRAMMING_LANGUAGE);
+
+    assertSame(type, registry.resolve("DEBUG_SESSION_STARTED"));
+    assertFalse(type.isBuiltIn());
+    assertEquals(AnalyticsEvent.values().length, type.getIndex());
+    assertEquals(AnalyticsEvent.values().length + 1, registry.getEventTypes().size());
+    assertThrows(IllegalArgumentException.class, () -> registry.register("DEBUG_SESSION_STARTED", null, -1));
+    assertThrows(IllegalArgumentException.class, () -> registry.register("EDITOR_USED", null, -1));
+  }
+
+  @Test
+  public void testCustomEventsAreSentToCustomHook() {
+    AtomicInteger customEvents = new AtomicInteger();
+    CountingAnalyticsManager manager = new CountingAnalyticsManager() {
+      @Override
+      public void onCustomEvent(EventType type, String ownerId, String ip, String userAgent, String resolution,
+          Map<String, Object> properties) {
+        customEvents.incrementAndGet();
+      }
+    };
+    EventType type = manager.getEventTypeRegistry().register("DEBUG_SESSION_STARTED", null, -1, new String[0],
+        60000);
+
+    manager.doSendEvent(type, "owner", null, null, null, null);
+    manager.doSendEvent(type, "owner", null, null, null, null);
+
+    assertEquals(1, customEvents.get());
+    assertEquals(0, manager.sentEvents.get());
+    assertEquals(0, manager.suppressedEvents.get());
+  }
+}
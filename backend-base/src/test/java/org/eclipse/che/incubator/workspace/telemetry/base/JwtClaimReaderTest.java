@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.json.JsonException;
+
+import org.junit.jupiter.api.Test;
+
+public class JwtClaimReaderTest {
+  private static final String HEADER = encode("{\"alg\":\"RS512\",\"kind\":\"machine_token\"}");
+
+  @Test
+  public void testClaimIsRead() {
+    String payload = encode("{\"wsid\":\"workspace1\",\"groups\":[[\"a\"],{\"b\":1}],"
+        + "\"che-machine-token-username\":\"john.doe\",\"uid\":42}");
+
+    assertEquals("john.doe", JwtClaimReader.readClaim(HEADER, payload, "che-machine-token-username"));
+    assertEquals("42", JwtClaimReader.readClaim(HEADER, payload, "uid"));
+    assertNull(JwtClaimReader.readClaim(HEADER, payload, "email"));
+  }
+
+  @Test
+  public void testMalformedSegmentsAreRejected() {
+    String payload = encode("{\"che-machine-token-username\":\"john.doe\"}");
+
+    assertThrows(IllegalArgumentException.class, () -> JwtClaimReader.readClaim(HEADER, "not base64!", "sub"));
+    assertThrows(IllegalArgumentException.class, () -> JwtClaimReader.readClaim(encode("[]"), payload, "sub"));
+    assertThrows(JsonException.class, () -> JwtClaimReader.readClaim(HEADER, encode("{\"sub\":"), "sub"));
+    assertThrows(IllegalArgumentException.class,
+        () -> JwtClaimReader.readClaim(HEADER, encode("{\"sub\":{}}"), "sub"));
+  }
+
+  private static String encode(String json) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+}
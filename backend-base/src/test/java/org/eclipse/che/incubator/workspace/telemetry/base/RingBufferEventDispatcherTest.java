@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.RingBufferEventDispatcher.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+public class RingBufferEventDispatcherTest {
+
+  @Test
+  public void testAllEventsDeliveredFromConcurrentProducers() throws Exception {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.debounceTimeMillis = 0;
+    RingBufferEventDispatcher dispatcher = new RingBufferEventDispatcher(manager, 16, OverflowPolicy.BLOCK);
+
+    ExecutorService producers = Executors.newFixedThreadPool(4);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      results.add(producers.submit(() -> {
+        for (int j = 0; j < 250; j++) {
+          assertTrue(dispatcher.dispatch(EventType.of(AnalyticsEvent.EDITOR_USED), "owner", "127.0.0.1", "agent", "",
+              Collections.emptyMap()));
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get(10, TimeUnit.SECONDS);
+    }
+    producers.shutdown();
+    assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+    dispatcher.shutdown();
+
+    assertEquals(1000, manager.sentEvents.get() + manager.suppressedEvents.get());
+    assertEquals(0, dispatcher.getDroppedCount());
+  }
+
+  @Test
+  public void testEventsAcceptedDuringShutdownAreDelivered() throws Exception {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.debounceTimeMillis = 0;
+    RingBufferEventDispatcher dispatcher = new RingBufferEventDispatcher(manager, 1024, OverflowPolicy.DROP_NEWEST);
+
+    ExecutorService producers = Executors.newFixedThreadPool(4);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      results.add(producers.submit(() -> {
+        int accepted = 0;
+        for (int j = 0; j < 100000; j++) {
+          if (dispatcher.dispatch(EventType.of(AnalyticsEvent.EDITOR_USED), "owner", null, null, null,
+              Collections.emptyMap())) {
+            accepted++;
+          }
+        }
+        return accepted;
+      }));
+    }
+    Thread.sleep(10);
+    dispatcher.shutdown();
+    int accepted = 0;
+    for (Future<Integer> result : results) {
+      accepted += result.get(30, TimeUnit.SECONDS);
+    }
+    producers.shutdown();
+
+    assertEquals(accepted, manager.sentEvents.get() + manager.suppressedEvents.get());
+    assertFalse(dispatcher.dispatch(EventType.of(AnalyticsEvent.EDITOR_USED), "owner", null, null, null,
+        Collections.emptyMap()));
+  }
+
+  @Test
+  public void testDropNewestWhenFull() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch firstEventReceived = new CountDownLatch(1);
+    CountingAnalyticsManager manager = new CountingAnalyticsManager() {
+      @Override
+      public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+          Map<String, Object> properties) {
+        firstEventReceived.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        super.onEvent(event, ownerId, ip, userAgent, resolution, properties);
+      }
+    };
+    manager.debounceTimeMillis = 0;
+    RingBufferEventDispatcher dispatcher = new RingBufferEventDispatcher(manager, 4, OverflowPolicy.DROP_NEWEST);
+
+    assertTrue(dispatcher.dispatch(EventType.of(AnalyticsEvent.EDITOR_USED), "owner", null, null, null, Collections.emptyMap()));
+    assertTrue(firstEventReceived.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < dispatcher.capacity(); i++) {
+      assertTrue(dispatcher.dispatch(EventType.of(AnalyticsEvent.EDITOR_USED), "owner", null, null, null, Collections.emptyMap()));
+    }
+    assertFalse(dispatcher.dispatch(EventType.of(AnalyticsEvent.EDITOR_USED), "owner", null, null, null, Collections.emptyMap()));
+    assertEquals(1, dispatcher.getDroppedCount());
+
+    release.countDown();
+    dispatcher.shutdown();
+    assertEquals(1 + dispatcher.capacity(), manager.sentEvents.get());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.RingBufferEventDispatcher.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+public class TelemetryMetricsTest {
+
+  @Test
+  public void testEventCountersAndGauges() {
+    CountingAnalyticsManager manager = new CountingAnalyticsManager();
+    manager.debounceTimeMillis = 3600000;
+    EventType custom = manager.getEventTypeRegistry().register("MY \"EVENT\"", null, 0);
+
+    for (int i = 0; i < 3; i++) {
+      manager.getMetrics().eventReceived(EventType.of(AnalyticsEvent.COMMIT_LOCALLY));
+      manager.doSendEvent(AnalyticsEvent.COMMIT_LOCALLY, "owner", null, null, null, Collections.emptyMap());
+    }
+    manager.doSendEvent(custom, "owner", null, null, null, Collections.emptyMap());
+    manager.recordActivity();
+    RingBufferEventDispatcher dispatcher = new RingBufferEventDispatcher(manager, 8, OverflowPolicy.DROP_NEWEST);
+    String metrics = TelemetryMetrics.scrape(manager, dispatcher);
+    dispatcher.shutdown();
+
+    assertTrue(metrics.contains("\nche_telemetry_events_received_total{event=\"COMMIT_LOCALLY\"} 3\n"), metrics);
+    assertTrue(metrics.contains("\nche_telemetry_events_suppressed_total{event=\"COMMIT_LOCALLY\"} 2\n"));
+    assertTrue(metrics.contains("\nche_telemetry_events_sent_total{event=\"COMMIT_LOCALLY\"} 1\n"));
+    assertTrue(metrics.contains("\nche_telemetry_events_sent_total{event=\"MY \\\"EVENT\\\"\"} 1\n"));
+    assertTrue(metrics.contains("\nche_telemetry_events_sent_total{event=\"EDITOR_USED\"} 0\n"));
+    assertTrue(metrics.contains("\nche_telemetry_on_event_duration_seconds_count 2\n"));
+    assertTrue(metrics.contains("\nche_telemetry_on_activity_duration_seconds_count 1\n"));
+    assertTrue(metrics.contains("\nche_telemetry_activities_total 1\n"));
+    assertTrue(metrics.contains("\nche_telemetry_metadata_request_duration_seconds_count{request=\"workspace\"} 1\n"));
+    assertTrue(metrics.contains("\nche_telemetry_metadata_pending_events 0\n"));
+    assertTrue(metrics.contains("\nche_telemetry_circuit_breaker_state{state=\"closed\"} 1\n"));
+    assertTrue(metrics.contains("\nche_telemetry_dispatcher_queue_capacity 8\n"));
+    assertTrue(metrics.startsWith("# HELP "));
+    assertTrue(metrics.endsWith("\n"));
+  }
+
+  @Test
+  public void testHistogramBucketsAreCumulative() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+    histogram.record(TimeUnit.SECONDS.toNanos(60));
+    StringBuilder out = new StringBuilder();
+
+    histogram.writeTo(out, "latency", "request=\"workspace\",");
+
+    String text = out.toString();
+    assertTrue(text.contains("latency_bucket{request=\"workspace\",le=\"5.0E-4\"} 1\n"), text);
+    assertTrue(text.contains("latency_bucket{request=\"workspace\",le=\"0.005\"} 2\n"));
+    assertTrue(text.contains("latency_bucket{request=\"workspace\",le=\"10.0\"} 2\n"));
+    assertTrue(text.contains("latency_bucket{request=\"workspace\",le=\"+Inf\"} 3\n"));
+    assertTrue(text.contains("latency_count{request=\"workspace\"} 3\n"));
+    assertEquals(3, histogram.getCount());
+  }
+}
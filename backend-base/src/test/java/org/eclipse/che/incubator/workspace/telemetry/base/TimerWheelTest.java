@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class TimerWheelTest {
+
+  @Test
+  public void testTimeoutRunsAfterItsDelayEvenBeyondOneRevolution() throws InterruptedException {
+    TimerWheel wheel = new TimerWheel("test-timer", 5, 4);
+    CountDownLatch ran = new CountDownLatch(1);
+    AtomicLong ranAt = new AtomicLong();
+    long start = System.currentTimeMillis();
+
+    wheel.schedule(new TimerWheel.Timeout(() -> {
+      ranAt.set(System.currentTimeMillis());
+      ran.countDown();
+    }), 100);
+
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    assertTrue(ranAt.get() - start >= 100);
+    wheel.stop();
+  }
+
+  @Test
+  public void testRescheduleReplacesAndCancelRemoves() throws InterruptedException {
+    TimerWheel wheel = new TimerWheel("test-timer", 5, 64);
+    CountDownLatch ran = new CountDownLatch(1);
+    AtomicLong runs = new AtomicLong();
+    TimerWheel.Timeout timeout = new TimerWheel.Timeout(() -> {
+      runs.incrementAndGet();
+      ran.countDown();
+    });
+    TimerWheel.Timeout cancelled = new TimerWheel.Timeout(runs::incrementAndGet);
+
+    wheel.schedule(timeout, 20);
+    wheel.schedule(timeout, 150);
+    wheel.schedule(cancelled, 20);
+    wheel.cancel(cancelled);
+    assertFalse(wheel.isScheduled(cancelled));
+
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    Thread.sleep(50);
+    assertEquals(1, runs.get());
+    assertFalse(wheel.isScheduled(timeout));
+    wheel.stop();
+  }
+
+  @Test
+  public void testActivityTrackingSendsHeartbeatsThenInactivity() throws InterruptedException {
+    long pingTimeout = AbstractAnalyticsManager.pingTimeout;
+    List<AnalyticsEvent> events = new CopyOnWriteArrayList<>();
+    CountingAnalyticsManager manager = new CountingAnalyticsManager() {
+      @Override
+      public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+          Map<String, Object> properties) {
+        events.add(event);
+      }
+    };
+    try {
+      AbstractAnalyticsManager.pingTimeout = 100;
+      manager.activityTracking = true;
+      manager.noActivityTimeout = 450;
+      manager.debounceTimeMillis = 0;
+      manager.activityCoalesceMillis = 0;
+
+      manager.recordActivity();
+      Thread.sleep(250);
+      manager.recordActivity();
+      long deadline = System.currentTimeMillis() + 5000;
+      while (!events.contains(AnalyticsEvent.WORKSPACE_INACTIVE) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+
+      int inactive = events.indexOf(AnalyticsEvent.WORKSPACE_INACTIVE);
+      assertTrue(inactive >= 4, events.toString());
+      assertTrue(events.subList(0, inactive).stream().allMatch(e -> e == AnalyticsEvent.WORKSPACE_USED));
+      assertEquals(2, manager.activities.get());
+
+      Thread.sleep(250);
+      assertEquals(inactive + 1, events.size());
+      manager.recordActivity();
+      deadline = System.currentTimeMillis() + 5000;
+      while (events.size() == inactive + 1 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(AnalyticsEvent.WORKSPACE_USED, events.get(inactive + 1));
+    } finally {
+      AbstractAnalyticsManager.pingTimeout = pingTimeout;
+    }
+  }
+}
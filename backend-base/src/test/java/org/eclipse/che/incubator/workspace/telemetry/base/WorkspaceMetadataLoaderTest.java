@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.che.api.core.rest.DefaultHttpJsonRequestFactory;
+import org.eclipse.che.api.core.rest.HttpJsonRequest;
+import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
+import org.eclipse.che.api.core.rest.HttpJsonResponse;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.incubator.workspace.telemetry.MockHttpJsonResponse;
+import org.junit.jupiter.api.Test;
+
+public class WorkspaceMetadataLoaderTest {
+
+  @Test
+  public void testValidatorsAreSentAndNotModifiedIsReported() throws Exception {
+    List<Map<String, String>> sentHeaders = new ArrayList<>();
+    List<Object> responses = new ArrayList<>();
+    responses.add(workspaceResponse());
+    responses.add(new MockHttpJsonResponse("", 304));
+    responses.add(new IOException("Failed access: http://fake-che.com/api/workspace/fake-workspace, method: GET,"
+        + " response code: 304, message: "));
+    responses.add(workspaceResponse());
+    WorkspaceMetadataLoader loader = new WorkspaceMetadataLoader(requestFactory(sentHeaders, responses),
+        "http://fake-che.com/api", "fake-workspace", 1000);
+
+    WorkspaceMetadata metadata = loader.load();
+    assertEquals("wksp-lqq9", metadata.getWorkspaceName());
+    assertTrue(sentHeaders.get(0).isEmpty());
+
+    assertNull(loader.loadIfModified());
+    assertEquals("\"1\"", sentHeaders.get(1).get("If-None-Match"));
+    assertEquals("Thu, 05 Dec 2019 19:54:22 GMT", sentHeaders.get(1).get("If-Modified-Since"));
+
+    assertNull(loader.loadIfModified());
+
+    assertNotNull(loader.loadIfModified());
+    assertEquals(metadata, loader.load());
+  }
+
+  private static HttpJsonResponse workspaceResponse() throws Exception {
+    HttpJsonResponse response = new MockBaseConfiguration().requestFactory().fromUrl("").request();
+    Map<String, List<String>> headers = new HashMap<>();
+    headers.put("etag", Collections.singletonList("\"1\""));
+    headers.put("Last-Modified", Collections.singletonList("Thu, 05 Dec 2019 19:54:22 GMT"));
+    return new MockHttpJsonResponse(response.asString(), 200) {
+      @Override
+      public Map<String, List<String>> getHeaders() {
+        return headers;
+      }
+    };
+  }
+
+  /**
+   * @return a request factory recording the headers of the requests, and
+   *         answering them with the given responses or exceptions, the last one
+   *         being repeated
+   */
+  private static HttpJsonRequestFactory requestFactory(List<Map<String, String>> sentHeaders,
+      List<Object> responses) {
+    return new DefaultHttpJsonRequestFactory() {
+      @Override
+      public HttpJsonRequest fromUrl(String url) {
+        Map<String, String> headers = new HashMap<>();
+        sentHeaders.add(headers);
+        return (HttpJsonRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { HttpJsonRequest.class }, (proxy, method, args) -> {
+              switch (method.getName()) {
+              case "addHeader":
+                headers.put((String) args[0], (String) args[1]);
+                return proxy;
+              case "request":
+                Object response = responses.size() > 1 ? responses.remove(0) : responses.get(0);
+                if (response instanceof Exception) {
+                  throw (Exception) response;
+                }
+                return response;
+              default:
+                return proxy;
+              }
+            });
+      }
+
+      @Override
+      public HttpJsonRequest fromLink(Link link) {
+        return fromUrl(link.getHref());
+      }
+    };
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WorkspaceMetadataSnapshotTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testSnapshotIsReadBack() {
+    WorkspaceMetadataSnapshot snapshot = new WorkspaceMetadataSnapshot(directory.resolve("snapshots/metadata"));
+    WorkspaceMetadata metadata = metadata();
+
+    assertTrue(snapshot.write("workspace-1", metadata));
+    WorkspaceMetadata read = snapshot.read("workspace-1");
+
+    assertEquals(metadata, read);
+    assertEquals(metadata.toCommonProperties("workspace-1"), read.toCommonProperties("workspace-1"));
+  }
+
+  @Test
+  public void testSnapshotOfAnotherWorkspaceIsIgnored() {
+    WorkspaceMetadataSnapshot snapshot = new WorkspaceMetadataSnapshot(directory.resolve("metadata"));
+    snapshot.write("workspace-1", metadata());
+
+    assertNull(snapshot.read("workspace-2"));
+  }
+
+  @Test
+  public void testMissingOrInvalidSnapshotIsIgnored() throws IOException {
+    Path file = directory.resolve("metadata");
+    WorkspaceMetadataSnapshot snapshot = new WorkspaceMetadataSnapshot(file);
+    assertNull(snapshot.read("workspace-1"));
+
+    snapshot.write("workspace-1", metadata());
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 3));
+
+    assertNull(snapshot.read("workspace-1"));
+  }
+
+  private static WorkspaceMetadata metadata() {
+    WorkspaceMetadata.Builder builder = new WorkspaceMetadata.Builder();
+    builder.workspaceName = "wksp-lqq9";
+    builder.stackId = "Go";
+    builder.createdOn = "1575567196811";
+    builder.updatedOn = "1575575662792";
+    builder.lastErrorMessage = "Plugin 'é' failed";
+    builder.age = 8465L;
+    builder.firstStart = true;
+    builder.pluginNames = Arrays.asList("eclipse/che-theia/next", "ms-vscode/go/latest");
+    return builder.build();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.BadRequestException;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.EventProperties;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventPropertyMap;
+import org.junit.jupiter.api.Test;
+
+public class BinaryEventCodecTest {
+
+  @Test
+  public void testEventsRoundTrip() throws IOException {
+    EventPropertyMap properties = new EventPropertyMap();
+    properties.put(EventProperties.PROGRAMMING_LANGUAGE, "java");
+    properties.put("custom key", "été");
+    properties.put("nothing", null);
+    EventRecord builtIn = new EventRecord("EDITOR_USED", "editor", "127.0.0.1", "curl", null, properties);
+    EventRecord custom = new EventRecord("DEBUG_SESSION_STARTED", null, null, null, "1920x1080", null);
+
+    List<EventRecord> events = new BinaryEventListReader().readFrom(null, null, null, null, null,
+        new ByteArrayInputStream(encode(builtIn, custom)));
+
+    assertEquals(2, events.size());
+    EventRecord event = events.get(0);
+    assertSame("EDITOR_USED", event.getId());
+    assertEquals("editor", event.getOwnerId());
+    assertEquals("127.0.0.1", event.getIp());
+    assertEquals("curl", event.getAgent());
+    assertNull(event.getResolution());
+    assertEquals(properties, event.getProperties());
+    assertEquals("DEBUG_SESSION_STARTED", events.get(1).getId());
+    assertEquals("1920x1080", events.get(1).getResolution());
+    assertEquals(0, events.get(1).getProperties().size());
+  }
+
+  @Test
+  public void testKnownIdsAreEncodedAsCodes() throws IOException {
+    EventPropertyMap properties = new EventPropertyMap();
+    properties.put(EventProperties.PROGRAMMING_LANGUAGE, "go");
+    byte[] bytes = encode(new EventRecord("EDITOR_USED", null, null, null, null, properties));
+
+    assertArrayEquals(new byte[] { (byte) 0xCE, 1, 6, 0, 0, 0, 0, 1, 1, 3, 'g', 'o' }, bytes);
+  }
+
+  @Test
+  public void testMalformedBodiesAreRejected() {
+    assertThrows(BadRequestException.class, () -> readEvent(new byte[] { '{', '}' }));
+    assertThrows(BadRequestException.class, () -> readEvent(new byte[] { (byte) 0xCE, 2, 6, 0, 0, 0, 0, 0 }));
+    assertThrows(BadRequestException.class, () -> readEvent(new byte[] { (byte) 0xCE, 1 }));
+    assertThrows(BadRequestException.class, () -> readEvent(new byte[] { (byte) 0xCE, 1, 6, 0, 0 }));
+    assertThrows(BadRequestException.class, () -> readEvent(new byte[] { (byte) 0xCE, 1, 99, 0, 0, 0, 0, 0 }));
+    assertThrows(BadRequestException.class, () -> readEvent(new byte[] { (byte) 0xCE, 1, 6, 0, 0, 0, 0, 1, 1, 5, 'g' }));
+    assertThrows(BadRequestException.class,
+        () -> readEvent(new byte[] { (byte) 0xCE, 1, 6, 0, 0, 0, 0, 0, 6, 0, 0, 0, 0, 0 }));
+  }
+
+  @Test
+  public void testOverflowingVarintsAreRejected() {
+    // As the event id, the length of a string, the property count and a property key
+    assertThrows(BadRequestException.class,
+        () -> readEvent(new byte[] { (byte) 0xCE, 1, -1, -1, -1, -1, 0x0F, 0, 0, 0, 0, 0 }));
+    assertThrows(BadRequestException.class,
+        () -> readEvent(new byte[] { (byte) 0xCE, 1, 6, -1, -1, -1, -1, 0x0F, 0, 0, 0, 0 }));
+    assertThrows(BadRequestException.class,
+        () -> readEvent(new byte[] { (byte) 0xCE, 1, 6, 0, 0, 0, 0, -1, -1, -1, -1, 0x0F }));
+    assertThrows(BadRequestException.class,
+        () -> readEvent(new byte[] { (byte) 0xCE, 1, 6, 0, 0, 0, 0, 1, -1, -1, -1, -1, 0x0F, 0 }));
+    assertThrows(BadRequestException.class,
+        () -> readEvent(new byte[] { (byte) 0xCE, 1, 6, 0, 0, 0, 0, -1, -1, -1, -1, -1, 0x01 }));
+  }
+
+  private static EventRecord readEvent(byte[] bytes) throws IOException {
+    return new BinaryEventReader().readFrom(EventRecord.class, EventRecord.class, null, null, null,
+        new ByteArrayInputStream(bytes));
+  }
+
+  private static byte[] encode(EventRecord... events) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    BinaryEventCodec.writeHeader(output);
+    for (EventRecord event : Arrays.asList(events)) {
+      BinaryEventCodec.writeEvent(event, output);
+    }
+    return output.toByteArray();
+  }
+}
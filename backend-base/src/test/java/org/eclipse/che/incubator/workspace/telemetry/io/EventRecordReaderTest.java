@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.MediaType;
+
+import org.junit.jupiter.api.Test;
+
+public class EventRecordReaderTest {
+
+  @Test
+  public void testEventIsRead() {
+    EventRecord event = read("{\"id\":\"EDITOR_USED\",\"ownerId\":\"editor\",\"ip\":\"127.0.0.1\",\"agent\":\"curl\","
+        + "\"resolution\":\"1920x1080\",\"unknown\":{\"nested\":[1,2]},"
+        + "\"properties\":[{\"id\":\"programming language\",\"value\":\"java\"},{\"id\":\"count\",\"value\":3}]}");
+
+    assertEquals("EDITOR_USED", event.getId());
+    assertEquals("editor", event.getOwnerId());
+    assertEquals("127.0.0.1", event.getIp());
+    assertEquals("curl", event.getAgent());
+    assertEquals("1920x1080", event.getResolution());
+    assertEquals(2, event.getProperties().size());
+    assertEquals("java", event.getProperties().get("programming language"));
+    assertEquals("3", event.getProperties().get("count"));
+  }
+
+  @Test
+  public void testMissingFieldsAreNull() {
+    EventRecord event = read("{\"id\":\"EDITOR_USED\"}");
+
+    assertEquals("EDITOR_USED", event.getId());
+    assertNull(event.getOwnerId());
+    assertTrue(event.getProperties().isEmpty());
+  }
+
+  @Test
+  public void testMalformedEventsAreRejected() {
+    assertThrows(BadRequestException.class, () -> read("[]"));
+    assertThrows(BadRequestException.class, () -> read("{\"id\":42}"));
+    assertThrows(BadRequestException.class, () -> read("{\"id\":\"EDITOR_USED\",\"properties\":{}}"));
+    assertThrows(BadRequestException.class, () -> read("{\"id\":\"EDITOR_USED\",\"properties\":[{\"value\":\"java\"}]}"));
+    assertThrows(BadRequestException.class, () -> read("{\"id\":\"EDITOR_USED\""));
+    assertThrows(BadRequestException.class, () -> read("{\"id\":\"EDITOR_USED\"} {}"));
+    assertThrows(BadRequestException.class, () -> read("not json"));
+  }
+
+  @Test
+  public void testUnknownCharsetsAreRejected() {
+    for (String charset : new String[] { "no-such-charset", "not a charset name" }) {
+      MediaType mediaType = MediaType.APPLICATION_JSON_TYPE.withCharset(charset);
+      assertThrows(BadRequestException.class, () -> new EventRecordReader().readFrom(EventRecord.class,
+          EventRecord.class, null, mediaType, null, stream("{\"id\":\"EDITOR_USED\"}")));
+    }
+  }
+
+  @Test
+  public void testBatchIsRead() {
+    List<EventRecord> events = new EventRecordListReader().readFrom(null, null, null,
+        MediaType.APPLICATION_JSON_TYPE, null, stream("[{\"id\":\"EDITOR_USED\"},null,{\"id\":\"COMMIT_LOCALLY\"}]"));
+
+    assertEquals(3, events.size());
+    assertEquals("EDITOR_USED", events.get(0).getId());
+    assertNull(events.get(1));
+    assertEquals("COMMIT_LOCALLY", events.get(2).getId());
+    assertThrows(BadRequestException.class, () -> new EventRecordListReader().readFrom(null, null, null,
+        MediaType.APPLICATION_JSON_TYPE, null, stream("[{\"id\":\"EDITOR_USED\"},\"EDITOR_USED\"]")));
+  }
+
+  private static EventRecord read(String json) {
+    return new EventRecordReader().readFrom(EventRecord.class, EventRecord.class, null,
+        MediaType.APPLICATION_JSON_TYPE, null, stream(json));
+  }
+
+  private static InputStream stream(String json) {
+    return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class NdjsonEventReaderTest {
+
+  @Test
+  public void testLinesAreReadAndErrorsReported() throws IOException {
+    List<String> received = read(new NdjsonEventReader(stream(
+        "{\"id\":\"EDITOR_USED\"}\n"
+        + "\n"
+        + "{\"id\":\"COMMIT_LOCALLY\"}\r\n"
+        + "{\"id\":\n"
+        + "{\"id\":\"PUSH_TO_REMOTE\"}")));
+
+    assertEquals(Arrays.asList("1:EDITOR_USED", "3:COMMIT_LOCALLY", "4:error", "5:PUSH_TO_REMOTE"), received);
+  }
+
+  @Test
+  public void testLongLinesAreSkipped() throws IOException {
+    StringBuilder longLine = new StringBuilder("{\"id\":\"EDITOR_USED\",\"agent\":\"");
+    for (int i = 0; i < 100; i++) {
+      longLine.append("0123456789");
+    }
+    longLine.append("\"}\n");
+
+    List<String> received = read(new NdjsonEventReader(stream(longLine + "{\"id\":\"EDITOR_USED\"}\n"), 256));
+
+    assertEquals(Arrays.asList("1:error", "2:EDITOR_USED"), received);
+  }
+
+  @Test
+  public void testLinesSpanningChunksAreRead() throws IOException {
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      body.append("{\"id\":\"EDITOR_USED\",\"ownerId\":\"owner-").append(i).append("\"}\n");
+    }
+    List<String> received = new ArrayList<>();
+    new NdjsonEventReader(stream(body.toString())).readAll(new NdjsonEventReader.Handler() {
+      @Override
+      public void onEvent(int line, EventRecord event) {
+        assertEquals("owner-" + (line - 1), event.getOwnerId());
+        received.add(event.getOwnerId());
+      }
+
+      @Override
+      public void onError(int line, String message) {
+        received.add("error");
+      }
+    });
+
+    assertEquals(2000, received.size());
+  }
+
+  private static List<String> read(NdjsonEventReader reader) throws IOException {
+    List<String> received = new ArrayList<>();
+    reader.readAll(new NdjsonEventReader.Handler() {
+      @Override
+      public void onEvent(int line, EventRecord event) {
+        received.add(line + ":" + event.getId());
+      }
+
+      @Override
+      public void onError(int line, String message) {
+        received.add(line + ":error");
+      }
+    });
+    return received;
+  }
+
+  private static InputStream stream(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.che.incubator.workspace.telemetry.benchmarks.NoOpAnalyticsManager;
+import org.eclipse.che.incubator.workspace.telemetry.benchmarks.StubRequestFactory;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecord;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecordReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link TelemetryResource#event} end to end, from the JSON request
+ * body to the analytics manager, as JAX-RS calls it: the body is read by the
+ * {@link EventRecordReader} message body reader. The HTTP layer itself is not
+ * included.
+ *
+ * It lives in the package of the resource to set up its injected fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelemetryResourceBenchmark {
+  private static final String EVENT = "{\"id\":\"EDITOR_USED\",\"ownerId\":\"che-theia-editor\",\"ip\":\"127.0.0.1\","
+      + "\"agent\":\"Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)\","
+      + "\"resolution\":\"1920x1080\",\"properties\":["
+      + "{\"id\":\"programming language\",\"value\":\"java\"},"
+      + "{\"id\":\"file extension\",\"value\":\".java\"},"
+      + "{\"id\":\"project name\",\"value\":\"che-workspace-telemetry-client\"}]}";
+
+  /**
+   * Debounce time of the analytics manager: with 0, every event reaches
+   * <code>onEvent</code>; with the default, all but the first are suppressed.
+   */
+  @Param({ "0", "1500" })
+  public long debounceTimeMillis;
+
+  private TelemetryResource resource;
+  private EventRecordReader eventReader;
+  private byte[] event;
+
+  @Setup
+  public void setUp() {
+    NoOpAnalyticsManager manager = new NoOpAnalyticsManager(new StubRequestFactory());
+    manager.setDebounceTimeMillis(debounceTimeMillis);
+    resource = new TelemetryResource();
+    resource.analyticsManager = manager;
+    resource.init();
+    eventReader = new EventRecordReader();
+    event = EVENT.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public Response event() {
+    EventRecord record = eventReader.readFrom(EventRecord.class, EventRecord.class, null,
+        MediaType.APPLICATION_JSON_TYPE, null, new ByteArrayInputStream(event));
+    return resource.event(record);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.che.incubator.workspace.telemetry.anonymizer.SHA1HashGenerator;
+import org.eclipse.che.incubator.workspace.telemetry.base.AbstractAnalyticsManager;
+import org.eclipse.che.incubator.workspace.telemetry.base.AnalyticsEvent;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventProperties;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventPropertyMap;
+import org.eclipse.che.incubator.workspace.telemetry.base.EventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the event path of {@link AbstractAnalyticsManager}, with a
+ * backend that does nothing: merging the event and common properties,
+ * debouncing repeated and varying events, and hashing identifiers. Also
+ * measures the construction of a manager, against a stubbed Che API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsManagerBenchmark {
+  private static final String OWNER_ID = "che-theia-editor";
+
+  /**
+   * Number of distinct events sent by {@link #varyingEvents}, larger than the
+   * debounce table, so that its entries are evicted.
+   */
+  private static final int VARYING_EVENTS = 4096;
+
+  private StubRequestFactory requestFactory;
+  private NoOpAnalyticsManager manager;
+  private EventType editorUsed;
+  private Map<String, Object> properties;
+  private Map<String, Object>[] varyingProperties;
+  private int next;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    requestFactory = new StubRequestFactory();
+    manager = new NoOpAnalyticsManager(requestFactory);
+    editorUsed = EventType.of(AnalyticsEvent.EDITOR_USED);
+    properties = properties("java");
+    varyingProperties = new Map[VARYING_EVENTS];
+    for (int i = 0; i < VARYING_EVENTS; i++) {
+      varyingProperties[i] = properties("language-" + i);
+    }
+  }
+
+  @Benchmark
+  public Map<String, Object> currentEventProperties() {
+    return manager.getCurrentEventProperties(properties);
+  }
+
+  /**
+   * Merges the properties, and reads them as an analytics backend does.
+   */
+  @Benchmark
+  public void iterateCurrentEventProperties(Blackhole blackhole) {
+    for (Map.Entry<String, Object> property : manager.getCurrentEventProperties(properties).entrySet()) {
+      blackhole.consume(property.getKey());
+      blackhole.consume(property.getValue());
+    }
+  }
+
+  /**
+   * Sends the same event again and again: all but the first are suppressed.
+   */
+  @Benchmark
+  public void repeatedEvent() {
+    manager.doSendEvent(editorUsed, OWNER_ID, "127.0.0.1", "agent", "1920x1080", properties);
+  }
+
+  /**
+   * Cycles through more distinct events than the debounce table holds.
+   */
+  @Benchmark
+  public void varyingEvents() {
+    int index = next++ & (VARYING_EVENTS - 1);
+    manager.doSendEvent(editorUsed, OWNER_ID, "127.0.0.1", "agent", "1920x1080", varyingProperties[index]);
+  }
+
+  @Benchmark
+  public String sha1HashGenerator() {
+    return SHA1HashGenerator.generateHash(OWNER_ID);
+  }
+
+  @Benchmark
+  public AbstractAnalyticsManager construction() {
+    return new NoOpAnalyticsManager(requestFactory);
+  }
+
+  private static Map<String, Object> properties(String language) {
+    EventPropertyMap properties = new EventPropertyMap();
+    properties.put(EventProperties.PROGRAMMING_LANGUAGE, language);
+    properties.put("file extension", ".java");
+    properties.put("project name", "che-workspace-telemetry-client");
+    return properties;
+  }
+}
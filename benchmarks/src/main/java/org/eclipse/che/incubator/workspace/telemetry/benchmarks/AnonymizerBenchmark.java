@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.che.incubator.workspace.telemetry.anonymizer.Anonymizer;
+import org.eclipse.che.incubator.workspace.telemetry.anonymizer.Anonymizers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the anonymizers with the previous implementation of
+ * <code>SHA1HashGenerator</code>, which looked up the digest and the charset
+ * on every call, and formatted the hash through <code>BigInteger</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnonymizerBenchmark {
+  private static final String OWNER_ID = "che-theia-editor-4f8a9c2e";
+
+  private Anonymizer sha1;
+  private Anonymizer sha256;
+  private Anonymizer hmacSha256;
+  private Anonymizer memoizedSha1;
+
+  @Setup
+  public void setUp() {
+    sha1 = Anonymizers.sha1();
+    sha256 = Anonymizers.sha256();
+    hmacSha256 = Anonymizers.hmacSha256("benchmark-salt");
+    memoizedSha1 = Anonymizers.memoizing(Anonymizers.sha1(), 1024);
+  }
+
+  @Benchmark
+  public String legacySha1() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+    MessageDigest digest = MessageDigest.getInstance("SHA-1");
+    digest.reset();
+    digest.update(OWNER_ID.getBytes("utf8"));
+    return String.format("%040x", new BigInteger(1, digest.digest()));
+  }
+
+  @Benchmark
+  public String sha1() {
+    return sha1.anonymize(OWNER_ID);
+  }
+
+  @Benchmark
+  public String sha256() {
+    return sha256.anonymize(OWNER_ID);
+  }
+
+  @Benchmark
+  public String hmacSha256() {
+    return hmacSha256.anonymize(OWNER_ID);
+  }
+
+  @Benchmark
+  public String memoizedSha1() {
+    return memoizedSha1.anonymize(OWNER_ID);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.ws.rs.core.MediaType;
+
+import org.eclipse.che.incubator.workspace.telemetry.base.EventPropertyMap;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecord;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecordListReader;
+import org.eclipse.che.incubator.workspace.telemetry.io.EventRecordReader;
+import org.eclipse.che.incubator.workspace.telemetry.model.Event;
+import org.eclipse.che.incubator.workspace.telemetry.model.EventProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading an event request body through JSON-B into the
+ * {@link Event} model, then flattening its properties as the resource used to,
+ * with the streaming {@link EventRecordReader}.
+ *
+ * Run with the GC profiler to compare allocations per request:
+ * <code>java -jar benchmarks/target/benchmarks.jar EventReaderBenchmark -prof gc</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventReaderBenchmark {
+  private static final String EVENT = "{\"id\":\"EDITOR_USED\",\"ownerId\":\"che-theia-editor\",\"ip\":\"127.0.0.1\","
+      + "\"agent\":\"Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)\","
+      + "\"resolution\":\"1920x1080\",\"properties\":["
+      + "{\"id\":\"programming language\",\"value\":\"java\"},"
+      + "{\"id\":\"file extension\",\"value\":\".java\"},"
+      + "{\"id\":\"project name\",\"value\":\"che-workspace-telemetry-client\"}]}";
+  private static final int BATCH_SIZE = 20;
+  private static final Type EVENT_LIST = new ArrayList<Event>() {
+    private static final long serialVersionUID = 1L;
+  }.getClass().getGenericSuperclass();
+  private static final Type EVENT_RECORD_LIST = new ArrayList<EventRecord>() {
+    private static final long serialVersionUID = 1L;
+  }.getClass().getGenericSuperclass();
+
+  private Jsonb jsonb;
+  private EventRecordReader eventReader;
+  private EventRecordListReader eventListReader;
+  private byte[] event;
+  private byte[] batch;
+
+  @Setup
+  public void setUp() {
+    jsonb = JsonbBuilder.create();
+    eventReader = new EventRecordReader();
+    eventListReader = new EventRecordListReader();
+    event = EVENT.getBytes(StandardCharsets.UTF_8);
+    StringBuilder events = new StringBuilder("[");
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      events.append(i == 0 ? "" : ",").append(EVENT);
+    }
+    batch = events.append(']').toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    jsonb.close();
+  }
+
+  @Benchmark
+  public EventPropertyMap jsonbEvent() {
+    Event parsed = jsonb.fromJson(new ByteArrayInputStream(event), Event.class);
+    return toPropertyMap(parsed);
+  }
+
+  @Benchmark
+  public EventRecord streamingEvent() {
+    return eventReader.readFrom(EventRecord.class, EventRecord.class, null, MediaType.APPLICATION_JSON_TYPE, null,
+        new ByteArrayInputStream(event));
+  }
+
+  @Benchmark
+  public List<EventPropertyMap> jsonbBatch() {
+    List<Event> parsed = jsonb.fromJson(new ByteArrayInputStream(batch), EVENT_LIST);
+    List<EventPropertyMap> maps = new ArrayList<>(parsed.size());
+    for (Event e : parsed) {
+      maps.add(toPropertyMap(e));
+    }
+    return maps;
+  }
+
+  @Benchmark
+  public List<EventRecord> streamingBatch() {
+    return eventListReader.readFrom(null, EVENT_RECORD_LIST, null, MediaType.APPLICATION_JSON_TYPE, null,
+        new ByteArrayInputStream(batch));
+  }
+
+  private static EventPropertyMap toPropertyMap(Event event) {
+    List<EventProperty> properties = event.getProperties();
+    EventPropertyMap params = new EventPropertyMap(properties.size());
+    for (EventProperty property : properties) {
+      params.put(property.getId(), property.getValue());
+    }
+    return params;
+  }
+}
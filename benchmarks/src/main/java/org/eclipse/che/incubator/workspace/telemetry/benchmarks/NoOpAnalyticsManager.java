@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.benchmarks;
+
+import java.util.Map;
+
+import org.eclipse.che.api.core.rest.HttpJsonRequestFactory;
+import org.eclipse.che.incubator.workspace.telemetry.base.AbstractAnalyticsManager;
+import org.eclipse.che.incubator.workspace.telemetry.base.AnalyticsEvent;
+
+/**
+ * Analytics manager of a stubbed workspace, whose backend does nothing, so
+ * that benchmarks only measure the base class.
+ */
+public class NoOpAnalyticsManager extends AbstractAnalyticsManager {
+
+  public NoOpAnalyticsManager(HttpJsonRequestFactory requestFactory) {
+    super("http://che.benchmark/api", "workspace-benchmark", "", requestFactory);
+  }
+
+  public void setDebounceTimeMillis(long debounceTimeMillis) {
+    this.debounceTimeMillis = debounceTimeMillis;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public void onActivity() {
+  }
+
+  @Override
+  public void onEvent(AnalyticsEvent event, String ownerId, String ip, String userAgent, String resolution,
+      Map<String, Object> properties) {
+  }
+
+  @Override
+  public void increaseDuration(AnalyticsEvent event, Map<String, Object> properties) {
+  }
+
+  @Override
+  public void destroy() {
+  }
+}
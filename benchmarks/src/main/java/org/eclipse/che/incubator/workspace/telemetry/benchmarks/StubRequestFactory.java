@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021 Red Hat, Inc.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.incubator.workspace.telemetry.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.eclipse.che.api.core.rest.DefaultHttpJsonRequestFactory;
+import org.eclipse.che.api.core.rest.HttpJsonRequest;
+import org.eclipse.che.api.core.rest.HttpJsonResponse;
+import org.eclipse.che.api.core.rest.shared.dto.Link;
+import org.eclipse.che.dto.server.DtoFactory;
+
+/**
+ * Request factory answering every request with the workspace of the
+ * <code>workspace.json</code> resource, without any network access.
+ */
+public class StubRequestFactory extends DefaultHttpJsonRequestFactory {
+  private final String workspace;
+  private final HttpJsonRequest request;
+
+  public StubRequestFactory() {
+    workspace = readResource("/workspace.json");
+    HttpJsonResponse response = (HttpJsonResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { HttpJsonResponse.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+          case "getResponseCode":
+            return 200;
+          case "asString":
+            return workspace;
+          case "asDto":
+            return DtoFactory.getInstance().createDtoFromJson(workspace, (Class<?>) args[0]);
+          case "getHeaders":
+            return Collections.emptyMap();
+          default:
+            return null;
+          }
+        });
+    request = (HttpJsonRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { HttpJsonRequest.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+          case "request":
+            return response;
+          case "getUrl":
+            return null;
+          default:
+            return proxy;
+          }
+        });
+  }
+
+  @Override
+  public HttpJsonRequest fromUrl(String url) {
+    return request;
+  }
+
+  @Override
+  public HttpJsonRequest fromLink(Link link) {
+    return request;
+  }
+
+  private static String readResource(String name) {
+    try (InputStream in = StubRequestFactory.class.getResourceAsStream(name)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*********************************************************************
+ * Copyright (c) 2021 Red Hat, Inc.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ **********************************************************************/
+
+import {Event} from './openapi/api';
+
+/**
+ * Content type of the compact binary event format accepted by the
+ * telemetry endpoints. See `BinaryEventCodec` in backend-base for the format.
+ */
+export const BINARY_MEDIA_TYPE = 'application/vnd.che.telemetry.event+binary';
+
+const MAGIC = 0xCE;
+const VERSION = 1;
+
+// codes shared with BinaryEventCodec: only append to these tables
+const EVENT_IDS = [
+    'WORKSPACE_STARTED', 'WORKSPACE_OPENED', 'WORKSPACE_USED', 'WORKSPACE_INACTIVE', 'WORKSPACE_STOPPED',
+    'EDITOR_USED', 'PUSH_TO_REMOTE', 'COMMIT_LOCALLY'
+];
+const PROPERTY_KEYS = [
+    'programming language', 'workspace id', 'workspace name', 'stack id', 'factory id', 'factory name',
+    'factory owner', 'factory url', 'creation time', 'start time', 'last stop time', 'age', 'return delay ',
+    'first start', 'last workspace failed', 'last workspace failure', 'osio space id', 'source types',
+    'start number', 'plugins'
+];
+
+class ByteWriter {
+    private bytes: number[] = [];
+
+    byte(value: number) {
+        this.bytes.push(value);
+    }
+
+    varint(value: number) {
+        while (value >= 0x80) {
+            this.bytes.push(value % 0x80 + 0x80);
+            value = Math.floor(value / 0x80);
+        }
+        this.bytes.push(value);
+    }
+
+    coded(value: string, table: string[]) {
+        const index = table.indexOf(value);
+        if (index >= 0) {
+            this.varint(index + 1);
+        } else {
+            this.varint(0);
+            this.string(value || '');
+        }
+    }
+
+    string(value: string | undefined | null) {
+        if (value === undefined || value === null) {
+            this.varint(0);
+            return;
+        }
+        const encoded = utf8(value);
+        this.varint(encoded.length + 1);
+        for (const b of encoded) {
+            this.bytes.push(b);
+        }
+    }
+
+    toArray(): Uint8Array {
+        return new Uint8Array(this.bytes);
+    }
+}
+
+function utf8(value: string): number[] {
+    const bytes: number[] = [];
+    for (let i = 0; i < value.length; i++) {
+        let c = value.charCodeAt(i);
+        if (c >= 0xD800 && c <= 0xDBFF && i + 1 < value.length) {
+            const low = value.charCodeAt(i + 1);
+            if (low >= 0xDC00 && low <= 0xDFFF) {
+                c = 0x10000 + (c - 0xD800) * 0x400 + (low - 0xDC00);
+                i++;
+            }
+        }
+        if (c < 0x80) {
+            bytes.push(c);
+        } else if (c < 0x800) {
+            bytes.push(0xC0 + Math.floor(c / 0x40), 0x80 + c % 0x40);
+        } else if (c < 0x10000) {
+            bytes.push(0xE0 + Math.floor(c / 0x1000), 0x80 + Math.floor(c / 0x40) % 0x40, 0x80 + c % 0x40);
+        } else {
+            bytes.push(0xF0 + Math.floor(c / 0x40000), 0x80 + Math.floor(c / 0x1000) % 0x40,
+                0x80 + Math.floor(c / 0x40) % 0x40, 0x80 + c % 0x40);
+        }
+    }
+    return bytes;
+}
+
+/**
+ * Encodes events in the binary format, built-in event ids and property keys
+ * being replaced by their numeric codes.
+ */
+export function encodeEvents(events: Array<Event>): Uint8Array {
+    const writer = new ByteWriter();
+    writer.byte(MAGIC);
+    writer.byte(VERSION);
+    for (const event of events) {
+        writer.coded(event.id, EVENT_IDS);
+        writer.string(event.ownerId);
+        writer.string(event.ip);
+        writer.string(event.agent);
+        writer.string(event.resolution);
+        const properties = event.properties || [];
+        writer.varint(properties.length);
+        for (const property of properties) {
+            writer.coded(property.id, PROPERTY_KEYS);
+            writer.string(property.value);
+        }
+    }
+    return writer.toArray();
+}
@@ -9,10 +9,12 @@
  **********************************************************************/
 
 import axios, {AxiosInstance, AxiosPromise, AxiosResponse, AxiosError, AxiosRequestConfig} from 'axios';
-import {DefaultApiFactory, DefaultApiInterface, Event} from './openapi/api';
+import {DefaultApiFactory, DefaultApiInterface, Event, EventResult, EventStreamResult} from './openapi/api';
 import {ConfigurationParameters, Configuration} from './openapi/configuration';
+import {BINARY_MEDIA_TYPE, encodeEvents} from './binary';
 export * from './openapi/configuration';
 export * from './openapi/api';
+export {BINARY_MEDIA_TYPE, encodeEvents} from './binary';
 
 type AxiosPromiseWrapper<T> = {
     [K in keyof T]: T[K] extends (...args: infer Args) => AxiosPromise<infer R> ? (...args: Args) => Promise<R> : T[K];
@@ -20,11 +22,92 @@ type AxiosPromiseWrapper<T> = {
 
 export interface TelemetryApi extends AxiosPromiseWrapper<DefaultApiInterface> {}
 
+export interface TelemetryClientOptions {
+    /**
+     * Send events in the compact binary format instead of JSON.
+     */
+    binary?: boolean;
+}
+
+/**
+ * Flush policy of the buffered mode, in which `event` calls are buffered and sent in batches to `/telemetry/events`.
+ */
+export interface BatchingOptions {
+    /**
+     * Number of buffered events that triggers a flush. Defaults to 50.
+     */
+    maxBatchSize?: number;
+    /**
+     * Maximum time, in milliseconds, an event stays in the buffer. Defaults to 1000.
+     */
+    flushInterval?: number;
+    /**
+     * Send identical `EDITOR_USED` events of a batch only once. Defaults to true.
+     */
+    mergeEditorUsed?: boolean;
+    /**
+     * Flush with `navigator.sendBeacon` when the page is hidden or unloaded. Defaults to true.
+     */
+    flushOnUnload?: boolean;
+}
+
+export interface TelemetryConfigurationParameters extends ConfigurationParameters {
+    /**
+     * Enables the buffered mode of `event`, with this flush policy.
+     */
+    batching?: BatchingOptions;
+}
+
+export class TelemetryConfiguration extends Configuration {
+    batching?: BatchingOptions;
+
+    constructor(param: TelemetryConfigurationParameters = {}) {
+        super(param);
+        this.batching = param.batching;
+    }
+}
+
+interface BufferedEvent {
+    event: Event;
+    callbacks: Array<{resolve: (value: string) => void, reject: (error: any) => void}>;
+}
+
 export class TelemetryClient implements TelemetryApi {
     private delegate : DefaultApiInterface
+    private basePath: string
+    private axiosInstance: AxiosInstance
+    private binary: boolean
+    private batching: Required<BatchingOptions> | undefined
+    private buffer: Array<BufferedEvent> = []
+    private bufferedEditorUsed: {[key: string]: BufferedEvent} = {}
+    private flushTimer: any
+    private unloadListener: ((e: any) => void) | undefined
 
-    constructor(conf? : Configuration, basePath: string = '', axiosInstance: AxiosInstance = axios) {
+    constructor(conf? : Configuration, basePath: string = '', axiosInstance: AxiosInstance = axios, options: TelemetryClientOptions = {}) {
         this.delegate = DefaultApiFactory(conf, basePath, axiosInstance);
+        this.basePath = (conf && conf.basePath) || basePath;
+        this.axiosInstance = axiosInstance;
+        this.binary = !!options.binary;
+        const batching = conf && (conf as TelemetryConfiguration).batching;
+        if (batching) {
+            this.batching = {
+                maxBatchSize: batching.maxBatchSize || 50,
+                flushInterval: batching.flushInterval || 1000,
+                mergeEditorUsed: batching.mergeEditorUsed !== false,
+                flushOnUnload: batching.flushOnUnload !== false
+            };
+            if (this.batching.flushOnUnload && typeof window !== 'undefined' && window.addEventListener) {
+                // pages hidden on mobile may be discarded without unload event
+                const listener = (e: {type: string}) => {
+                    if (e.type === 'pagehide' || document.visibilityState === 'hidden') {
+                        this.flushWithBeacon();
+                    }
+                };
+                window.addEventListener('pagehide', listener);
+                document.addEventListener('visibilitychange', listener);
+                this.unloadListener = listener;
+            }
+        }
     }
 
     private wrapInPromise<T, Args extends any[]>(f: (...args: Args) => AxiosPromise<string>, ...args: Args) {
@@ -39,13 +122,171 @@ export class TelemetryClient implements TelemetryApi {
         });
     }
 
+    private wrapDataInPromise<T, Args extends any[]>(f: (...args: Args) => AxiosPromise<T>, ...args: Args) {
+        return new Promise<T>((resolve, reject) => {
+            f(...args)
+                .then((response: AxiosResponse<T>) => {
+                    resolve(response.data);
+                })
+                .catch((error: AxiosError) => {
+                    reject(new RequestError(error));
+                });
+        });
+    }
+
     activity(options?: any): Promise<string> {
         return this.wrapInPromise(this.delegate.activity, options);
     }
 
+    /**
+     * Sends an event. In the buffered mode, the event is sent with the next batch, and the promise is settled by its
+     * result.
+     */
     event(event: Event, options?: any): Promise<string> {
+        if (this.batching) {
+            return this.bufferEvent(event);
+        }
+        if (this.binary) {
+            return this.wrapInPromise(this.postBinary, '/telemetry/event', [event], options);
+        }
         return this.wrapInPromise(this.delegate.event, event);
     }
+
+    events(events: Array<Event>, options?: any): Promise<Array<EventResult>> {
+        if (this.binary) {
+            return this.wrapDataInPromise(this.postBinary, '/telemetry/events', events, options);
+        }
+        return this.wrapDataInPromise(this.delegate.events, events, options);
+    }
+
+    /**
+     * Sends newline-delimited JSON events, for instance built with `JSON.stringify(event) + '\n'`.
+     */
+    eventsStream(body: string, options?: any): Promise<EventStreamResult> {
+        const headers = Object.assign({}, options && options.headers, {'Content-Type': 'application/x-ndjson'});
+        return this.wrapDataInPromise(this.delegate.eventsStream, body, Object.assign({}, options, {headers}));
+    }
+
+    /**
+     * Sends the buffered events.
+     */
+    flush(): Promise<void> {
+        const batch = this.takeBuffer();
+        if (batch.length === 0) {
+            return Promise.resolve();
+        }
+        const events = batch.map(buffered => buffered.event);
+        const request: AxiosPromise<Array<EventResult>> = this.binary
+            ? this.postBinary('/telemetry/events', events)
+            : this.delegate.events(events);
+        return request
+            .then((response: AxiosResponse<Array<EventResult>>) => {
+                batch.forEach((buffered, i) => {
+                    const result = response.data && response.data[i];
+                    buffered.callbacks.forEach(callback => {
+                        if (!result || result.status === 200) {
+                            callback.resolve('');
+                        } else {
+                            callback.reject(new EventError(result));
+                        }
+                    });
+                });
+            }, (error: AxiosError) => {
+                const requestError = new RequestError(error);
+                batch.forEach(buffered => buffered.callbacks.forEach(callback => callback.reject(requestError)));
+            });
+    }
+
+    /**
+     * Sends the buffered events with `navigator.sendBeacon`, which outlives the page. The promises of the events are
+     * resolved once the beacon is queued by the browser, as its result can't be read. Falls back to `flush` when
+     * beacons are not available or the browser refuses the beacon, or throws because of its content type.
+     *
+     * @return whether the events were queued as a beacon
+     */
+    flushWithBeacon(): boolean {
+        if (this.buffer.length === 0) {
+            return true;
+        }
+        if (typeof navigator === 'undefined' || typeof navigator.sendBeacon !== 'function') {
+            this.flush();
+            return false;
+        }
+        const events = this.buffer.map(buffered => buffered.event);
+        const data = this.binary
+            ? new Blob([encodeEvents(events)], {type: BINARY_MEDIA_TYPE})
+            : new Blob([JSON.stringify(events)], {type: 'application/json'});
+        let queued: boolean;
+        try {
+            queued = navigator.sendBeacon(this.basePath + '/telemetry/events', data);
+        } catch (e) {
+            // Some browsers throw on blobs whose type is not CORS-safelisted
+            queued = false;
+        }
+        if (!queued) {
+            this.flush();
+            return false;
+        }
+        this.takeBuffer().forEach(buffered => buffered.callbacks.forEach(callback => callback.resolve('')));
+        return true;
+    }
+
+    /**
+     * Stops listening to the page unload, and sends the buffered events.
+     */
+    dispose(): Promise<void> {
+        if (this.unloadListener) {
+            window.removeEventListener('pagehide', this.unloadListener);
+            document.removeEventListener('visibilitychange', this.unloadListener);
+            this.unloadListener = undefined;
+        }
+        return this.flush();
+    }
+
+    private bufferEvent(event: Event): Promise<string> {
+        return new Promise<string>((resolve, reject) => {
+            const batching = this.batching!;
+            const callback = {resolve, reject};
+            const key = batching.mergeEditorUsed && event.id === 'EDITOR_USED' ? JSON.stringify(event) : undefined;
+            if (key !== undefined) {
+                const identical = this.bufferedEditorUsed[key];
+                if (identical) {
+                    identical.callbacks.push(callback);
+                    return;
+                }
+            }
+            const buffered: BufferedEvent = {event, callbacks: [callback]};
+            this.buffer.push(buffered);
+            if (key !== undefined) {
+                this.bufferedEditorUsed[key] = buffered;
+            }
+            if (this.buffer.length >= batching.maxBatchSize) {
+                this.flush();
+            } else if (this.flushTimer === undefined) {
+                this.flushTimer = setTimeout(() => this.flush(), batching.flushInterval);
+            }
+        });
+    }
+
+    private takeBuffer(): Array<BufferedEvent> {
+        if (this.flushTimer !== undefined) {
+            clearTimeout(this.flushTimer);
+            this.flushTimer = undefined;
+        }
+        const batch = this.buffer;
+        this.buffer = [];
+        this.bufferedEditorUsed = {};
+        return batch;
+    }
+
+    private postBinary = (path: string, events: Array<Event>, options?: any): AxiosPromise<any> => {
+        const config: AxiosRequestConfig = Object.assign({}, options);
+        config.method = 'POST';
+        config.url = this.basePath + path;
+        config.data = encodeEvents(events);
+        config.headers = Object.assign({}, config.headers, {'Content-Type': BINARY_MEDIA_TYPE});
+        return this.axiosInstance.request(config);
+    }
 }
 
 export interface IRequestConfig extends AxiosRequestConfig { }
@@ -66,6 +307,24 @@ export interface IRequestError extends Error {
     response?: IResponse<any>;
 }
 
+/**
+ * Rejection of a buffered event refused by the telemetry endpoint.
+ */
+export class EventError implements Error {
+
+    name: string;
+    message: string;
+    id: string | undefined;
+    status: number | undefined;
+
+    constructor(result: EventResult) {
+        this.name = 'EventError';
+        this.message = result.message || 'Event ' + result.id + ' was refused with status ' + result.status;
+        this.id = result.id;
+        this.status = result.status;
+    }
+}
+
 class RequestError implements IRequestError {
 
     status: number | undefined;
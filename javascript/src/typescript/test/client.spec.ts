@@ -9,7 +9,7 @@
  **********************************************************************/
 'use strict';
 
-import {TelemetryApi, TelemetryClient} from '../src';
+import {BINARY_MEDIA_TYPE, TelemetryApi, TelemetryClient, TelemetryConfiguration} from '../src';
 import * as mockAxios from 'axios';
 const axios = (mockAxios as any);
 
@@ -42,5 +42,153 @@ describe('RestAPI >', () => {
         expect(call.method).toBe('POST');
         expect(call.url).toBe('/telemetry/activity');
     });
-    
+
+    it('events test - successful', async () => {
+        axios.request.mockImplementationOnce(() =>
+        Promise.resolve({
+            status: 200,
+            data: [{id: 'EDITOR_USED', status: 200}, {id: 'UNKNOWN', status: 400}]
+        })
+        );
+        const results = await telemetryClient.events([
+            {id: 'EDITOR_USED', ownerId: 'owner', ip: '127.0.0.1', agent: 'agent', resolution: '1024x768', properties: []},
+            {id: 'UNKNOWN', ownerId: 'owner', ip: '127.0.0.1', agent: 'agent', resolution: '1024x768', properties: []}
+        ]);
+        expect(results.length).toBe(2);
+        expect(results[1].status).toBe(400);
+        const call = (axios.request as jest.Mock).mock.calls[0][0] as any;
+        expect(call.method).toBe('POST');
+        expect(call.url).toBe('/telemetry/events');
+    });
+
+    it('events stream test - successful', async () => {
+        axios.request.mockImplementationOnce(() =>
+        Promise.resolve({
+            status: 200,
+            data: {received: 2, accepted: 1, errors: [{id: 'UNKNOWN', status: 400, line: 2}]}
+        })
+        );
+        const result = await telemetryClient.eventsStream('{"id":"EDITOR_USED"}\n{"id":"UNKNOWN"}\n');
+        expect(result.accepted).toBe(1);
+        expect(result.errors[0].line).toBe(2);
+        const call = (axios.request as jest.Mock).mock.calls[0][0] as any;
+        expect(call.method).toBe('POST');
+        expect(call.url).toBe('/telemetry/events/stream');
+    });
+
+    it('event test - binary', async () => {
+        axios.request.mockImplementationOnce(() =>
+        Promise.resolve({
+            status: 200,
+            data: ''
+        })
+        );
+        const binaryClient = new TelemetryClient(undefined, '', axios, {binary: true});
+        await binaryClient.event(
+            {id: 'EDITOR_USED', ownerId: 'owner', ip: '', agent: '', resolution: '', properties: [{id: 'programming language', value: 'go'}]});
+        const call = (axios.request as jest.Mock).mock.calls[0][0] as any;
+        expect(call.method).toBe('POST');
+        expect(call.url).toBe('/telemetry/event');
+        expect(call.headers['Content-Type']).toBe(BINARY_MEDIA_TYPE);
+        expect(Array.from(call.data)).toEqual([0xCE, 1, 6, 6, 111, 119, 110, 101, 114, 1, 1, 1, 1, 1, 3, 103, 111]);
+    });
+
+    it('event test - buffered, flushed by size', async () => {
+        axios.request.mockImplementationOnce(() =>
+        Promise.resolve({
+            status: 200,
+            data: [{id: 'EDITOR_USED', status: 200}, {id: 'UNKNOWN', status: 400}]
+        })
+        );
+        const bufferedClient = new TelemetryClient(
+            new TelemetryConfiguration({batching: {maxBatchSize: 2, flushOnUnload: false}}));
+        const sent = bufferedClient.event(
+            {id: 'EDITOR_USED', ownerId: 'owner', ip: '', agent: '', resolution: '', properties: []});
+        expect(axios.request).not.toHaveBeenCalled();
+        const refused = bufferedClient.event(
+            {id: 'UNKNOWN', ownerId: 'owner', ip: '', agent: '', resolution: '', properties: []});
+        await expect(sent).resolves.toBe('');
+        await expect(refused).rejects.toHaveProperty('status', 400);
+        expect(axios.request).toHaveBeenCalledTimes(1);
+        const call = (axios.request as jest.Mock).mock.calls[0][0] as any;
+        expect(call.method).toBe('POST');
+        expect(call.url).toBe('/telemetry/events');
+    });
+
+    it('event test - buffered, identical EDITOR_USED events merged', async () => {
+        axios.request.mockImplementationOnce(() =>
+        Promise.resolve({
+            status: 200,
+            data: [{id: 'EDITOR_USED', status: 200}, {id: 'EDITOR_USED', status: 200}]
+        })
+        );
+        const bufferedClient = new TelemetryClient(
+            new TelemetryConfiguration({batching: {flushOnUnload: false}}));
+        const editorUsed = (language: string) => bufferedClient.event({id: 'EDITOR_USED', ownerId: 'owner', ip: '',
+            agent: '', resolution: '', properties: [{id: 'programming language', value: language}]});
+        const sent = [editorUsed('go'), editorUsed('go'), editorUsed('java'), editorUsed('go')];
+        await bufferedClient.flush();
+        await Promise.all(sent);
+        const call = (axios.request as jest.Mock).mock.calls[0][0] as any;
+        const events = typeof call.data === 'string' ? JSON.parse(call.data) : call.data;
+        expect(events.length).toBe(2);
+    });
+
+    it('event test - buffered, flushed by time', async () => {
+        jest.useFakeTimers();
+        try {
+            const bufferedClient = new TelemetryClient(
+                new TelemetryConfiguration({batching: {flushInterval: 500, flushOnUnload: false}}));
+            bufferedClient.event({id: 'COMMIT_LOCALLY', ownerId: 'owner', ip: '', agent: '', resolution: '', properties: []});
+            expect(axios.request).not.toHaveBeenCalled();
+            jest.runAllTimers();
+            expect(axios.request).toHaveBeenCalledTimes(1);
+        } finally {
+            jest.useRealTimers();
+        }
+    });
+
+    it('event test - buffered, flushed with a beacon', async () => {
+        const sendBeacon = jest.fn(() => true);
+        (global as any).navigator = {sendBeacon};
+        try {
+            const bufferedClient = new TelemetryClient(
+                new TelemetryConfiguration({batching: {flushOnUnload: false}}));
+            const sent = bufferedClient.event(
+                {id: 'PUSH_TO_REMOTE', ownerId: 'owner', ip: '', agent: '', resolution: '', properties: []});
+            expect(bufferedClient.flushWithBeacon()).toBe(true);
+            await expect(sent).resolves.toBe('');
+            expect(sendBeacon).toHaveBeenCalledTimes(1);
+            expect((sendBeacon.mock.calls[0] as any[])[0]).toBe('/telemetry/events');
+            expect(axios.request).not.toHaveBeenCalled();
+        } finally {
+            delete (global as any).navigator;
+        }
+    });
+
+    it('event test - buffered, flushed when the beacon throws', async () => {
+        axios.request.mockImplementationOnce(() =>
+        Promise.resolve({
+            status: 200,
+            data: [{id: 'PUSH_TO_REMOTE', status: 200}]
+        })
+        );
+        const sendBeacon = jest.fn(() => {
+            throw new Error('sendBeacon() with a Blob whose type is not CORS-safelisted');
+        });
+        (global as any).navigator = {sendBeacon};
+        try {
+            const bufferedClient = new TelemetryClient(
+                new TelemetryConfiguration({batching: {flushOnUnload: false}}));
+            const sent = bufferedClient.event(
+                {id: 'PUSH_TO_REMOTE', ownerId: 'owner', ip: '', agent: '', resolution: '', properties: []});
+            expect(bufferedClient.flushWithBeacon()).toBe(false);
+            await expect(sent).resolves.toBe('');
+            expect(sendBeacon).toHaveBeenCalledTimes(1);
+            expect(axios.request).toHaveBeenCalledTimes(1);
+        } finally {
+            delete (global as any).navigator;
+        }
+    });
+
 });
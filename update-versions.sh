@@ -1,6 +1,6 @@
 #!/bin/bash
 
-# Set parent, backend-base, and javascript versions:
+# Set parent, backend-base, benchmarks and javascript versions:
 # CURRENT_MAJOR
 # CURRENT_MINOR
 # CURRENT_PATCH
@@ -34,6 +34,10 @@ xq --arg NEW_VERSION_STRING "$BACKEND_BASE_NEW_VERSION_STRING" -x '.project.vers
 mv backend-base/new-pom.xml backend-base/pom.xml
 xq --arg PARENT_VERSION "$PARENT_NEW_VERSION_STRING" -x '.project.parent.version=$PARENT_VERSION' backend-base/pom.xml > backend-base/new-pom.xml
 mv backend-base/new-pom.xml backend-base/pom.xml
+xq --arg NEW_VERSION_STRING "$BACKEND_BASE_NEW_VERSION_STRING" -x '.project.version=$NEW_VERSION_STRING' benchmarks/pom.xml  > benchmarks/new-pom.xml
+mv benchmarks/new-pom.xml benchmarks/pom.xml
+xq --arg PARENT_VERSION "$PARENT_NEW_VERSION_STRING" -x '.project.parent.version=$PARENT_VERSION' benchmarks/pom.xml > benchmarks/new-pom.xml
+mv benchmarks/new-pom.xml benchmarks/pom.xml
 xq --arg NEW_VERSION_STRING "$JAVASCRIPT_NEW_VERSION_STRING" -x '.project.version=$NEW_VERSION_STRING' javascript/pom.xml > javascript/new-pom.xml
 mv javascript/new-pom.xml javascript/pom.xml
 xq --arg PARENT_VERSION "$PARENT_NEW_VERSION_STRING" -x '.project.parent.version=$PARENT_VERSION' javascript/pom.xml > javascript/new-pom.xml